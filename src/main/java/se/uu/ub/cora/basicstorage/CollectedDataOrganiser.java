@@ -18,10 +18,12 @@
  */
 package se.uu.ub.cora.basicstorage;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import se.uu.ub.cora.data.DataAtomicProvider;
 import se.uu.ub.cora.data.DataGroup;
@@ -29,47 +31,66 @@ import se.uu.ub.cora.data.DataGroupProvider;
 
 class CollectedDataOrganiser {
 	private Map<String, DataGroup> collectedDataByDataDivider;
+	private Map<String, Map<String, Map<String, List<StorageTermData>>>> terms;
+	private String dataDivider;
 	private String recordType;
 	private String key;
-	private int repeatId;
 	private String id;
 
-	protected Map<String, DataGroup> structureCollectedDataForDisk(
-			Map<String, Map<String, Map<String, List<StorageTermData>>>> terms) {
+	protected Map<String, DataGroup> structureCollectedDataForDiskForDataDividers(
+			Map<String, Map<String, Map<String, List<StorageTermData>>>> terms,
+			Map<String, Map<String, Map<String, Set<String>>>> recordIdsByDataDividerTypeAndKey,
+			Set<String> dataDividers) {
 		collectedDataByDataDivider = new HashMap<>();
-		repeatId = 0;
-		for (Entry<String, Map<String, Map<String, List<StorageTermData>>>> entryRecordType : terms
+		this.terms = terms;
+		for (String changedDataDivider : dataDividers) {
+			dataDivider = changedDataDivider;
+			ensureCollectedDataForDataDivider(dataDivider);
+			loopRecordTypesAndCreateStorageTerms(recordIdsByDataDividerTypeAndKey
+					.getOrDefault(dataDivider, Collections.emptyMap()));
+		}
+		return collectedDataByDataDivider;
+	}
+
+	private void loopRecordTypesAndCreateStorageTerms(
+			Map<String, Map<String, Set<String>>> recordIdsByTypeAndKey) {
+		for (Entry<String, Map<String, Set<String>>> entryRecordType : recordIdsByTypeAndKey
 				.entrySet()) {
 			recordType = entryRecordType.getKey();
 			loopKeysAndCreateStorageTerms(entryRecordType.getValue());
 		}
-		return collectedDataByDataDivider;
 	}
 
-	private void loopKeysAndCreateStorageTerms(
-			Map<String, Map<String, List<StorageTermData>>> map) {
-		for (Entry<String, Map<String, List<StorageTermData>>> mapForEntryKey : map.entrySet()) {
-			key = mapForEntryKey.getKey();
-			loopRecordIdsAndCreateStorageTerms(mapForEntryKey.getValue());
+	private void loopKeysAndCreateStorageTerms(Map<String, Set<String>> recordIdsByKey) {
+		for (Entry<String, Set<String>> entryKey : recordIdsByKey.entrySet()) {
+			key = entryKey.getKey();
+			loopRecordIdsAndCreateStorageTerms(entryKey.getValue());
 		}
 	}
 
-	private void loopRecordIdsAndCreateStorageTerms(Map<String, List<StorageTermData>> map) {
-		for (Entry<String, List<StorageTermData>> idEntry : map.entrySet()) {
-			id = idEntry.getKey();
-			loopStorageTermDataAndCreateStorageTerms(idEntry);
+	private void loopRecordIdsAndCreateStorageTerms(Set<String> recordIds) {
+		Map<String, List<StorageTermData>> termsByRecordId = terms.get(recordType).get(key);
+		for (String recordId : recordIds) {
+			id = recordId;
+			loopStorageTermDataAndCreateStorageTerms(termsByRecordId.get(recordId));
 		}
 	}
 
-	private void loopStorageTermDataAndCreateStorageTerms(
-			Entry<String, List<StorageTermData>> idEntry) {
-		for (StorageTermData storageTermData : idEntry.getValue()) {
-			DataGroup storageTerm = createStorageTerm(storageTermData);
-			addStorageTermToResult(storageTermData, storageTerm);
+	private void loopStorageTermDataAndCreateStorageTerms(List<StorageTermData> storageTerms) {
+		for (StorageTermData storageTermData : storageTerms) {
+			if (dataDivider.equals(storageTermData.dataDivider)) {
+				addStorageTermToResult(storageTermData);
+			}
 		}
 	}
 
-	private DataGroup createStorageTerm(StorageTermData storageTermData) {
+	private void addStorageTermToResult(StorageTermData storageTermData) {
+		DataGroup collectedData = collectedDataByDataDivider.get(storageTermData.dataDivider);
+		int repeatId = collectedData.getChildren().size();
+		collectedData.addChild(createStorageTerm(storageTermData, repeatId));
+	}
+
+	private DataGroup createStorageTerm(StorageTermData storageTermData, int repeatId) {
 		DataGroup storageTerm = DataGroupProvider.getDataGroupUsingNameInData("storageTerm");
 		storageTerm.setRepeatId(String.valueOf(repeatId));
 		storageTerm.addChild(
@@ -81,16 +102,9 @@ class CollectedDataOrganiser {
 				storageTermData.value));
 		storageTerm.addChild(DataAtomicProvider.getDataAtomicUsingNameInDataAndValue("dataDivider",
 				storageTermData.dataDivider));
-		repeatId++;
 		return storageTerm;
 	}
 
-	private void addStorageTermToResult(StorageTermData storageTermData, DataGroup storageTerm) {
-		String dataDivider = storageTermData.dataDivider;
-		ensureCollectedDataForDataDivider(dataDivider);
-		collectedDataByDataDivider.get(dataDivider).addChild(storageTerm);
-	}
-
 	private void ensureCollectedDataForDataDivider(String dataDivider) {
 		if (!collectedDataByDataDivider.containsKey(dataDivider)) {
 			DataGroup collectedData = DataGroupProvider
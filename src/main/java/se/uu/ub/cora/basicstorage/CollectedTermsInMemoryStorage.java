@@ -20,70 +20,126 @@ package se.uu.ub.cora.basicstorage;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
 
 import se.uu.ub.cora.data.DataGroup;
 
 class CollectedTermsInMemoryStorage {
 	private Map<String, Map<String, Map<String, List<StorageTermData>>>> terms = new HashMap<>();
+	private Map<String, Map<String, Map<String, Set<String>>>> recordIdsByTypeKeyAndValue = new HashMap<>();
+	private Map<String, Map<String, Set<String>>> storageKeysByTypeAndRecordId = new HashMap<>();
+	private Map<String, Map<String, Map<String, Set<String>>>> recordIdsByDivider = new HashMap<>();
+	private Set<String> changedDataDividers = new HashSet<>();
 
 	void removePreviousCollectedStorageTerms(String recordType, String recordId) {
-		if (termsExistForRecordType(recordType)) {
-			Map<String, Map<String, List<StorageTermData>>> termsForRecordType = terms
-					.get(recordType);
-			removePreviousCollectedStorageTermsForRecordType(recordId, termsForRecordType);
+		Map<String, Set<String>> storageKeysForRecordType = storageKeysByTypeAndRecordId
+				.get(recordType);
+		if (null != storageKeysForRecordType && storageKeysForRecordType.containsKey(recordId)) {
+			Set<String> storageKeys = storageKeysForRecordType.remove(recordId);
+			removePreviousCollectedStorageTermsForStorageKeys(recordType, recordId, storageKeys);
 		}
 	}
 
-	private boolean termsExistForRecordType(String recordType) {
-		return terms.containsKey(recordType);
+	private void removePreviousCollectedStorageTermsForStorageKeys(String recordType,
+			String recordId, Set<String> storageKeys) {
+		Map<String, Map<String, List<StorageTermData>>> termsForRecordType = terms
+				.get(recordType);
+		for (String storageKey : storageKeys) {
+			Map<String, List<StorageTermData>> termsForStorageKey = termsForRecordType
+					.get(storageKey);
+			List<StorageTermData> removedTerms = termsForStorageKey.remove(recordId);
+			if (termsForStorageKey.isEmpty()) {
+				termsForRecordType.remove(storageKey);
+			}
+			markDataDividersAsChanged(removedTerms);
+			removeRecordIdFromValueIndex(recordType, storageKey, recordId, removedTerms);
+			removeRecordIdFromDataDividerIndex(recordType, storageKey, recordId, removedTerms);
+		}
+	}
+
+	private void markDataDividersAsChanged(List<StorageTermData> storageTerms) {
+		for (StorageTermData storageTermData : storageTerms) {
+			changedDataDividers.add(storageTermData.dataDivider);
+		}
+	}
+
+	private void removeRecordIdFromDataDividerIndex(String recordType, String storageKey,
+			String recordId, List<StorageTermData> removedTerms) {
+		for (StorageTermData storageTermData : removedTerms) {
+			Map<String, Map<String, Set<String>>> recordIdsByTypeAndKey = recordIdsByDivider
+					.get(storageTermData.dataDivider);
+			if (null != recordIdsByTypeAndKey) {
+				removeRecordIdFromTypeAndKeyIndex(recordIdsByTypeAndKey, recordType, storageKey,
+						recordId);
+				possiblyRemoveEmptyDataDividerFromIndex(storageTermData.dataDivider,
+						recordIdsByTypeAndKey);
+			}
+		}
 	}
 
-	private void removePreviousCollectedStorageTermsForRecordType(String recordId,
-			Map<String, Map<String, List<StorageTermData>>> termsForRecordType) {
-		for (Entry<String, Map<String, List<StorageTermData>>> keyEntry : termsForRecordType
-				.entrySet()) {
-			Map<String, List<StorageTermData>> termsForRecordId = keyEntry.getValue();
-			removePreviousCollectedStorageTermsForRecordId(recordId, termsForRecordId);
+	private void removeRecordIdFromTypeAndKeyIndex(
+			Map<String, Map<String, Set<String>>> recordIdsByTypeAndKey, String recordType,
+			String storageKey, String recordId) {
+		Map<String, Set<String>> recordIdsByKey = recordIdsByTypeAndKey.get(recordType);
+		if (null != recordIdsByKey && recordIdsByKey.containsKey(storageKey)) {
+			Set<String> recordIds = recordIdsByKey.get(storageKey);
+			recordIds.remove(recordId);
+			if (recordIds.isEmpty()) {
+				recordIdsByKey.remove(storageKey);
+			}
+			if (recordIdsByKey.isEmpty()) {
+				recordIdsByTypeAndKey.remove(recordType);
+			}
 		}
 	}
 
-	private void removePreviousCollectedStorageTermsForRecordId(String recordId,
-			Map<String, List<StorageTermData>> termsForRecordId) {
-		List<String> idsToRemove = new ArrayList<>();
-		findIdsToRemove(recordId, termsForRecordId, idsToRemove);
-		removeStorageTermsForIds(termsForRecordId, idsToRemove);
+	private void possiblyRemoveEmptyDataDividerFromIndex(String dataDivider,
+			Map<String, Map<String, Set<String>>> recordIdsByTypeAndKey) {
+		if (recordIdsByTypeAndKey.isEmpty()) {
+			recordIdsByDivider.remove(dataDivider);
+		}
 	}
 
-	private void findIdsToRemove(String recordId,
-			Map<String, List<StorageTermData>> termsForRecordId, List<String> idsToRemove) {
-		for (Entry<String, List<StorageTermData>> recordIdEntry : termsForRecordId.entrySet()) {
-			if (termsExistForRecordId(recordId, recordIdEntry)) {
-				idsToRemove.add(recordIdEntry.getKey());
+	private void removeRecordIdFromValueIndex(String recordType, String storageKey,
+			String recordId, List<StorageTermData> removedTerms) {
+		Map<String, Set<String>> recordIdsByValue = recordIdsByTypeKeyAndValue.get(recordType)
+				.get(storageKey);
+		for (StorageTermData storageTermData : removedTerms) {
+			Set<String> recordIds = recordIdsByValue.get(storageTermData.value);
+			if (null != recordIds) {
+				recordIds.remove(recordId);
+				possiblyRemoveEmptyValueFromValueIndex(recordIdsByValue, storageTermData.value);
 			}
 		}
+		possiblyRemoveEmptyKeyFromValueIndex(recordType, storageKey, recordIdsByValue);
 	}
 
-	private void removeStorageTermsForIds(Map<String, List<StorageTermData>> termsForRecordId,
-			List<String> idsToRemove) {
-		for (String key : idsToRemove) {
-			termsForRecordId.remove(key);
+	private void possiblyRemoveEmptyValueFromValueIndex(Map<String, Set<String>> recordIdsByValue,
+			String value) {
+		if (recordIdsByValue.get(value).isEmpty()) {
+			recordIdsByValue.remove(value);
 		}
 	}
 
-	private boolean termsExistForRecordId(String recordId,
-			Entry<String, List<StorageTermData>> recordIdEntry) {
-		return recordIdEntry.getKey().equals(recordId);
+	private void possiblyRemoveEmptyKeyFromValueIndex(String recordType, String storageKey,
+			Map<String, Set<String>> recordIdsByValue) {
+		if (recordIdsByValue.isEmpty()) {
+			recordIdsByTypeKeyAndValue.get(recordType).remove(storageKey);
+		}
 	}
 
 	void storeCollectedTerms(String recordType, String recordId, DataGroup collectedTerms,
 			String dataDivider) {
 		removePreviousCollectedStorageTerms(recordType, recordId);
 		if (collectedTerms.containsChildWithNameInData("storage")) {
-			storeCollectedStorageTerms(recordType, recordId, collectedTerms, dataDivider);
+			storeCollectedStorageTerms(SymbolTable.intern(recordType), recordId, collectedTerms,
+					SymbolTable.intern(dataDivider));
 		}
 	}
 
@@ -99,21 +155,45 @@ class CollectedTermsInMemoryStorage {
 	private void storeCollectedStorageTerm(String recordType, String recordId, String dataDivider,
 			DataGroup collectedDataTerm) {
 		DataGroup extraData = collectedDataTerm.getFirstGroupWithNameInData("extraData");
-		String storageKey = extraData.getFirstAtomicValueWithNameInData("storageKey");
+		String storageKey = SymbolTable
+				.intern(extraData.getFirstAtomicValueWithNameInData("storageKey"));
 		String termValue = collectedDataTerm.getFirstAtomicValueWithNameInData("collectTermValue");
 
 		List<StorageTermData> listOfStorageTermData = ensureStorageListExistsForTermForTypeAndKeyAndId(
 				recordType, storageKey, recordId);
 
 		listOfStorageTermData.add(StorageTermData.withValueAndDataDivider(termValue, dataDivider));
+		addRecordIdToValueIndex(recordType, storageKey, termValue, recordId);
+		addRecordIdToDataDividerIndex(dataDivider, recordType, storageKey, recordId);
+		changedDataDividers.add(dataDivider);
+	}
+
+	private void addRecordIdToDataDividerIndex(String dataDivider, String recordType,
+			String storageKey, String recordId) {
+		recordIdsByDivider.computeIfAbsent(dataDivider, key -> new HashMap<>())
+				.computeIfAbsent(recordType, key -> new HashMap<>())
+				.computeIfAbsent(storageKey, key -> new HashSet<>()).add(recordId);
+	}
+
+	private void addRecordIdToValueIndex(String recordType, String storageKey, String value,
+			String recordId) {
+		recordIdsByTypeKeyAndValue.computeIfAbsent(recordType, key -> new HashMap<>())
+				.computeIfAbsent(storageKey, key -> new HashMap<>())
+				.computeIfAbsent(value, key -> new LinkedHashSet<>()).add(recordId);
 	}
 
 	void storeCollectedStorageTermData(String recordType, String storageKey, String recordId,
 			StorageTermData storageTermData) {
+		String internedRecordType = SymbolTable.intern(recordType);
+		String internedStorageKey = SymbolTable.intern(storageKey);
 		List<StorageTermData> listOfStorageTermData = ensureStorageListExistsForTermForTypeAndKeyAndId(
-				recordType, storageKey, recordId);
+				internedRecordType, internedStorageKey, recordId);
 
 		listOfStorageTermData.add(storageTermData);
+		addRecordIdToValueIndex(internedRecordType, internedStorageKey, storageTermData.value,
+				recordId);
+		addRecordIdToDataDividerIndex(SymbolTable.intern(storageTermData.dataDivider),
+				internedRecordType, internedStorageKey, recordId);
 	}
 
 	private List<StorageTermData> ensureStorageListExistsForTermForTypeAndKeyAndId(
@@ -122,6 +202,8 @@ class CollectedTermsInMemoryStorage {
 		Map<String, Map<String, List<StorageTermData>>> storageKeysForType = terms.get(recordType);
 		ensureStorageListExistsForTermKey(storageKey, storageKeysForType);
 		ensureStorageListExistsForId(storageKey, recordId, storageKeysForType);
+		storageKeysByTypeAndRecordId.computeIfAbsent(recordType, key -> new HashMap<>())
+				.computeIfAbsent(recordId, key -> new HashSet<>()).add(storageKey);
 		return storageKeysForType.get(storageKey).get(recordId);
 	}
 
@@ -147,50 +229,63 @@ class CollectedTermsInMemoryStorage {
 	}
 
 	List<String> findRecordIdsForFilter(String type, DataGroup filter) {
-		DataGroup filterPart = filter.getFirstGroupWithNameInData("part");
-		if (terms.containsKey(type)) {
-			return findRecordIdsMatchingFilterPart(type, filterPart);
+		if (recordIdsByTypeKeyAndValue.containsKey(type)) {
+			List<Set<String>> recordIdsForParts = findRecordIdsForEachFilterPart(type, filter);
+			return intersectRecordIdsStartingWithSmallest(recordIdsForParts);
 		}
 		return Collections.emptyList();
 	}
 
-	private List<String> findRecordIdsMatchingFilterPart(String type, DataGroup filterPart) {
+	private List<Set<String>> findRecordIdsForEachFilterPart(String type, DataGroup filter) {
+		List<Set<String>> recordIdsForParts = new ArrayList<>();
+		for (DataGroup filterPart : filter.getAllGroupsWithNameInData("part")) {
+			recordIdsForParts.add(findRecordIdsMatchingFilterPart(type, filterPart));
+		}
+		return recordIdsForParts;
+	}
+
+	private Set<String> findRecordIdsMatchingFilterPart(String type, DataGroup filterPart) {
 		String key = filterPart.getFirstAtomicValueWithNameInData("key");
 		String value = filterPart.getFirstAtomicValueWithNameInData("value");
-		Map<String, Map<String, List<StorageTermData>>> storageTermsForRecordType = terms.get(type);
-
-		Map<String, List<StorageTermData>> mapOfIdsAndStorageTermForTypeAndKey = storageTermsForRecordType
-				.get(key);
-		if (null != mapOfIdsAndStorageTermForTypeAndKey) {
-			return findRecordIdsMatchingValueForKey(value, mapOfIdsAndStorageTermForTypeAndKey);
+		Map<String, Set<String>> recordIdsByValue = recordIdsByTypeKeyAndValue.get(type).get(key);
+		if (null != recordIdsByValue && recordIdsByValue.containsKey(value)) {
+			return recordIdsByValue.get(value);
 		}
-		return Collections.emptyList();
+		return Collections.emptySet();
 	}
 
-	private List<String> findRecordIdsMatchingValueForKey(String value,
-			Map<String, List<StorageTermData>> mapOfIdsAndStorageTermForTypeAndKey) {
-		List<String> foundRecordIdsForKey = new ArrayList<>();
-
-		for (Entry<String, List<StorageTermData>> entry : mapOfIdsAndStorageTermForTypeAndKey
-				.entrySet()) {
-			findRecordIdsMatchingValueForId(value, foundRecordIdsForKey, entry);
+	private List<String> intersectRecordIdsStartingWithSmallest(
+			List<Set<String>> recordIdsForParts) {
+		recordIdsForParts.sort(Comparator.comparingInt(Set::size));
+		Set<String> smallestRecordIds = recordIdsForParts.get(0);
+		List<String> foundRecordIds = new ArrayList<>(smallestRecordIds.size());
+		for (String recordId : smallestRecordIds) {
+			if (recordIdMatchesAllParts(recordId, recordIdsForParts)) {
+				foundRecordIds.add(recordId);
+			}
 		}
-
-		return foundRecordIdsForKey;
+		return foundRecordIds;
 	}
 
-	private void findRecordIdsMatchingValueForId(String value, List<String> foundRecordIdsForKey,
-			Entry<String, List<StorageTermData>> entry) {
-		String key = entry.getKey();
-		for (StorageTermData storageTermData : entry.getValue()) {
-			if (storageTermData.value.equals(value)) {
-				foundRecordIdsForKey.add(key);
+	private boolean recordIdMatchesAllParts(String recordId, List<Set<String>> recordIdsForParts) {
+		for (int i = 1; i < recordIdsForParts.size(); i++) {
+			if (!recordIdsForParts.get(i).contains(recordId)) {
+				return false;
 			}
 		}
+		return true;
+	}
+
+	Map<String, DataGroup> structureChangedCollectedTermsForDisk() {
+		Map<String, DataGroup> collectedData = new CollectedDataOrganiser()
+				.structureCollectedDataForDiskForDataDividers(terms,
+						recordIdsByDivider, changedDataDividers);
+		clearChangedDataDividers();
+		return collectedData;
 	}
 
-	Map<String, DataGroup> structureCollectedTermsForDisk() {
-		return new CollectedDataOrganiser().structureCollectedDataForDisk(terms);
+	void clearChangedDataDividers() {
+		changedDataDividers = new HashSet<>();
 	}
 
 }
\ No newline at end of file
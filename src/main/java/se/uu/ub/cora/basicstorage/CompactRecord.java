@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.function.UnaryOperator;
+
+import se.uu.ub.cora.data.DataGroup;
+
+final class CompactRecord implements RecordSource {
+	private final byte[] serializedRecord;
+	private final RecordCache recordCache;
+	private final UnaryOperator<DataGroup> recordConverter;
+
+	static CompactRecord usingDataGroupAndRecordCache(DataGroup record, RecordCache recordCache) {
+		return new CompactRecord(record, recordCache, UnaryOperator.identity());
+	}
+
+	static CompactRecord usingDataGroupRecordCacheAndRecordConverter(DataGroup record,
+			RecordCache recordCache, UnaryOperator<DataGroup> recordConverter) {
+		return new CompactRecord(record, recordCache, recordConverter);
+	}
+
+	private CompactRecord(DataGroup record, RecordCache recordCache,
+			UnaryOperator<DataGroup> recordConverter) {
+		this.recordCache = recordCache;
+		this.recordConverter = recordConverter;
+		serializedRecord = tryToSerializeRecord(record);
+	}
+
+	private byte[] tryToSerializeRecord(DataGroup record) {
+		try {
+			return serializeRecord(record);
+		} catch (IOException e) {
+			throw DataStorageException.withMessageAndException("can not compact record: " + e, e);
+		}
+	}
+
+	private byte[] serializeRecord(DataGroup record) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		RecordListBinaryWriter writer = RecordListBinaryWriter
+				.usingOutputStreamAndSharedNames(outputStream);
+		writer.writeChild(record);
+		writer.flush();
+		return outputStream.toByteArray();
+	}
+
+	@Override
+	public DataGroup get() {
+		return recordCache.getOrLoad(this,
+				() -> recordConverter.apply(tryToDeserializeRecord()));
+	}
+
+	@Override
+	public DataGroup getWithoutCaching() {
+		return tryToDeserializeRecord();
+	}
+
+	private DataGroup tryToDeserializeRecord() {
+		try {
+			return deserializeRecord();
+		} catch (IOException e) {
+			throw DataStorageException.withMessageAndException("can not read compact record: " + e,
+					e);
+		}
+	}
+
+	private DataGroup deserializeRecord() throws IOException {
+		return RecordListBinaryReader
+				.usingInputStreamAndSharedNames(new ByteArrayInputStream(serializedRecord))
+				.readChild();
+	}
+
+	void writeTo(RecordListBinaryWriter writer) throws IOException {
+		writer.writeCompactChild(serializedRecord);
+	}
+
+	int getSizeInBytes() {
+		return serializedRecord.length;
+	}
+}
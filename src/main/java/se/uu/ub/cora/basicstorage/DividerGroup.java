@@ -19,20 +19,53 @@
 
 package se.uu.ub.cora.basicstorage;
 
+import java.io.IOException;
+import java.util.function.Supplier;
+
 import se.uu.ub.cora.data.DataGroup;
 
 final class DividerGroup {
 
 	static DividerGroup withDataDividerAndDataGroup(String dataDivider, DataGroup dataGroup) {
-		return new DividerGroup(dataDivider, dataGroup);
+		return new DividerGroup(dataDivider, dataGroup, null);
+	}
+
+	static DividerGroup withDataDividerAndDataGroupSource(String dataDivider,
+			Supplier<DataGroup> dataGroupSource) {
+		return new DividerGroup(dataDivider, null, dataGroupSource);
 	}
 
-	String dataDivider;
-	DataGroup dataGroup;
+	final String dataDivider;
+	final DataGroup dataGroup;
+	private final Supplier<DataGroup> dataGroupSource;
 
-	private DividerGroup(String dataDivider, DataGroup dataGroup) {
-		this.dataDivider = dataDivider;
+	private DividerGroup(String dataDivider, DataGroup dataGroup,
+			Supplier<DataGroup> dataGroupSource) {
+		this.dataDivider = SymbolTable.intern(dataDivider);
 		this.dataGroup = dataGroup;
+		this.dataGroupSource = dataGroupSource;
+	}
+
+	DataGroup getDataGroup() {
+		if (null == dataGroupSource) {
+			return dataGroup;
+		}
+		return dataGroupSource.get();
+	}
+
+	DataGroup getDataGroupWithoutCaching() {
+		if (dataGroupSource instanceof RecordSource) {
+			return ((RecordSource) dataGroupSource).getWithoutCaching();
+		}
+		return ImmutableDataGroup.getWrappedDataGroup(dataGroup);
+	}
+
+	void writeDataGroupTo(RecordListBinaryWriter writer) throws IOException {
+		if (dataGroupSource instanceof CompactRecord) {
+			((CompactRecord) dataGroupSource).writeTo(writer);
+		} else {
+			writer.writeChild(getDataGroupWithoutCaching());
+		}
 	}
 
 }
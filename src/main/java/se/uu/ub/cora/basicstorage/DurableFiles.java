@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+final class DurableFiles {
+	static final String TEMP_FILE_ENDING = ".tmp";
+
+	interface ContentWriter {
+		void writeContent(OutputStream outputStream) throws IOException;
+	}
+
+	private DurableFiles() {
+		throw new UnsupportedOperationException();
+	}
+
+	static void writeFileAtomically(Path path, ContentWriter contentWriter) throws IOException {
+		Path tempPath = path.resolveSibling(path.getFileName() + TEMP_FILE_ENDING);
+		try {
+			writeContentAndForce(tempPath, contentWriter);
+			moveAtomicallyAndSyncDirectory(tempPath, path);
+		} catch (IOException | RuntimeException e) {
+			removeFileAfterFailure(tempPath, e);
+			throw e;
+		}
+	}
+
+	private static void writeContentAndForce(Path path, ContentWriter contentWriter)
+			throws IOException {
+		try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			OutputStream outputStream = new BufferedOutputStream(
+					new ChannelOutputStream(fileChannel));
+			contentWriter.writeContent(outputStream);
+			outputStream.flush();
+			fileChannel.force(true);
+		}
+	}
+
+	private static void removeFileAfterFailure(Path path, Exception failure) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			failure.addSuppressed(e);
+		}
+	}
+
+	static void moveAtomicallyAndSyncDirectory(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+		syncDirectory(target.toAbsolutePath().getParent());
+	}
+
+	static void syncDirectory(Path directory) throws IOException {
+		FileChannel directoryChannel;
+		try {
+			directoryChannel = FileChannel.open(directory, StandardOpenOption.READ);
+		} catch (AccessDeniedException e) {
+			// directories can not be opened on all platforms, the rename is then all we can do
+			return;
+		}
+		try (FileChannel channel = directoryChannel) {
+			channel.force(true);
+		}
+	}
+
+	private static final class ChannelOutputStream extends OutputStream {
+		private final FileChannel fileChannel;
+
+		private ChannelOutputStream(FileChannel fileChannel) {
+			this.fileChannel = fileChannel;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+			while (buffer.hasRemaining()) {
+				fileChannel.write(buffer);
+			}
+		}
+
+		@Override
+		public void close() {
+			// the channel is forced and closed by the writer of the file
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import se.uu.ub.cora.data.DataAtomic;
+
+final class ImmutableDataAtomic implements DataAtomic {
+	private final DataAtomic dataAtomic;
+
+	static DataAtomic usingDataAtomic(DataAtomic dataAtomic) {
+		if (dataAtomic instanceof ImmutableDataAtomic) {
+			return dataAtomic;
+		}
+		return new ImmutableDataAtomic(dataAtomic);
+	}
+
+	private ImmutableDataAtomic(DataAtomic dataAtomic) {
+		this.dataAtomic = dataAtomic;
+	}
+
+	@Override
+	public String getRepeatId() {
+		return dataAtomic.getRepeatId();
+	}
+
+	@Override
+	public String getNameInData() {
+		return dataAtomic.getNameInData();
+	}
+
+	@Override
+	public String getValue() {
+		return dataAtomic.getValue();
+	}
+
+	@Override
+	public void setRepeatId(String repeatId) {
+		throw new UnsupportedOperationException(ImmutableDataGroup.READ_ONLY_MESSAGE);
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import se.uu.ub.cora.data.DataAtomic;
+import se.uu.ub.cora.data.DataAttribute;
+import se.uu.ub.cora.data.DataElement;
+import se.uu.ub.cora.data.DataGroup;
+
+final class ImmutableDataGroup implements DataGroup {
+	static final String READ_ONLY_MESSAGE = "stored records can not be changed";
+	private final DataGroup dataGroup;
+	private final Map<String, String> attributes;
+	private volatile List<DataElement> children;
+
+	static DataGroup usingDataGroup(DataGroup dataGroup) {
+		if (null == dataGroup || dataGroup instanceof ImmutableDataGroup) {
+			return dataGroup;
+		}
+		return new ImmutableDataGroup(dataGroup);
+	}
+
+	private ImmutableDataGroup(DataGroup dataGroup) {
+		this.dataGroup = dataGroup;
+		attributes = makeAttributesUnmodifiable(dataGroup.getAttributes());
+	}
+
+	private static Map<String, String> makeAttributesUnmodifiable(Map<String, String> attributes) {
+		if (null == attributes) {
+			return null;
+		}
+		return Collections.unmodifiableMap(attributes);
+	}
+
+	static DataGroup getWrappedDataGroup(DataGroup dataGroup) {
+		if (dataGroup instanceof ImmutableDataGroup) {
+			return ((ImmutableDataGroup) dataGroup).dataGroup;
+		}
+		return dataGroup;
+	}
+
+	private static DataElement makeElementImmutable(DataElement dataElement) {
+		if (dataElement instanceof DataGroup) {
+			return usingDataGroup((DataGroup) dataElement);
+		}
+		if (dataElement instanceof DataAtomic) {
+			return ImmutableDataAtomic.usingDataAtomic((DataAtomic) dataElement);
+		}
+		return dataElement;
+	}
+
+	private static <T extends DataElement> List<T> makeElementsImmutable(
+			Collection<T> dataElements) {
+		if (null == dataElements) {
+			return Collections.emptyList();
+		}
+		List<T> immutableElements = new ArrayList<>(dataElements.size());
+		for (T dataElement : dataElements) {
+			immutableElements.add(makeImmutableKeepingType(dataElement));
+		}
+		return Collections.unmodifiableList(immutableElements);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends DataElement> T makeImmutableKeepingType(T dataElement) {
+		return (T) makeElementImmutable(dataElement);
+	}
+
+	@Override
+	public String getRepeatId() {
+		return dataGroup.getRepeatId();
+	}
+
+	@Override
+	public String getNameInData() {
+		return dataGroup.getNameInData();
+	}
+
+	@Override
+	public String getFirstAtomicValueWithNameInData(String nameInData) {
+		return dataGroup.getFirstAtomicValueWithNameInData(nameInData);
+	}
+
+	@Override
+	public DataGroup getFirstGroupWithNameInData(String childNameInData) {
+		return (DataGroup) getImmutableChild(
+				dataGroup.getFirstGroupWithNameInData(childNameInData));
+	}
+
+	@Override
+	public void addChild(DataElement dataElement) {
+		throw new UnsupportedOperationException(READ_ONLY_MESSAGE);
+	}
+
+	@Override
+	public List<DataElement> getChildren() {
+		List<DataElement> immutableChildren = children;
+		if (null == immutableChildren) {
+			immutableChildren = makeElementsImmutable(dataGroup.getChildren());
+			children = immutableChildren;
+		}
+		return immutableChildren;
+	}
+
+	@Override
+	public boolean containsChildWithNameInData(String nameInData) {
+		return dataGroup.containsChildWithNameInData(nameInData);
+	}
+
+	@Override
+	public void setRepeatId(String repeatId) {
+		throw new UnsupportedOperationException(READ_ONLY_MESSAGE);
+	}
+
+	@Override
+	public void addAttributeByIdWithValue(String id, String value) {
+		throw new UnsupportedOperationException(READ_ONLY_MESSAGE);
+	}
+
+	@Override
+	public DataElement getFirstChildWithNameInData(String nameInData) {
+		return getImmutableChild(dataGroup.getFirstChildWithNameInData(nameInData));
+	}
+
+	@Override
+	public List<DataGroup> getAllGroupsWithNameInData(String nameInData) {
+		return getChildrenOfTypeWithNameInData(DataGroup.class, nameInData);
+	}
+
+	private <T extends DataElement> List<T> getChildrenOfTypeWithNameInData(Class<T> type,
+			String nameInData) {
+		List<T> foundChildren = new ArrayList<>();
+		for (DataElement child : getChildren()) {
+			if (type.isInstance(child) && nameInData.equals(child.getNameInData())) {
+				foundChildren.add(type.cast(child));
+			}
+		}
+		return Collections.unmodifiableList(foundChildren);
+	}
+
+	@Override
+	public String getAttribute(String attributeId) {
+		return dataGroup.getAttribute(attributeId);
+	}
+
+	@Override
+	public Map<String, String> getAttributes() {
+		return attributes;
+	}
+
+	@Override
+	public List<DataAtomic> getAllDataAtomicsWithNameInData(String childNameInData) {
+		return getChildrenOfTypeWithNameInData(DataAtomic.class, childNameInData);
+	}
+
+	@Override
+	public void removeFirstChildWithNameInData(String childNameInData) {
+		throw new UnsupportedOperationException(READ_ONLY_MESSAGE);
+	}
+
+	@Override
+	public Collection<DataGroup> getAllGroupsWithNameInDataAndAttributes(String childNameInData,
+			DataAttribute... childAttributes) {
+		Collection<DataGroup> foundGroups = dataGroup
+				.getAllGroupsWithNameInDataAndAttributes(childNameInData, childAttributes);
+		if (null == foundGroups) {
+			return Collections.emptyList();
+		}
+		List<DataGroup> immutableGroups = new ArrayList<>(foundGroups.size());
+		for (DataGroup foundGroup : foundGroups) {
+			immutableGroups.add((DataGroup) getImmutableChild(foundGroup));
+		}
+		return Collections.unmodifiableList(immutableGroups);
+	}
+
+	private DataElement getImmutableChild(DataElement child) {
+		if (null == child) {
+			return null;
+		}
+		List<DataElement> wrappedChildren = dataGroup.getChildren();
+		for (int childNo = 0; childNo < wrappedChildren.size(); childNo++) {
+			if (wrappedChildren.get(childNo) == child) {
+				return getChildren().get(childNo);
+			}
+		}
+		return makeElementImmutable(child);
+	}
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import se.uu.ub.cora.data.DataElement;
+import se.uu.ub.cora.data.DataGroup;
+
+final class IncomingLinkIndex {
+	private static final int INITIAL_CAPACITY = 16;
+	private static final String LINKED_RECORD_TYPE = "linkedRecordType";
+	private static final String LINKED_RECORD_ID = "linkedRecordId";
+	private Map<String, Map<String, Integer>> nodeIdsByRecordType = new HashMap<>();
+	private String[] recordTypes = new String[INITIAL_CAPACITY];
+	private String[] recordIds = new String[INITIAL_CAPACITY];
+	private int[][] targetsBySource = new int[INITIAL_CAPACITY][];
+	private int[][] positionsInTargetsBySource = new int[INITIAL_CAPACITY][];
+	private int[][] sourcesByTarget = new int[INITIAL_CAPACITY][];
+	private int[] noOfSourcesByTarget = new int[INITIAL_CAPACITY];
+	private int[] freeNodeIds = new int[INITIAL_CAPACITY];
+	private int noOfFreeNodeIds = 0;
+	private int noOfAllocatedNodeIds = 0;
+
+	static IncomingLinkIndex createEmpty() {
+		return new IncomingLinkIndex();
+	}
+
+	private IncomingLinkIndex() {
+	}
+
+	void replaceLinksFromSource(String sourceType, String sourceId, DataGroup linkList) {
+		int[] newTargets = getSortedDistinctTargetNodesFromLinkList(linkList);
+		if (newTargets.length == 0) {
+			removeLinksFromSource(sourceType, sourceId);
+		} else {
+			int source = getOrCreateNode(sourceType, sourceId);
+			replaceTargetsForSource(source, newTargets);
+		}
+	}
+
+	private int[] getSortedDistinctTargetNodesFromLinkList(DataGroup linkList) {
+		List<DataElement> links = linkList.getChildren();
+		int[] targets = new int[links.size()];
+		for (int i = 0; i < targets.length; i++) {
+			DataGroup to = ((DataGroup) links.get(i)).getFirstGroupWithNameInData("to");
+			targets[i] = getOrCreateNode(to.getFirstAtomicValueWithNameInData(LINKED_RECORD_TYPE),
+					to.getFirstAtomicValueWithNameInData(LINKED_RECORD_ID));
+		}
+		Arrays.sort(targets);
+		return removeDuplicatesFromSortedNodes(targets);
+	}
+
+	private int[] removeDuplicatesFromSortedNodes(int[] nodes) {
+		int noOfDistinctNodes = 0;
+		for (int i = 0; i < nodes.length; i++) {
+			if (i == 0 || nodes[i] != nodes[i - 1]) {
+				nodes[noOfDistinctNodes] = nodes[i];
+				noOfDistinctNodes++;
+			}
+		}
+		return Arrays.copyOf(nodes, noOfDistinctNodes);
+	}
+
+	private void replaceTargetsForSource(int source, int[] newTargets) {
+		int[] oldTargets = targetsBySource[source];
+		int[] oldPositions = positionsInTargetsBySource[source];
+		if (null == oldTargets) {
+			oldTargets = new int[0];
+			oldPositions = new int[0];
+		}
+		targetsBySource[source] = newTargets;
+		positionsInTargetsBySource[source] = new int[newTargets.length];
+		removeSourceFromTargetsNotIn(oldTargets, oldPositions, newTargets);
+		addSourceToTargetsOrKeepPositions(source, oldTargets, oldPositions);
+	}
+
+	private void removeSourceFromTargetsNotIn(int[] targets, int[] positions,
+			int[] keptTargets) {
+		for (int i = 0; i < targets.length; i++) {
+			if (Arrays.binarySearch(keptTargets, targets[i]) < 0) {
+				removeSourceFromTarget(targets[i], positions[i]);
+				possiblyReleaseNode(targets[i]);
+			}
+		}
+	}
+
+	private void addSourceToTargetsOrKeepPositions(int source, int[] existingTargets,
+			int[] existingPositions) {
+		int[] targets = targetsBySource[source];
+		int[] positions = positionsInTargetsBySource[source];
+		for (int i = 0; i < targets.length; i++) {
+			int existingIndex = Arrays.binarySearch(existingTargets, targets[i]);
+			if (existingIndex < 0) {
+				positions[i] = addSourceToTarget(targets[i], source);
+			} else {
+				positions[i] = existingPositions[existingIndex];
+			}
+		}
+	}
+
+	private int getOrCreateNode(String recordType, String recordId) {
+		Map<String, Integer> nodeIds = nodeIdsByRecordType
+				.computeIfAbsent(SymbolTable.intern(recordType), key -> new HashMap<>());
+		Integer nodeId = nodeIds.get(recordId);
+		if (null == nodeId) {
+			nodeId = allocateNode(SymbolTable.intern(recordType), recordId);
+			nodeIds.put(recordId, nodeId);
+		}
+		return nodeId;
+	}
+
+	private int allocateNode(String recordType, String recordId) {
+		int node = takeFreeNodeIdOrCreateNew();
+		recordTypes[node] = recordType;
+		recordIds[node] = recordId;
+		return node;
+	}
+
+	private int takeFreeNodeIdOrCreateNew() {
+		if (noOfFreeNodeIds > 0) {
+			noOfFreeNodeIds--;
+			return freeNodeIds[noOfFreeNodeIds];
+		}
+		ensureCapacityForNodeId(noOfAllocatedNodeIds);
+		int node = noOfAllocatedNodeIds;
+		noOfAllocatedNodeIds++;
+		return node;
+	}
+
+	private void ensureCapacityForNodeId(int node) {
+		if (node >= recordTypes.length) {
+			int newCapacity = recordTypes.length * 2;
+			recordTypes = Arrays.copyOf(recordTypes, newCapacity);
+			recordIds = Arrays.copyOf(recordIds, newCapacity);
+			targetsBySource = Arrays.copyOf(targetsBySource, newCapacity);
+			positionsInTargetsBySource = Arrays.copyOf(positionsInTargetsBySource, newCapacity);
+			sourcesByTarget = Arrays.copyOf(sourcesByTarget, newCapacity);
+			noOfSourcesByTarget = Arrays.copyOf(noOfSourcesByTarget, newCapacity);
+		}
+	}
+
+	private int addSourceToTarget(int target, int source) {
+		int[] sources = sourcesByTarget[target];
+		int noOfSources = noOfSourcesByTarget[target];
+		if (null == sources) {
+			sources = new int[1];
+		} else if (noOfSources == sources.length) {
+			sources = Arrays.copyOf(sources, noOfSources * 2);
+		}
+		sources[noOfSources] = source;
+		sourcesByTarget[target] = sources;
+		noOfSourcesByTarget[target] = noOfSources + 1;
+		return noOfSources;
+	}
+
+	void removeLinksFromSource(String sourceType, String sourceId) {
+		Integer source = findNode(sourceType, sourceId);
+		if (null != source && null != targetsBySource[source]) {
+			int[] targets = targetsBySource[source];
+			int[] positions = positionsInTargetsBySource[source];
+			targetsBySource[source] = null;
+			positionsInTargetsBySource[source] = null;
+			removeSourceFromTargetsNotIn(targets, positions, new int[0]);
+			possiblyReleaseNode(source);
+		}
+	}
+
+	private Integer findNode(String recordType, String recordId) {
+		Map<String, Integer> nodeIds = nodeIdsByRecordType.get(recordType);
+		if (null == nodeIds) {
+			return null;
+		}
+		return nodeIds.get(recordId);
+	}
+
+	private void removeSourceFromTarget(int target, int position) {
+		int[] sources = sourcesByTarget[target];
+		int lastPosition = noOfSourcesByTarget[target] - 1;
+		if (position != lastPosition) {
+			sources[position] = sources[lastPosition];
+			updatePositionOfSourceInTarget(sources[position], target, position);
+		}
+		noOfSourcesByTarget[target] = lastPosition;
+		if (lastPosition == 0) {
+			sourcesByTarget[target] = null;
+		}
+	}
+
+	private void updatePositionOfSourceInTarget(int source, int target, int position) {
+		int targetIndex = Arrays.binarySearch(targetsBySource[source], target);
+		positionsInTargetsBySource[source][targetIndex] = position;
+	}
+
+	private void possiblyReleaseNode(int node) {
+		if (nodeIsInUse(node) && null == targetsBySource[node]
+				&& 0 == noOfSourcesByTarget[node]) {
+			releaseNode(node);
+		}
+	}
+
+	private boolean nodeIsInUse(int node) {
+		return null != recordTypes[node];
+	}
+
+	private void releaseNode(int node) {
+		Map<String, Integer> nodeIds = nodeIdsByRecordType.get(recordTypes[node]);
+		nodeIds.remove(recordIds[node]);
+		if (nodeIds.isEmpty()) {
+			nodeIdsByRecordType.remove(recordTypes[node]);
+		}
+		recordTypes[node] = null;
+		recordIds[node] = null;
+		addToFreeNodeIds(node);
+	}
+
+	private void addToFreeNodeIds(int node) {
+		if (noOfFreeNodeIds == freeNodeIds.length) {
+			freeNodeIds = Arrays.copyOf(freeNodeIds, noOfFreeNodeIds * 2);
+		}
+		freeNodeIds[noOfFreeNodeIds] = node;
+		noOfFreeNodeIds++;
+	}
+
+	boolean linksExistToTarget(String targetType, String targetId) {
+		Integer target = findNode(targetType, targetId);
+		return null != target && noOfSourcesByTarget[target] > 0;
+	}
+
+	void forEachSourceLinkingToTarget(String targetType, String targetId,
+			BiConsumer<String, String> sourceConsumer) {
+		Integer target = findNode(targetType, targetId);
+		if (null != target) {
+			int[] sources = sourcesByTarget[target];
+			for (int i = 0; i < noOfSourcesByTarget[target]; i++) {
+				sourceConsumer.accept(recordTypes[sources[i]], recordIds[sources[i]]);
+			}
+		}
+	}
+
+	IncomingLinkSources getSourcesLinkingToTarget(String targetType, String targetId) {
+		int noOfSources = countSourcesLinkingToTarget(targetType, targetId);
+		String[] sourceTypes = new String[noOfSources];
+		String[] sourceIds = new String[noOfSources];
+		int[] position = new int[1];
+		forEachSourceLinkingToTarget(targetType, targetId, (sourceType, sourceId) -> {
+			sourceTypes[position[0]] = sourceType;
+			sourceIds[position[0]] = sourceId;
+			position[0]++;
+		});
+		return IncomingLinkSources.usingSourceTypesAndSourceIds(sourceTypes, sourceIds);
+	}
+
+	int countSourcesLinkingToTarget(String targetType, String targetId) {
+		Integer target = findNode(targetType, targetId);
+		if (null == target) {
+			return 0;
+		}
+		return noOfSourcesByTarget[target];
+	}
+
+	int countSourcesOfTypeLinkingToTarget(String targetType, String targetId,
+			String sourceType) {
+		Integer target = findNode(targetType, targetId);
+		if (null == target) {
+			return 0;
+		}
+		return countSourcesOfType(target, sourceType);
+	}
+
+	private int countSourcesOfType(int target, String sourceType) {
+		int[] sources = sourcesByTarget[target];
+		int noOfSources = 0;
+		for (int i = 0; i < noOfSourcesByTarget[target]; i++) {
+			if (recordTypes[sources[i]].equals(sourceType)) {
+				noOfSources++;
+			}
+		}
+		return noOfSources;
+	}
+
+	int getNoOfNodes() {
+		return noOfAllocatedNodeIds - noOfFreeNodeIds;
+	}
+}
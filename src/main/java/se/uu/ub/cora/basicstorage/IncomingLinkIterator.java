@@ -0,0 +1,77 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+
+import se.uu.ub.cora.data.DataGroup;
+
+final class IncomingLinkIterator implements Iterator<DataGroup> {
+	private final BiFunction<Integer, Integer, List<DataGroup>> pageReader;
+	private final int noOfSources;
+	private final int pageSize;
+	private int nextSourceIndex = 0;
+	private Iterator<DataGroup> currentPage = Collections.emptyIterator();
+
+	static IncomingLinkIterator usingPageReaderNoOfSourcesAndPageSize(
+			BiFunction<Integer, Integer, List<DataGroup>> pageReader, int noOfSources,
+			int pageSize) {
+		return new IncomingLinkIterator(pageReader, noOfSources, pageSize);
+	}
+
+	private IncomingLinkIterator(BiFunction<Integer, Integer, List<DataGroup>> pageReader,
+			int noOfSources, int pageSize) {
+		throwErrorIfPageSizeIsNotPositive(pageSize);
+		this.pageReader = pageReader;
+		this.noOfSources = noOfSources;
+		this.pageSize = pageSize;
+	}
+
+	private void throwErrorIfPageSizeIsNotPositive(int pageSize) {
+		if (pageSize < 1) {
+			throw DataStorageException.withMessage("pageSize must be larger than zero");
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!currentPage.hasNext() && nextSourceIndex < noOfSources) {
+			readNextPage();
+		}
+		return currentPage.hasNext();
+	}
+
+	private void readNextPage() {
+		int toIndex = (int) Math.min((long) nextSourceIndex + pageSize, noOfSources);
+		currentPage = pageReader.apply(nextSourceIndex, toIndex).iterator();
+		nextSourceIndex = toIndex;
+	}
+
+	@Override
+	public DataGroup next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return currentPage.next();
+	}
+}
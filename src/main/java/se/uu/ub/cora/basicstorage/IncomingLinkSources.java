@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.util.function.BiConsumer;
+
+final class IncomingLinkSources {
+	private final String[] sourceTypes;
+	private final String[] sourceIds;
+
+	static IncomingLinkSources usingSourceTypesAndSourceIds(String[] sourceTypes,
+			String[] sourceIds) {
+		return new IncomingLinkSources(sourceTypes, sourceIds);
+	}
+
+	private IncomingLinkSources(String[] sourceTypes, String[] sourceIds) {
+		this.sourceTypes = sourceTypes;
+		this.sourceIds = sourceIds;
+	}
+
+	int size() {
+		return sourceTypes.length;
+	}
+
+	void forEachSourceInRange(int fromIndex, int toIndex,
+			BiConsumer<String, String> sourceConsumer) {
+		int end = Math.min(toIndex, sourceTypes.length);
+		for (int i = Math.max(0, fromIndex); i < end; i++) {
+			sourceConsumer.accept(sourceTypes[i], sourceIds[i]);
+		}
+	}
+}
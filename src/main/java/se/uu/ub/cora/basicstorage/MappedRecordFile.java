@@ -0,0 +1,184 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+import se.uu.ub.cora.data.DataGroup;
+
+final class MappedRecordFile {
+	private final Path path;
+	private final RecordCache recordCache;
+	private final UnaryOperator<DataGroup> recordConverter;
+	private ByteBuffer mappedFile;
+	private volatile List<String> dictionary;
+	private volatile boolean released = false;
+
+	static MappedRecordFile usingPathAndRecordCache(Path path, RecordCache recordCache)
+			throws IOException {
+		return new MappedRecordFile(path, recordCache, UnaryOperator.identity());
+	}
+
+	static MappedRecordFile usingPathRecordCacheAndRecordConverter(Path path,
+			RecordCache recordCache, UnaryOperator<DataGroup> recordConverter)
+			throws IOException {
+		return new MappedRecordFile(path, recordCache, recordConverter);
+	}
+
+	static MappedRecordFile usingPathRecordCacheRecordConverterAndDictionary(Path path,
+			RecordCache recordCache, UnaryOperator<DataGroup> recordConverter,
+			List<String> dictionary) throws IOException {
+		MappedRecordFile mappedRecordFile = new MappedRecordFile(path, recordCache,
+				recordConverter);
+		mappedRecordFile.dictionary = dictionary;
+		return mappedRecordFile;
+	}
+
+	private MappedRecordFile(Path path, RecordCache recordCache,
+			UnaryOperator<DataGroup> recordConverter) throws IOException {
+		this.path = path;
+		this.recordCache = recordCache;
+		this.recordConverter = recordConverter;
+		mapFile();
+	}
+
+	private void mapFile() throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			throwErrorIfFileIsTooLargeToMap(channel.size());
+			mappedFile = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	private void throwErrorIfFileIsTooLargeToMap(long size) {
+		if (size > Integer.MAX_VALUE) {
+			throw DataStorageException.withMessage("can not map file larger than "
+					+ Integer.MAX_VALUE + " bytes: " + path);
+		}
+	}
+
+	void readChildren(BiConsumer<DataGroup, RecordSource> childConsumer)
+			throws IOException {
+		ByteBuffer buffer = mappedFile.duplicate();
+		RecordListBinaryReader reader = RecordListBinaryReader
+				.usingInputStream(new ByteBufferInputStream(buffer));
+		int noOfChildren = reader.readHeader();
+		for (int childNo = 0; childNo < noOfChildren; childNo++) {
+			int offset = buffer.position();
+			DataGroup child = reader.readChild();
+			childConsumer.accept(child, new MappedRecord(offset, buffer.position() - offset));
+		}
+		dictionary = reader.getDictionary();
+	}
+
+	RecordSource getRecordAtOffsetWithLength(int offset, int length) {
+		return new MappedRecord(offset, length);
+	}
+
+	private DataGroup readChildAtOffset(int offset, int length) {
+		ByteBuffer buffer = mappedFile.duplicate();
+		buffer.position(offset);
+		buffer.limit(offset + length);
+		try {
+			return RecordListBinaryReader.usingInputStreamAndCompleteDictionary(
+					new ByteBufferInputStream(buffer), dictionary).readChild();
+		} catch (IOException e) {
+			throw DataStorageException.withMessageAndException(
+					"can not read record from file " + path + ": " + e, e);
+		}
+	}
+
+	void release() {
+		released = true;
+		recordCache.removeRecordsWithKeysMatching(this::isMappedRecordInThisFile);
+	}
+
+	private boolean isMappedRecordInThisFile(Object key) {
+		return key instanceof MappedRecord && ((MappedRecord) key).isInFile(this);
+	}
+
+	Path getPath() {
+		return path;
+	}
+
+	private final class MappedRecord implements RecordSource {
+		private final int offset;
+		private final int length;
+
+		private MappedRecord(int offset, int length) {
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public DataGroup get() {
+			if (released) {
+				return readAndConvert();
+			}
+			return recordCache.getOrLoad(this, this::readAndConvert);
+		}
+
+		private DataGroup readAndConvert() {
+			return recordConverter.apply(readChildAtOffset(offset, length));
+		}
+
+		@Override
+		public DataGroup getWithoutCaching() {
+			return readChildAtOffset(offset, length);
+		}
+
+		private boolean isInFile(MappedRecordFile mappedRecordFile) {
+			return MappedRecordFile.this == mappedRecordFile;
+		}
+	}
+
+	private static final class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		private ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			return buffer.get() & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			int noOfBytesToRead = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, noOfBytesToRead);
+			return noOfBytesToRead;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import se.uu.ub.cora.data.DataGroup;
+
+final class RecordCache {
+	private static final int INITIAL_CAPACITY = 16;
+	private static final float LOAD_FACTOR = 0.75f;
+	private final int maxNoOfRecords;
+	private final Map<Object, DataGroup> cachedRecords = new LinkedHashMap<>(INITIAL_CAPACITY,
+			LOAD_FACTOR, true);
+
+	static RecordCache usingMaxNoOfRecords(int maxNoOfRecords) {
+		return new RecordCache(maxNoOfRecords);
+	}
+
+	private RecordCache(int maxNoOfRecords) {
+		this.maxNoOfRecords = maxNoOfRecords;
+	}
+
+	DataGroup getOrLoad(Object key, Supplier<DataGroup> loader) {
+		DataGroup cachedRecord = getCachedRecord(key);
+		if (null != cachedRecord) {
+			return cachedRecord;
+		}
+		return addToCacheUnlessAlreadyAdded(key, loader.get());
+	}
+
+	private synchronized DataGroup getCachedRecord(Object key) {
+		return cachedRecords.get(key);
+	}
+
+	private synchronized DataGroup addToCacheUnlessAlreadyAdded(Object key,
+			DataGroup loadedRecord) {
+		DataGroup cachedRecord = cachedRecords.putIfAbsent(key, loadedRecord);
+		if (null != cachedRecord) {
+			return cachedRecord;
+		}
+		possiblyRemoveLeastRecentlyUsedRecord();
+		return loadedRecord;
+	}
+
+	private void possiblyRemoveLeastRecentlyUsedRecord() {
+		if (cachedRecords.size() > maxNoOfRecords) {
+			Iterator<Object> iterator = cachedRecords.keySet().iterator();
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+	synchronized void removeRecordsWithKeysMatching(Predicate<Object> keyMatcher) {
+		cachedRecords.keySet().removeIf(keyMatcher);
+	}
+
+	synchronized int size() {
+		return cachedRecords.size();
+	}
+}
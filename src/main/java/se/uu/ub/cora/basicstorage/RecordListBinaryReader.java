@@ -0,0 +1,225 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import se.uu.ub.cora.data.DataAtomic;
+import se.uu.ub.cora.data.DataAtomicProvider;
+import se.uu.ub.cora.data.DataElement;
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.data.DataGroupProvider;
+
+final class RecordListBinaryReader {
+	private static final int MAX_VAR_INT_SHIFT = 28;
+	private DataInputStream inputStream;
+	private List<String> dictionary;
+	private boolean dictionaryIsComplete;
+	private boolean useSharedNames;
+
+	static RecordListBinaryReader usingInputStream(InputStream inputStream) {
+		return new RecordListBinaryReader(inputStream, new ArrayList<>(), false, false);
+	}
+
+	static RecordListBinaryReader usingInputStreamAndCompleteDictionary(
+			InputStream inputStream, List<String> dictionary) {
+		return new RecordListBinaryReader(inputStream, dictionary, true, false);
+	}
+
+	static RecordListBinaryReader usingInputStreamAndSharedNames(InputStream inputStream) {
+		return new RecordListBinaryReader(inputStream, Collections.emptyList(), true, true);
+	}
+
+	private RecordListBinaryReader(InputStream inputStream, List<String> dictionary,
+			boolean dictionaryIsComplete, boolean useSharedNames) {
+		this.inputStream = new DataInputStream(inputStream);
+		this.dictionary = dictionary;
+		this.dictionaryIsComplete = dictionaryIsComplete;
+		this.useSharedNames = useSharedNames;
+	}
+
+	void readChildren(Consumer<DataGroup> childConsumer) throws IOException {
+		int noOfChildren = readHeader();
+		for (int childNo = 0; childNo < noOfChildren; childNo++) {
+			childConsumer.accept(readChild());
+		}
+	}
+
+	int readHeader() throws IOException {
+		throwErrorIfNotBinaryFormat();
+		return readVarInt();
+	}
+
+	DataGroup readChild() throws IOException {
+		return (DataGroup) readElement();
+	}
+
+	List<String> getDictionary() {
+		return dictionary;
+	}
+
+	void copyChildTo(RecordListBinaryWriter writer) throws IOException {
+		byte type = readElementType();
+		writer.writeElementType(type);
+		writer.writeStringUsingDictionary(readStringUsingDictionary());
+		writer.writeStringUsingDictionary(readStringUsingDictionary());
+		if (type == RecordListBinaryWriter.ATOMIC) {
+			writer.writeStringBytes(readStringBytes());
+		} else {
+			copyAttributesAndChildrenTo(writer);
+		}
+	}
+
+	private void copyAttributesAndChildrenTo(RecordListBinaryWriter writer) throws IOException {
+		int noOfAttributes = readVarInt();
+		writer.writeVarInt(noOfAttributes);
+		for (int attributeNo = 0; attributeNo < noOfAttributes; attributeNo++) {
+			writer.writeStringUsingDictionary(readStringUsingDictionary());
+			writer.writeStringUsingDictionary(readStringUsingDictionary());
+		}
+		int noOfChildren = readVarInt();
+		writer.writeVarInt(noOfChildren);
+		for (int childNo = 0; childNo < noOfChildren; childNo++) {
+			copyChildTo(writer);
+		}
+	}
+
+	private void throwErrorIfNotBinaryFormat() throws IOException {
+		byte[] magic = new byte[RecordListBinaryWriter.MAGIC.length];
+		inputStream.readFully(magic);
+		if (!Arrays.equals(magic, RecordListBinaryWriter.MAGIC)) {
+			throw DataStorageException.withMessage("can not read binary file: unknown format");
+		}
+	}
+
+	private DataElement readElement() throws IOException {
+		byte type = readElementType();
+		if (type == RecordListBinaryWriter.GROUP) {
+			return readGroup();
+		}
+		return readAtomic();
+	}
+
+	private byte readElementType() throws IOException {
+		byte type = inputStream.readByte();
+		if (type != RecordListBinaryWriter.GROUP && type != RecordListBinaryWriter.ATOMIC) {
+			throw DataStorageException
+					.withMessage("can not read binary file: unknown element type " + type);
+		}
+		return type;
+	}
+
+	private DataGroup readGroup() throws IOException {
+		DataGroup group = DataGroupProvider
+				.getDataGroupUsingNameInData(readStringUsingDictionary());
+		String repeatId = readStringUsingDictionary();
+		if (null != repeatId) {
+			group.setRepeatId(repeatId);
+		}
+		int noOfAttributes = readVarInt();
+		for (int attributeNo = 0; attributeNo < noOfAttributes; attributeNo++) {
+			group.addAttributeByIdWithValue(readStringUsingDictionary(),
+					readStringUsingDictionary());
+		}
+		int noOfChildren = readVarInt();
+		for (int childNo = 0; childNo < noOfChildren; childNo++) {
+			group.addChild(readElement());
+		}
+		return group;
+	}
+
+	private DataAtomic readAtomic() throws IOException {
+		String nameInData = readStringUsingDictionary();
+		String repeatId = readStringUsingDictionary();
+		DataAtomic atomic = DataAtomicProvider.getDataAtomicUsingNameInDataAndValue(nameInData,
+				readString());
+		if (null != repeatId) {
+			atomic.setRepeatId(repeatId);
+		}
+		return atomic;
+	}
+
+	private String readStringUsingDictionary() throws IOException {
+		int reference = readVarInt();
+		if (reference == RecordListBinaryWriter.NULL_STRING) {
+			return null;
+		}
+		if (reference == RecordListBinaryWriter.NEW_STRING) {
+			String value = readString();
+			possiblyAddToDictionary(value);
+			return value;
+		}
+		int index = reference - RecordListBinaryWriter.FIRST_STRING_REFERENCE;
+		if (useSharedNames) {
+			return SymbolTable.getNameByIndex(index);
+		}
+		return getStringFromDictionary(index);
+	}
+
+	private void possiblyAddToDictionary(String value) {
+		if (!dictionaryIsComplete) {
+			dictionary.add(value);
+		}
+	}
+
+	private String getStringFromDictionary(int index) {
+		if (index >= dictionary.size()) {
+			throw DataStorageException
+					.withMessage("can not read binary file: unknown string reference " + index);
+		}
+		return dictionary.get(index);
+	}
+
+	private String readString() throws IOException {
+		return new String(readStringBytes(), StandardCharsets.UTF_8);
+	}
+
+	private byte[] readStringBytes() throws IOException {
+		byte[] bytes = new byte[readVarInt()];
+		inputStream.readFully(bytes);
+		return bytes;
+	}
+
+	private int readVarInt() throws IOException {
+		int value = 0;
+		int shift = 0;
+		int next = inputStream.readUnsignedByte();
+		while ((next & 0x80) != 0) {
+			throwErrorIfVarIntIsTooLong(shift);
+			value |= (next & 0x7F) << shift;
+			shift += 7;
+			next = inputStream.readUnsignedByte();
+		}
+		return value | (next << shift);
+	}
+
+	private void throwErrorIfVarIntIsTooLong(int shift) {
+		if (shift >= MAX_VAR_INT_SHIFT) {
+			throw DataStorageException.withMessage("can not read binary file: too long number");
+		}
+	}
+}
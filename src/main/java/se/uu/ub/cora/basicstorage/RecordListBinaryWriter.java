@@ -0,0 +1,187 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import se.uu.ub.cora.data.DataAtomic;
+import se.uu.ub.cora.data.DataElement;
+import se.uu.ub.cora.data.DataGroup;
+
+final class RecordListBinaryWriter {
+	static final byte[] MAGIC = { 'C', 'B', 'F', '1' };
+	static final byte GROUP = 1;
+	static final byte ATOMIC = 2;
+	static final int NULL_STRING = 0;
+	static final int NEW_STRING = 1;
+	static final int FIRST_STRING_REFERENCE = 2;
+	private DataOutputStream outputStream;
+	private Map<String, Integer> dictionary = new HashMap<>();
+	private boolean useSharedNames;
+
+	static RecordListBinaryWriter usingOutputStream(OutputStream outputStream) {
+		return new RecordListBinaryWriter(outputStream, false);
+	}
+
+	static RecordListBinaryWriter usingOutputStreamAndSharedNames(OutputStream outputStream) {
+		return new RecordListBinaryWriter(outputStream, true);
+	}
+
+	private RecordListBinaryWriter(OutputStream outputStream, boolean useSharedNames) {
+		this.outputStream = new DataOutputStream(outputStream);
+		this.useSharedNames = useSharedNames;
+	}
+
+	void writeChildren(List<? extends DataElement> children) throws IOException {
+		writeHeader(children.size());
+		for (DataElement child : children) {
+			writeElement(child);
+		}
+		flush();
+	}
+
+	void writeHeader(int noOfChildren) throws IOException {
+		outputStream.write(MAGIC);
+		writeVarInt(noOfChildren);
+	}
+
+	void writeChild(DataElement child) throws IOException {
+		writeElement(child);
+	}
+
+	void writeCompactChild(byte[] compactChild) throws IOException {
+		RecordListBinaryReader
+				.usingInputStreamAndSharedNames(new ByteArrayInputStream(compactChild))
+				.copyChildTo(this);
+	}
+
+	void flush() throws IOException {
+		outputStream.flush();
+	}
+
+	int getNoOfBytesWritten() {
+		return outputStream.size();
+	}
+
+	List<String> getDictionary() {
+		String[] valuesInWrittenOrder = new String[dictionary.size()];
+		dictionary.forEach((value, index) -> valuesInWrittenOrder[index] = value);
+		return Arrays.asList(valuesInWrittenOrder);
+	}
+
+	private void writeElement(DataElement element) throws IOException {
+		if (element instanceof DataGroup) {
+			writeGroup((DataGroup) element);
+		} else {
+			writeAtomic((DataAtomic) element);
+		}
+	}
+
+	private void writeGroup(DataGroup group) throws IOException {
+		writeElementType(GROUP);
+		writeName(group.getNameInData());
+		writeStringUsingDictionary(group.getRepeatId());
+		writeAttributes(group.getAttributes());
+		List<DataElement> children = group.getChildren();
+		writeVarInt(children.size());
+		for (DataElement child : children) {
+			writeElement(child);
+		}
+	}
+
+	private void writeAttributes(Map<String, String> attributes) throws IOException {
+		writeVarInt(attributes.size());
+		for (Entry<String, String> attribute : attributes.entrySet()) {
+			writeName(attribute.getKey());
+			writeName(attribute.getValue());
+		}
+	}
+
+	private void writeAtomic(DataAtomic atomic) throws IOException {
+		writeElementType(ATOMIC);
+		writeName(atomic.getNameInData());
+		writeStringUsingDictionary(atomic.getRepeatId());
+		writeString(atomic.getValue());
+	}
+
+	void writeElementType(byte elementType) throws IOException {
+		outputStream.writeByte(elementType);
+	}
+
+	private void writeName(String name) throws IOException {
+		int nameIndex = getSharedNameIndex(name);
+		if (nameIndex == SymbolTable.NO_NAME_INDEX) {
+			writeStringUsingDictionary(name);
+		} else {
+			writeVarInt(FIRST_STRING_REFERENCE + nameIndex);
+		}
+	}
+
+	private int getSharedNameIndex(String name) {
+		if (useSharedNames && null != name) {
+			return SymbolTable.indexOfName(name);
+		}
+		return SymbolTable.NO_NAME_INDEX;
+	}
+
+	void writeStringUsingDictionary(String value) throws IOException {
+		if (null == value) {
+			writeVarInt(NULL_STRING);
+		} else if (dictionary.containsKey(value)) {
+			writeVarInt(FIRST_STRING_REFERENCE + dictionary.get(value));
+		} else {
+			writeVarInt(NEW_STRING);
+			writeString(value);
+			possiblyAddToDictionary(value);
+		}
+	}
+
+	private void possiblyAddToDictionary(String value) {
+		if (!useSharedNames) {
+			dictionary.put(value, dictionary.size());
+		}
+	}
+
+	private void writeString(String value) throws IOException {
+		writeStringBytes(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	void writeStringBytes(byte[] bytes) throws IOException {
+		writeVarInt(bytes.length);
+		outputStream.write(bytes);
+	}
+
+	void writeVarInt(int value) throws IOException {
+		int remaining = value;
+		while ((remaining & ~0x7F) != 0) {
+			outputStream.writeByte((remaining & 0x7F) | 0x80);
+			remaining >>>= 7;
+		}
+		outputStream.writeByte(remaining);
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+/**
+ * Reads the top level children array of a record list one child at a time, so only one child is
+ * held as text at once. Children are not streamed further, in a linkLists file each child holds
+ * the links for all records of one record type, so memory used while reading such a file is
+ * bounded by the largest record type, not by a single record.
+ */
+final class RecordListJsonReader {
+	private static final String CHILDREN = "children";
+	private static final int BUFFER_SIZE = 8192;
+	private static final int NOTHING_PUSHED_BACK = -2;
+	private static final int END_OF_STREAM = -1;
+	private Reader reader;
+	private char[] buffer = new char[BUFFER_SIZE];
+	private int bufferPosition = 0;
+	private int bufferLength = 0;
+	private int pushedBack = NOTHING_PUSHED_BACK;
+
+	static RecordListJsonReader usingReader(Reader reader) {
+		return new RecordListJsonReader(reader);
+	}
+
+	private RecordListJsonReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	void readChildren(Consumer<String> childConsumer) throws IOException {
+		throwErrorIfNotExpected('{', readNonWhitespace());
+		char next = readNonWhitespace();
+		while (next != '}') {
+			String key = readKey(next);
+			throwErrorIfNotExpected(':', readNonWhitespace());
+			readValueForKey(key, childConsumer);
+			next = readCommaOrEnd('}');
+		}
+	}
+
+	private String readKey(char first) throws IOException {
+		throwErrorIfNotExpected('"', first);
+		StringBuilder key = new StringBuilder();
+		copyRestOfString(key);
+		return key.substring(0, key.length() - 1);
+	}
+
+	private void readValueForKey(String key, Consumer<String> childConsumer) throws IOException {
+		if (CHILDREN.equals(key)) {
+			readChildrenArray(childConsumer);
+		} else {
+			copyValue(readNonWhitespace(), new StringBuilder());
+		}
+	}
+
+	private void readChildrenArray(Consumer<String> childConsumer) throws IOException {
+		throwErrorIfNotExpected('[', readNonWhitespace());
+		char next = readNonWhitespace();
+		while (next != ']') {
+			StringBuilder child = new StringBuilder();
+			copyValue(next, child);
+			childConsumer.accept(child.toString());
+			next = readCommaOrEnd(']');
+		}
+	}
+
+	private char readCommaOrEnd(char end) throws IOException {
+		char next = readNonWhitespace();
+		if (next == end) {
+			return next;
+		}
+		throwErrorIfNotExpected(',', next);
+		return readNonWhitespace();
+	}
+
+	private void copyValue(char first, StringBuilder value) throws IOException {
+		value.append(first);
+		if (first == '"') {
+			copyRestOfString(value);
+		} else if (first == '{' || first == '[') {
+			copyRestOfObjectOrArray(value);
+		} else {
+			copyRestOfLiteral(value);
+		}
+	}
+
+	private void copyRestOfString(StringBuilder value) throws IOException {
+		char next = readRequired();
+		while (next != '"') {
+			value.append(next);
+			if (next == '\\') {
+				value.append(readRequired());
+			}
+			next = readRequired();
+		}
+		value.append(next);
+	}
+
+	private void copyRestOfObjectOrArray(StringBuilder value) throws IOException {
+		int depth = 1;
+		while (depth > 0) {
+			char next = readRequired();
+			value.append(next);
+			if (next == '"') {
+				copyRestOfString(value);
+			} else if (next == '{' || next == '[') {
+				depth++;
+			} else if (next == '}' || next == ']') {
+				depth--;
+			}
+		}
+	}
+
+	private void copyRestOfLiteral(StringBuilder value) throws IOException {
+		int next = read();
+		while (next != END_OF_STREAM && literalContinuesWith((char) next)) {
+			value.append((char) next);
+			next = read();
+		}
+		pushedBack = next;
+	}
+
+	private boolean literalContinuesWith(char next) {
+		return next != ',' && next != '}' && next != ']' && !Character.isWhitespace(next);
+	}
+
+	private char readNonWhitespace() throws IOException {
+		char next = readRequired();
+		while (Character.isWhitespace(next)) {
+			next = readRequired();
+		}
+		return next;
+	}
+
+	private char readRequired() throws IOException {
+		int next = read();
+		if (next == END_OF_STREAM) {
+			throw DataStorageException.withMessage("can not read json: unexpected end of file");
+		}
+		return (char) next;
+	}
+
+	private int read() throws IOException {
+		if (pushedBack != NOTHING_PUSHED_BACK) {
+			int next = pushedBack;
+			pushedBack = NOTHING_PUSHED_BACK;
+			return next;
+		}
+		if (bufferPosition == bufferLength && !fillBuffer()) {
+			return END_OF_STREAM;
+		}
+		return buffer[bufferPosition++];
+	}
+
+	private boolean fillBuffer() throws IOException {
+		int noOfRead = reader.read(buffer, 0, BUFFER_SIZE);
+		while (noOfRead == 0) {
+			noOfRead = reader.read(buffer, 0, BUFFER_SIZE);
+		}
+		bufferPosition = 0;
+		bufferLength = Math.max(0, noOfRead);
+		return noOfRead != END_OF_STREAM;
+	}
+
+	private void throwErrorIfNotExpected(char expected, char found) {
+		if (expected != found) {
+			throw DataStorageException.withMessage(
+					"can not read json: expected '" + expected + "' but found '" + found + "'");
+		}
+	}
+}
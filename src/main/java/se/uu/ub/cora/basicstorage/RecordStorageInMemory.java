@@ -23,9 +23,15 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 import se.uu.ub.cora.data.DataElement;
 import se.uu.ub.cora.data.DataGroup;
@@ -43,12 +49,18 @@ import se.uu.ub.cora.storage.StorageReadResult;
 public class RecordStorageInMemory implements RecordStorage, MetadataStorage, SearchStorage {
 	private static final String RECORD_TYPE = "recordType";
 	private static final String NO_RECORDS_EXISTS_MESSAGE = "No records exists with recordType: ";
+	private static final String FROM_NO = "fromNo";
+	private static final String TO_NO = "toNo";
 
 	private DataGroup emptyFilter = DataGroupProvider.getDataGroupUsingNameInData("filter");
 	protected Map<String, Map<String, DividerGroup>> records = new HashMap<>();
 	protected CollectedTermsInMemoryStorage collectedTermsHolder = new CollectedTermsInMemoryStorage();
 	protected Map<String, Map<String, DividerGroup>> linkLists = new HashMap<>();
-	protected Map<String, Map<String, Map<String, Map<String, List<DataGroup>>>>> incomingLinks = new HashMap<>();
+	private IncomingLinkIndex incomingLinks = IncomingLinkIndex.createEmpty();
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private volatile RecordTypeHierarchy recordTypeHierarchy;
+	private Map<String, Set<String>> recordTypesByRecordId = new HashMap<>();
+	protected boolean immutableRecords = false;
 
 	public RecordStorageInMemory() {
 		// Make it possible to use default empty record storage
@@ -57,6 +69,28 @@ public class RecordStorageInMemory implements RecordStorage, MetadataStorage, Se
 	RecordStorageInMemory(Map<String, Map<String, DividerGroup>> records) {
 		throwErrorIfConstructorArgumentIsNull(records);
 		this.records = records;
+		indexRecordTypesByRecordId();
+	}
+
+	private void indexRecordTypesByRecordId() {
+		for (Entry<String, Map<String, DividerGroup>> entry : records.entrySet()) {
+			for (String recordId : entry.getValue().keySet()) {
+				addToRecordTypesByRecordId(entry.getKey(), recordId);
+			}
+		}
+	}
+
+	private void addToRecordTypesByRecordId(String recordType, String recordId) {
+		recordTypesByRecordId.computeIfAbsent(recordId, key -> new LinkedHashSet<>())
+				.add(SymbolTable.intern(recordType));
+	}
+
+	private void removeFromRecordTypesByRecordId(String recordType, String recordId) {
+		Set<String> recordTypes = recordTypesByRecordId.get(recordId);
+		recordTypes.remove(recordType);
+		if (recordTypes.isEmpty()) {
+			recordTypesByRecordId.remove(recordId);
+		}
 	}
 
 	private final void throwErrorIfConstructorArgumentIsNull(
@@ -66,9 +100,42 @@ public class RecordStorageInMemory implements RecordStorage, MetadataStorage, Se
 		}
 	}
 
+	protected final <T> T getUsingReadLock(Supplier<T> reader) {
+		lock.readLock().lock();
+		try {
+			return reader.get();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	protected final void runUsingReadLock(Runnable reader) {
+		lock.readLock().lock();
+		try {
+			reader.run();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	protected final void runUsingWriteLock(Runnable writer) {
+		lock.writeLock().lock();
+		try {
+			writer.run();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
 	@Override
 	public void create(String recordType, String recordId, DataGroup record,
 			DataGroup collectedTerms, DataGroup linkList, String dataDivider) {
+		runUsingWriteLock(() -> createRecord(recordType, recordId, record, collectedTerms,
+				linkList, dataDivider));
+	}
+
+	private void createRecord(String recordType, String recordId, DataGroup record,
+			DataGroup collectedTerms, DataGroup linkList, String dataDivider) {
 		ensureStorageExistsForRecordType(recordType);
 		checkNoConflictOnRecordId(recordType, recordId);
 		storeIndependentRecordByRecordTypeAndRecordId(recordType, recordId, record, dataDivider);
@@ -87,19 +154,20 @@ public class RecordStorageInMemory implements RecordStorage, MetadataStorage, Se
 	}
 
 	private final void createHolderForRecordTypeInStorage(String recordType) {
-		records.put(recordType, new HashMap<String, DividerGroup>());
-		linkLists.put(recordType, new HashMap<String, DividerGroup>());
+		String internedRecordType = SymbolTable.intern(recordType);
+		records.put(internedRecordType, new LinkedHashMap<String, DividerGroup>());
+		linkLists.put(internedRecordType, new HashMap<String, DividerGroup>());
 	}
 
-	private void checkNoConflictOnRecordId(String recordType, String recordId) {
-		if (recordIdExistsForRecordType(recordType, recordId)) {
+	protected final void checkNoConflictOnRecordId(String recordType, String recordId) {
+		if (recordExistsForRecordTypeAndRecordId(recordType, recordId)) {
 			throw new RecordConflictException(
 					"Record with recordId: " + recordId + " already exists");
 		}
 	}
 
-	private void storeIndependentRecordByRecordTypeAndRecordId(String recordType, String recordId,
-			DataGroup record, String dataDivider) {
+	protected void storeIndependentRecordByRecordTypeAndRecordId(String recordType,
+			String recordId, DataGroup record, String dataDivider) {
 		DataGroup recordIndependentOfEnteredRecord = createIndependentCopy(record);
 		storeRecordByRecordTypeAndRecordId(recordType, recordId, recordIndependentOfEnteredRecord,
 				dataDivider);
@@ -112,17 +180,52 @@ public class RecordStorageInMemory implements RecordStorage, MetadataStorage, Se
 
 	protected void storeRecordByRecordTypeAndRecordId(String recordType, String recordId,
 			DataGroup recordIndependentOfEnteredRecord, String dataDivider) {
-		records.get(recordType).put(recordId, DividerGroup.withDataDividerAndDataGroup(dataDivider,
-				recordIndependentOfEnteredRecord));
+		storeDividerGroupByRecordTypeAndRecordId(recordType, recordId,
+				DividerGroup.withDataDividerAndDataGroup(dataDivider,
+						possiblyMakeImmutable(recordIndependentOfEnteredRecord)));
 	}
 
-	protected void storeLinks(String recordType, String recordId, DataGroup linkList,
+	protected final DataGroup possiblyMakeImmutable(DataGroup dataGroup) {
+		if (immutableRecords) {
+			return ImmutableDataGroup.usingDataGroup(dataGroup);
+		}
+		return dataGroup;
+	}
+
+	protected void storeDividerGroupByRecordTypeAndRecordId(String recordType, String recordId,
+			DividerGroup dividerGroup) {
+		possiblyInvalidateRecordTypeHierarchy(recordType);
+		addToRecordTypesByRecordId(recordType, recordId);
+		records.get(recordType).put(recordId, dividerGroup);
+	}
+
+	protected final void storeLinks(String recordType, String recordId, DataGroup linkList,
+			String dataDivider) {
+		if (!storedLinkListIsEqual(recordType, recordId, linkList, dataDivider)) {
+			storeChangedLinks(recordType, recordId, linkList, dataDivider);
+		}
+	}
+
+	private boolean storedLinkListIsEqual(String recordType, String recordId,
+			DataGroup linkList, String dataDivider) {
+		DividerGroup storedLinkList = linkLists.getOrDefault(recordType, Collections.emptyMap())
+				.get(recordId);
+		if (null == storedLinkList) {
+			return linkList.getChildren().isEmpty();
+		}
+		return storedLinkList.dataDivider.equals(dataDivider) && DataGroupComparer
+				.dataGroupsAreEqual(storedLinkList.getDataGroupWithoutCaching(), linkList);
+	}
+
+	protected void storeChangedLinks(String recordType, String recordId, DataGroup linkList,
 			String dataDivider) {
 		if (!linkList.getChildren().isEmpty()) {
 			DataGroup linkListIndependentFromEntered = createIndependentCopy(linkList);
 			storeLinkList(recordType, recordId, linkListIndependentFromEntered, dataDivider);
-			storeLinksInIncomingLinks(linkListIndependentFromEntered);
+			incomingLinks.replaceLinksFromSource(recordType, recordId,
+					linkListIndependentFromEntered);
 		} else {
+			incomingLinks.removeLinksFromSource(recordType, recordId);
 			if (!linksMissingForRecord(recordType, recordId)) {
 				linkLists.get(recordType).remove(recordId);
 			}
@@ -133,30 +236,7 @@ public class RecordStorageInMemory implements RecordStorage, MetadataStorage, Se
 			DataGroup linkListIndependentFromEntered, String dataDivider) {
 		Map<String, DividerGroup> linksForRecordType = linkLists.get(recordType);
 		linksForRecordType.put(recordId, DividerGroup.withDataDividerAndDataGroup(dataDivider,
-				linkListIndependentFromEntered));
-	}
-
-	private void storeLinksInIncomingLinks(DataGroup incomingLinkList) {
-		for (DataElement linkElement : incomingLinkList.getChildren()) {
-			storeLinkInIncomingLinks((DataGroup) linkElement);
-		}
-	}
-
-	private void storeLinkInIncomingLinks(DataGroup link) {
-		Map<String, Map<String, List<DataGroup>>> toPartOfIncomingLinks = getIncomingLinkStorageForLink(
-				link);
-		storeLinkInIncomingLinks(link, toPartOfIncomingLinks);
-	}
-
-	private Map<String, Map<String, List<DataGroup>>> getIncomingLinkStorageForLink(
-			DataGroup link) {
-		DataGroup to = link.getFirstGroupWithNameInData("to");
-		String toType = extractLinkedRecordTypeValue(to);
-		String toId = extractLinkedRecordIdValue(to);
-
-		ensureInIncomingLinksHolderForRecordTypeAndRecordId(toType, toId);
-
-		return incomingLinks.get(toType).get(toId);
+				possiblyMakeImmutable(linkListIndependentFromEntered)));
 	}
 
 	private String extractLinkedRecordIdValue(DataGroup to) {
@@ -167,210 +247,189 @@ public class RecordStorageInMemory implements RecordStorage, MetadataStorage, Se
 		return dataGroup.getFirstAtomicValueWithNameInData("linkedRecordType");
 	}
 
-	private void ensureInIncomingLinksHolderForRecordTypeAndRecordId(String toType, String toId) {
-		if (isIncomingLinksHolderForRecordTypeMissing(toType)) {
-			incomingLinks.put(toType, new HashMap<>());
-		}
-		if (isIncomingLinksHolderForRecordIdMissing(toType, toId)) {
-			incomingLinks.get(toType).put(toId, new HashMap<>());
-		}
+	@Override
+	public StorageReadResult readList(String type, DataGroup filter) {
+		return getUsingReadLock(() -> readListForType(type, filter));
 	}
 
-	private boolean isIncomingLinksHolderForRecordTypeMissing(String toType) {
-		return !incomingLinkStorageForRecordTypeExists(toType);
-	}
+	private StorageReadResult readListForType(String type, DataGroup filter) {
+		Map<String, DividerGroup> typeDividerRecords = records.get(type);
+		throwErrorIfNoRecordOfType(type, typeDividerRecords);
 
-	private boolean isIncomingLinksHolderForRecordIdMissing(String toType, String toId) {
-		return !incomingLinksHolderForRecordIdExists(toType, toId);
+		Map<String, Collection<String>> matchingRecordIdsByType = new LinkedHashMap<>();
+		matchingRecordIdsByType.put(type, findMatchingRecordIds(type, filter, typeDividerRecords));
+		return createStorageReadResultForRange(matchingRecordIdsByType, filter);
 	}
 
-	private void storeLinkInIncomingLinks(DataGroup link,
-			Map<String, Map<String, List<DataGroup>>> toPartOfIncomingLinks) {
-		DataGroup from = link.getFirstGroupWithNameInData("from");
-		String fromType = extractLinkedRecordTypeValue(from);
-		String fromId = extractLinkedRecordIdValue(from);
-
-		ensureIncomingLinksHolderExistsForFromRecordType(toPartOfIncomingLinks, fromType);
-
-		ensureIncomingLinksHolderExistsForFromRecordId(toPartOfIncomingLinks.get(fromType), fromId);
-		toPartOfIncomingLinks.get(fromType).get(fromId).add(link);
+	private void throwErrorIfNoRecordOfType(String type,
+			Map<String, DividerGroup> typeDividerRecords) {
+		if (null == typeDividerRecords) {
+			throw new RecordNotFoundException(NO_RECORDS_EXISTS_MESSAGE + type);
+		}
 	}
 
-	private void ensureIncomingLinksHolderExistsForFromRecordType(
-			Map<String, Map<String, List<DataGroup>>> toPartOfIncomingLinks, String fromType) {
-		if (!toPartOfIncomingLinks.containsKey(fromType)) {
-			toPartOfIncomingLinks.put(fromType, new HashMap<>());
+	private Collection<String> findMatchingRecordIds(String type, DataGroup filter,
+			Map<String, DividerGroup> typeDividerRecords) {
+		if (filterIsEmpty(filter)) {
+			return typeDividerRecords.keySet();
 		}
+		return removeRecordIdsWithoutStoredRecord(
+				collectedTermsHolder.findRecordIdsForFilter(type, filter), typeDividerRecords);
 	}
 
-	private void ensureIncomingLinksHolderExistsForFromRecordId(
-			Map<String, List<DataGroup>> fromPartOfIncomingLinks, String fromId) {
-		if (!fromPartOfIncomingLinks.containsKey(fromId)) {
-			fromPartOfIncomingLinks.put(fromId, new ArrayList<>());
+	private Collection<String> removeRecordIdsWithoutStoredRecord(List<String> recordIds,
+			Map<String, DividerGroup> typeDividerRecords) {
+		List<String> storedRecordIds = new ArrayList<>(recordIds.size());
+		for (String recordId : recordIds) {
+			if (typeDividerRecords.containsKey(recordId)) {
+				storedRecordIds.add(recordId);
+			}
 		}
+		return storedRecordIds;
 	}
 
-	@Override
-	public StorageReadResult readList(String type, DataGroup filter) {
-		Map<String, DividerGroup> typeDividerRecords = records.get(type);
-		throwErrorIfNoRecordOfType(type, typeDividerRecords);
-
-		return getStorageReadResult(type, filter, typeDividerRecords);
+	private boolean filterIsEmpty(DataGroup filter) {
+		return !filter.containsChildWithNameInData("part");
 	}
 
-	private StorageReadResult getStorageReadResult(String type, DataGroup filter,
-			Map<String, DividerGroup> typeDividerRecords) {
+	private StorageReadResult createStorageReadResultForRange(
+			Map<String, Collection<String>> matchingRecordIdsByType, DataGroup filter) {
+		int totalNumberOfMatches = countMatchingRecordIds(matchingRecordIdsByType);
+		int fromNo = getFromNoFromFilter(filter);
+		int toNo = getToNoFromFilter(filter, totalNumberOfMatches);
 		StorageReadResult readResult = new StorageReadResult();
-		Collection<DataGroup> readFromList = readFromList(type, filter, typeDividerRecords);
-		readResult.listOfDataGroups = new ArrayList<>(readFromList);
-		readResult.totalNumberOfMatches = readFromList.size();
+		readResult.listOfDataGroups = readRecordsInRange(matchingRecordIdsByType, fromNo, toNo);
+		readResult.totalNumberOfMatches = totalNumberOfMatches;
+		readResult.start = fromNo - 1;
 		return readResult;
 	}
 
-	private Collection<DataGroup> readFromList(String type, DataGroup filter,
-			Map<String, DividerGroup> typeDividerRecords) {
-		if (filterIsEmpty(filter)) {
-			return readListWithoutFilter(typeDividerRecords);
+	private int countMatchingRecordIds(Map<String, Collection<String>> matchingRecordIdsByType) {
+		int noOfMatches = 0;
+		for (Collection<String> recordIds : matchingRecordIdsByType.values()) {
+			noOfMatches += recordIds.size();
 		}
-		return readListWithFilter(type, filter);
+		return noOfMatches;
 	}
 
-	private Collection<DataGroup> readListWithoutFilter(
-			Map<String, DividerGroup> typeDividerRecords) {
-		Map<String, DataGroup> typeRecords = addDataGroupToRecordTypeList(typeDividerRecords);
-		return typeRecords.values();
-	}
-
-	private Collection<DataGroup> readListWithFilter(String type, DataGroup filter) {
-		List<String> foundRecordIdsForFilter = collectedTermsHolder.findRecordIdsForFilter(type,
-				filter);
-		return readRecordsForTypeAndListOfIds(type, foundRecordIdsForFilter);
+	private int getFromNoFromFilter(DataGroup filter) {
+		if (filter.containsChildWithNameInData(FROM_NO)) {
+			return Math.max(1, parseNumberFromFilter(filter, FROM_NO));
+		}
+		return 1;
 	}
 
-	private Collection<DataGroup> readRecordsForTypeAndListOfIds(String type,
-			List<String> foundRecordIdsForFilter) {
-		List<DataGroup> foundRecords = new ArrayList<>(foundRecordIdsForFilter.size());
-		for (String foundRecordId : foundRecordIdsForFilter) {
-			foundRecords.add(read(type, foundRecordId));
+	private int getToNoFromFilter(DataGroup filter, int totalNumberOfMatches) {
+		if (filter.containsChildWithNameInData(TO_NO)) {
+			return Math.min(totalNumberOfMatches, parseNumberFromFilter(filter, TO_NO));
 		}
-		return foundRecords;
+		return totalNumberOfMatches;
 	}
 
-	private void throwErrorIfNoRecordOfType(String type,
-			Map<String, DividerGroup> typeDividerRecords) {
-		if (null == typeDividerRecords) {
-			throw new RecordNotFoundException(NO_RECORDS_EXISTS_MESSAGE + type);
+	private int parseNumberFromFilter(DataGroup filter, String nameInData) {
+		String value = filter.getFirstAtomicValueWithNameInData(nameInData);
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw DataStorageException.withMessageAndException(
+					"Filter value for " + nameInData + " is not a number: " + value, e);
 		}
 	}
 
-	private boolean filterIsEmpty(DataGroup filter) {
-		return !filter.containsChildWithNameInData("part");
+	private List<DataGroup> readRecordsInRange(
+			Map<String, Collection<String>> matchingRecordIdsByType, int fromNo, int toNo) {
+		List<DataGroup> foundRecords = new ArrayList<>(Math.max(0, toNo - fromNo + 1));
+		int position = 0;
+		for (Entry<String, Collection<String>> entry : matchingRecordIdsByType.entrySet()) {
+			Collection<String> recordIds = entry.getValue();
+			if (position + recordIds.size() >= fromNo && position < toNo) {
+				addRecordsInRangeForType(foundRecords, entry.getKey(), recordIds,
+						fromNo - position, toNo - position);
+			}
+			position += recordIds.size();
+		}
+		return foundRecords;
 	}
 
-	private Map<String, DataGroup> addDataGroupToRecordTypeList(
-			Map<String, DividerGroup> typeDividerRecords) {
-		Map<String, DataGroup> typeRecords = new HashMap<>(typeDividerRecords.size());
-		for (Entry<String, DividerGroup> entry : typeDividerRecords.entrySet()) {
-			typeRecords.put(entry.getKey(), entry.getValue().dataGroup);
+	private void addRecordsInRangeForType(List<DataGroup> foundRecords, String type,
+			Collection<String> recordIds, int fromNo, int toNo) {
+		Map<String, DividerGroup> typeDividerRecords = records.get(type);
+		int position = 0;
+		Iterator<String> iterator = recordIds.iterator();
+		while (iterator.hasNext() && position < toNo) {
+			String recordId = iterator.next();
+			position++;
+			if (position >= fromNo) {
+				foundRecords.add(typeDividerRecords.get(recordId).getDataGroup());
+			}
 		}
-		return typeRecords;
 	}
 
 	@Override
 	public StorageReadResult readAbstractList(String type, DataGroup filter) {
-		List<DataGroup> aggregatedRecordList = new ArrayList<>();
-		List<String> implementingChildRecordTypes = findImplementingChildRecordTypes(type);
-
-		addRecordsToAggregatedRecordList(aggregatedRecordList, implementingChildRecordTypes,
-				filter);
-		addRecordsForParentIfParentIsNotAbstract(type, filter, aggregatedRecordList);
-		throwErrorIfEmptyAggregatedList(type, aggregatedRecordList);
-		StorageReadResult readResult = new StorageReadResult();
-		readResult.listOfDataGroups = aggregatedRecordList;
-		readResult.totalNumberOfMatches = aggregatedRecordList.size();
-		return readResult;
-	}
-
-	private List<String> findImplementingChildRecordTypes(String type) {
-		Map<String, DividerGroup> allRecordTypes = records.get(RECORD_TYPE);
-		List<String> implementingRecordTypes = new ArrayList<>();
-		return findImplementingChildRecordTypesUsingTypeAndRecordTypeList(type, allRecordTypes,
-				implementingRecordTypes);
-	}
-
-	private List<String> findImplementingChildRecordTypesUsingTypeAndRecordTypeList(String type,
-			Map<String, DividerGroup> allRecordTypes, List<String> implementingRecordTypes) {
-		for (Entry<String, DividerGroup> entry : allRecordTypes.entrySet()) {
-			checkIfChildAndAddToList(type, implementingRecordTypes, entry);
-		}
-		return implementingRecordTypes;
+		return getUsingReadLock(() -> readAbstractListForType(type, filter));
 	}
 
-	private void checkIfChildAndAddToList(String type, List<String> implementingRecordTypes,
-			Entry<String, DividerGroup> entry) {
-		DataGroup dataGroup = extractDataGroupFromDataDividerGroup(entry);
-		String recordTypeId = entry.getKey();
+	private StorageReadResult readAbstractListForType(String type, DataGroup filter) {
+		Map<String, Collection<String>> matchingRecordIdsByType = new LinkedHashMap<>();
+		Set<String> implementingChildRecordTypes = findImplementingChildRecordTypes(type);
 
-		if (isImplementingChild(type, dataGroup)) {
-			implementingRecordTypes.add(recordTypeId);
-			findImplementingChildRecordTypesUsingTypeAndRecordTypeList(entry.getKey(),
-					records.get(RECORD_TYPE), implementingRecordTypes);
-		}
+		addMatchingRecordIdsForImplementingRecordTypes(matchingRecordIdsByType,
+				implementingChildRecordTypes, filter);
+		addMatchingRecordIdsForParentIfParentIsNotAbstract(type, filter, matchingRecordIdsByType);
+		throwErrorIfNoMatchingRecordIds(type, matchingRecordIdsByType);
+		return createStorageReadResultForRange(matchingRecordIdsByType, filter);
 	}
 
-	private DataGroup extractDataGroupFromDataDividerGroup(Entry<String, DividerGroup> entry) {
-		DividerGroup dividerGroup = entry.getValue();
-		return dividerGroup.dataGroup;
+	private Set<String> findImplementingChildRecordTypes(String type) {
+		return getRecordTypeHierarchy().getImplementingRecordTypes(type);
 	}
 
-	private boolean isImplementingChild(String type, DataGroup dataGroup) {
-		if (dataGroup.containsChildWithNameInData("parentId")) {
-			String parentId = extractParentId(dataGroup);
-			if (parentId.equals(type)) {
-				return true;
-			}
+	private RecordTypeHierarchy getRecordTypeHierarchy() {
+		RecordTypeHierarchy hierarchy = recordTypeHierarchy;
+		if (null == hierarchy) {
+			hierarchy = RecordTypeHierarchy.usingRecordTypes(records.get(RECORD_TYPE));
+			recordTypeHierarchy = hierarchy;
 		}
-		return false;
+		return hierarchy;
 	}
 
-	private String extractParentId(DataGroup dataGroup) {
-		DataGroup parent = dataGroup.getFirstGroupWithNameInData("parentId");
-		return parent.getFirstAtomicValueWithNameInData("linkedRecordId");
+	private void possiblyInvalidateRecordTypeHierarchy(String recordType) {
+		if (RECORD_TYPE.equals(recordType)) {
+			recordTypeHierarchy = null;
+		}
 	}
 
-	private void addRecordsToAggregatedRecordList(List<DataGroup> aggregatedRecordList,
-			List<String> implementingChildRecordTypes, DataGroup filter) {
+	private void addMatchingRecordIdsForImplementingRecordTypes(
+			Map<String, Collection<String>> matchingRecordIdsByType,
+			Set<String> implementingChildRecordTypes, DataGroup filter) {
 		for (String implementingRecordType : implementingChildRecordTypes) {
-			try {
-				readRecordsForTypeAndFilterAndAddToList(implementingRecordType, filter,
-						aggregatedRecordList);
-			} catch (RecordNotFoundException e) {
-				// Do nothing, another implementing child might have records
+			if (recordsExistForType(implementingRecordType)) {
+				addMatchingRecordIdsForType(matchingRecordIdsByType, implementingRecordType,
+						filter);
 			}
 		}
 	}
 
-	private void readRecordsForTypeAndFilterAndAddToList(String implementingRecordType,
-			DataGroup filter, List<DataGroup> aggregatedRecordList) {
-		Collection<DataGroup> readList = readList(implementingRecordType, filter).listOfDataGroups;
-		aggregatedRecordList.addAll(readList);
-	}
-
-	private boolean parentRecordTypeIsNotAbstract(DataGroup recordTypeDataGroup) {
-		return !recordTypeIsAbstract(recordTypeDataGroup);
+	private void addMatchingRecordIdsForType(
+			Map<String, Collection<String>> matchingRecordIdsByType, String type,
+			DataGroup filter) {
+		Map<String, DividerGroup> typeDividerRecords = records.get(type);
+		throwErrorIfNoRecordOfType(type, typeDividerRecords);
+		matchingRecordIdsByType.put(type, findMatchingRecordIds(type, filter, typeDividerRecords));
 	}
 
-	private void addRecordsForParentIfParentIsNotAbstract(String type, DataGroup filter,
-			List<DataGroup> aggregatedRecordList) {
-		DataGroup recordTypeDataGroup = read(RECORD_TYPE, type);
-		if (parentRecordTypeIsNotAbstract(recordTypeDataGroup)) {
-			readRecordsForTypeAndFilterAndAddToList(type, filter, aggregatedRecordList);
+	private void addMatchingRecordIdsForParentIfParentIsNotAbstract(String type,
+			DataGroup filter, Map<String, Collection<String>> matchingRecordIdsByType) {
+		checkRecordExists(RECORD_TYPE, type);
+		if (!recordTypeIsAbstract(type)) {
+			addMatchingRecordIdsForType(matchingRecordIdsByType, type, filter);
 		}
 	}
 
-	private void throwErrorIfEmptyAggregatedList(String type,
-			List<DataGroup> aggregatedRecordList) {
-		if (aggregatedRecordList.isEmpty()) {
+	private void throwErrorIfNoMatchingRecordIds(String type,
+			Map<String, Collection<String>> matchingRecordIdsByType) {
+		if (countMatchingRecordIds(matchingRecordIdsByType) == 0) {
 			throw new RecordNotFoundException(NO_RECORDS_EXISTS_MESSAGE + type);
 		}
 	}
@@ -378,23 +437,27 @@ public class RecordStorageInMemory implements RecordStorage, MetadataStorage, Se
 	@Override
 	public boolean recordExistsForAbstractOrImplementingRecordTypeAndRecordId(String recordType,
 			String recordId) {
-		return recordExistsForRecordTypeAndRecordId(recordType, recordId)
-				|| recordExistsForAbstractRecordTypeAndRecordId(recordType, recordId);
+		return getUsingReadLock(() -> recordExistsForRecordTypeAndRecordId(recordType, recordId)
+				|| recordExistsForAbstractRecordTypeAndRecordId(recordType, recordId));
 	}
 
 	@Override
 	public boolean recordsExistForRecordType(String type) {
+		return getUsingReadLock(() -> recordsExistForType(type));
+	}
+
+	private boolean recordsExistForType(String type) {
 		return records.get(type) != null;
 	}
 
 	private boolean recordExistsForRecordTypeAndRecordId(String recordType, String recordId) {
-		return recordsExistForRecordType(recordType)
+		return recordsExistForType(recordType)
 				&& recordIdExistsForRecordType(recordType, recordId);
 	}
 
 	private boolean recordExistsForAbstractRecordTypeAndRecordId(String recordType,
 			String recordId) {
-		return recordsExistForRecordType(RECORD_TYPE)
+		return recordsExistForType(RECORD_TYPE)
 				&& recordTypeExistsAndIsAbstractAndRecordIdExistInImplementingChild(recordType,
 						recordId);
 	}
@@ -417,70 +480,67 @@ public class RecordStorageInMemory implements RecordStorage, MetadataStorage, Se
 
 	private boolean recordTypeIsAbstractAndRecordIdExistInImplementingChild(String recordType,
 			String recordId) {
-		DataGroup recordTypeDataGroup = read(RECORD_TYPE, recordType);
-		if (recordTypeIsAbstract(recordTypeDataGroup)) {
+		if (recordTypeIsAbstract(recordType)) {
 			return checkIfRecordIdExistsInChildren(recordType, recordId);
 		}
 		return false;
 	}
 
-	private boolean recordTypeIsAbstract(DataGroup recordTypeDataGroup) {
-		String abstractValue = recordTypeDataGroup.getFirstAtomicValueWithNameInData("abstract");
-		return valueIsAbstract(abstractValue);
+	private boolean recordTypeIsAbstract(String recordType) {
+		return getRecordTypeHierarchy().isAbstract(recordType);
 	}
 
-	private boolean valueIsAbstract(String typeIsAbstract) {
-		return "true".equals(typeIsAbstract);
+	private boolean checkIfRecordIdExistsInChildren(String recordType, String recordId) {
+		return null != findImplementingRecordTypeForRecordId(recordType, recordId);
 	}
 
-	private boolean checkIfRecordIdExistsInChildren(String recordType, String recordId) {
-		List<String> implementingChildRecordTypes = findImplementingChildRecordTypes(recordType);
-		for (String childType : implementingChildRecordTypes) {
-			if (recordsExistForRecordType(childType)
-					&& recordIdExistsForRecordType(childType, recordId)) {
-				return true;
+	private String findImplementingRecordTypeForRecordId(String recordType, String recordId) {
+		Set<String> typesWithRecordId = recordTypesByRecordId.getOrDefault(recordId,
+				Collections.emptySet());
+		if (typesWithRecordId.isEmpty()) {
+			return null;
+		}
+		return findLastImplementingRecordTypeInHierarchyOrder(recordType, typesWithRecordId);
+	}
+
+	private String findLastImplementingRecordTypeInHierarchyOrder(String recordType,
+			Set<String> typesWithRecordId) {
+		String implementingType = null;
+		for (String implementingChildRecordType : findImplementingChildRecordTypes(recordType)) {
+			if (typesWithRecordId.contains(implementingChildRecordType)) {
+				implementingType = implementingChildRecordType;
 			}
 		}
-		return false;
+		return implementingType;
 	}
 
 	@Override
 	public DataGroup read(String recordType, String recordId) {
-		DataGroup recordTypeDataGroup = returnRecordIfExisting(RECORD_TYPE, recordType);
-		if (recordTypeIsAbstract(recordTypeDataGroup)) {
+		return getUsingReadLock(() -> readRecord(recordType, recordId));
+	}
+
+	private DataGroup readRecord(String recordType, String recordId) {
+		checkRecordExists(RECORD_TYPE, recordType);
+		if (recordTypeIsAbstract(recordType)) {
 			return readRecordFromImplementingRecordTypes(recordType, recordId);
 		}
 		return returnRecordIfExisting(recordType, recordId);
 	}
 
 	private DataGroup readRecordFromImplementingRecordTypes(String recordType, String recordId) {
-		DataGroup readRecord = tryToReadRecordFromImplementingRecordTypes(recordType, recordId);
-		if (readRecord == null) {
+		String implementingType = findImplementingRecordTypeForRecordId(recordType, recordId);
+		if (null == implementingType) {
 			throw new RecordNotFoundException("No record exists with recordId: " + recordId);
 		}
-		return readRecord;
-	}
-
-	private DataGroup tryToReadRecordFromImplementingRecordTypes(String recordType,
-			String recordId) {
-		DataGroup readRecord = null;
-		List<String> implementingChildRecordTypes = findImplementingChildRecordTypes(recordType);
-		for (String implementingType : implementingChildRecordTypes) {
-			try {
-				readRecord = returnRecordIfExisting(implementingType, recordId);
-			} catch (RecordNotFoundException e) {
-				// Do nothing, another implementing child might have records
-			}
-		}
-		return readRecord;
+		return records.get(implementingType).get(recordId).getDataGroup();
 	}
 
 	private DataGroup returnRecordIfExisting(String recordType, String recordId) {
 		checkRecordExists(recordType, recordId);
-		return records.get(recordType).get(recordId).dataGroup;
+		return records.get(recordType).get(recordId).getDataGroup();
 	}
 
-	private void checkRecordExists(String recordType, String recordId) {
+	protected final void checkRecordExists(String recordType, String recordId) {
 		if (holderForRecordTypeDoesNotExistInStorage(recordType)) {
 			throw new RecordNotFoundException(NO_RECORDS_EXISTS_MESSAGE + recordType);
 		}
@@ -491,11 +551,15 @@ public class RecordStorageInMemory implements RecordStorage, MetadataStorage, Se
 
 	@Override
 	public DataGroup readLinkList(String recordType, String recordId) {
+		return getUsingReadLock(() -> readLinkListForRecord(recordType, recordId));
+	}
+
+	private DataGroup readLinkListForRecord(String recordType, String recordId) {
 		checkRecordExists(recordType, recordId);
 		if (linksMissingForRecord(recordType, recordId)) {
 			return DataGroupProvider.getDataGroupUsingNameInData("collectedDataLinks");
 		}
-		return linkLists.get(recordType).get(recordId).dataGroup;
+		return linkLists.get(recordType).get(recordId).getDataGroup();
 	}
 
 	private boolean linksMissingForRecord(String recordType, String recordId) {
@@ -504,15 +568,20 @@ public class RecordStorageInMemory implements RecordStorage, MetadataStorage, Se
 
 	@Override
 	public void deleteByTypeAndId(String recordType, String recordId) {
+		runUsingWriteLock(() -> deleteRecord(recordType, recordId));
+	}
+
+	private void deleteRecord(String recordType, String recordId) {
 		checkRecordExists(recordType, recordId);
 		removeOldLinksStoredAsIncomingLinks(recordType, recordId);
 		removeFromLinkList(recordType, recordId);
 		collectedTermsHolder.removePreviousCollectedStorageTerms(recordType, recordId);
+		possiblyInvalidateRecordTypeHierarchy(recordType);
+		removeFromRecordTypesByRecordId(recordType, recordId);
 		records.get(recordType).remove(recordId);
 		if (records.get(recordType).isEmpty()) {
 			records.remove(recordType);
 		}
-
 	}
 
 	private void removeFromLinkList(String recordType, String recordId) {
@@ -526,7 +595,11 @@ public class RecordStorageInMemory implements RecordStorage, MetadataStorage, Se
 
 	@Override
 	public Collection<DataGroup> generateLinkCollectionPointingToRecord(String type, String id) {
-		if (linksExistForRecord(type, id)) {
+		return getUsingReadLock(() -> generateLinkCollectionForRecord(type, id));
+	}
+
+	private Collection<DataGroup> generateLinkCollectionForRecord(String type, String id) {
+		if (incomingLinksExistForRecord(type, id)) {
 			return generateLinkCollectionFromStoredLinks(type, id);
 		}
 		return Collections.emptyList();
@@ -534,45 +607,85 @@ public class RecordStorageInMemory implements RecordStorage, MetadataStorage, Se
 
 	private Collection<DataGroup> generateLinkCollectionFromStoredLinks(String type, String id) {
 		List<DataGroup> generatedLinkList = new ArrayList<>();
-		Map<String, Map<String, List<DataGroup>>> linkStorageForRecord = incomingLinks.get(type)
-				.get(id);
-		addLinksForRecordFromAllRecordTypes(generatedLinkList, linkStorageForRecord);
+		incomingLinks.forEachSourceLinkingToTarget(type, id,
+				(sourceType, sourceId) -> addLinksFromSourceToRecord(generatedLinkList,
+						linkLists.get(sourceType).get(sourceId).getDataGroup(), type, id));
 		return generatedLinkList;
 	}
 
-	private void addLinksForRecordFromAllRecordTypes(List<DataGroup> generatedLinkList,
-			Map<String, Map<String, List<DataGroup>>> linkStorageForRecord) {
-		for (Map<String, List<DataGroup>> mapOfId : linkStorageForRecord.values()) {
-			addLinksForRecordForThisRecordType(generatedLinkList, mapOfId);
+	private List<DataGroup> generateLinksFromSourcesInRange(IncomingLinkSources sources,
+			String type, String id, int fromIndex, int toIndex) {
+		List<DataGroup> generatedLinkList = new ArrayList<>();
+		sources.forEachSourceInRange(fromIndex, toIndex,
+				(sourceType, sourceId) -> possiblyAddLinksFromSourceToRecord(generatedLinkList,
+						sourceType, sourceId, type, id));
+		return generatedLinkList;
+	}
+
+	private void possiblyAddLinksFromSourceToRecord(List<DataGroup> generatedLinkList,
+			String sourceType, String sourceId, String type, String id) {
+		DividerGroup sourceLinkList = linkLists.getOrDefault(sourceType, Collections.emptyMap())
+				.get(sourceId);
+		if (null != sourceLinkList) {
+			addLinksFromSourceToRecord(generatedLinkList, sourceLinkList.getDataGroup(), type, id);
 		}
 	}
 
-	private void addLinksForRecordForThisRecordType(List<DataGroup> generatedLinkList,
-			Map<String, List<DataGroup>> mapOfId) {
-		for (List<DataGroup> recordToRecordLinkList : mapOfId.values()) {
-			generatedLinkList.addAll(recordToRecordLinkList);
+	private void addLinksFromSourceToRecord(List<DataGroup> generatedLinkList,
+			DataGroup sourceLinkList, String type, String id) {
+		for (DataElement linkElement : sourceLinkList.getChildren()) {
+			DataGroup link = (DataGroup) linkElement;
+			if (linkPointsToRecord(link, type, id)) {
+				generatedLinkList.add(link);
+			}
 		}
 	}
 
+	private boolean linkPointsToRecord(DataGroup link, String type, String id) {
+		DataGroup to = link.getFirstGroupWithNameInData("to");
+		return type.equals(extractLinkedRecordTypeValue(to))
+				&& id.equals(extractLinkedRecordIdValue(to));
+	}
+
 	@Override
 	public boolean linksExistForRecord(String type, String id) {
-		return incomingLinkStorageForRecordTypeExists(type)
-				&& incomingLinksHolderForRecordIdExists(type, id);
+		return getUsingReadLock(() -> incomingLinksExistForRecord(type, id));
 	}
 
-	private boolean incomingLinksHolderForRecordIdExists(String type, String id) {
-		return incomingLinks.get(type).containsKey(id);
+	private boolean incomingLinksExistForRecord(String type, String id) {
+		return incomingLinks.linksExistToTarget(type, id);
 	}
 
-	private boolean incomingLinkStorageForRecordTypeExists(String type) {
-		return incomingLinks.containsKey(type);
+	public int countRecordsLinkingToRecord(String type, String id) {
+		return getUsingReadLock(() -> incomingLinks.countSourcesLinkingToTarget(type, id));
+	}
+
+	public int countRecordsOfTypeLinkingToRecord(String type, String id,
+			String linkingRecordType) {
+		return getUsingReadLock(() -> incomingLinks.countSourcesOfTypeLinkingToTarget(type, id,
+				linkingRecordType));
+	}
+
+	public Iterator<DataGroup> iterateLinksPointingToRecord(String type, String id,
+			int noOfLinkingRecordsPerPage) {
+		IncomingLinkSources sources = getUsingReadLock(
+				() -> incomingLinks.getSourcesLinkingToTarget(type, id));
+		return IncomingLinkIterator.usingPageReaderNoOfSourcesAndPageSize(
+				(fromIndex, toIndex) -> getUsingReadLock(() -> generateLinksFromSourcesInRange(
+						sources, type, id, fromIndex, toIndex)),
+				sources.size(), noOfLinkingRecordsPerPage);
 	}
 
 	@Override
 	public void update(String recordType, String recordId, DataGroup record,
 			DataGroup collectedTerms, DataGroup linkList, String dataDivider) {
+		runUsingWriteLock(() -> updateRecord(recordType, recordId, record, collectedTerms,
+				linkList, dataDivider));
+	}
+
+	private void updateRecord(String recordType, String recordId, DataGroup record,
+			DataGroup collectedTerms, DataGroup linkList, String dataDivider) {
 		checkRecordExists(recordType, recordId);
-		removeOldLinksStoredAsIncomingLinks(recordType, recordId);
 		storeIndependentRecordByRecordTypeAndRecordId(recordType, recordId, record, dataDivider);
 		ensureStorageExistsForRecordType(recordType);
 		collectedTermsHolder.storeCollectedTerms(recordType, recordId, collectedTerms, dataDivider);
@@ -580,68 +693,15 @@ public class RecordStorageInMemory implements RecordStorage, MetadataStorage, Se
 	}
 
 	private void removeOldLinksStoredAsIncomingLinks(String recordType, String recordId) {
-		DataGroup oldLinkList = readLinkList(recordType, recordId);
-		for (DataElement linkElement : oldLinkList.getChildren()) {
-			removeOldLinkStoredAsIncomingLink((DataGroup) linkElement);
-		}
-	}
-
-	private void removeOldLinkStoredAsIncomingLink(DataGroup link) {
-		DataGroup toPartOfLink = link.getFirstGroupWithNameInData("to");
-		String toType = extractLinkedRecordTypeValue(toPartOfLink);
-		String toId = extractLinkedRecordIdValue(toPartOfLink);
-
-		if (incomingLinksContainsToTypeAndToId(toType, toId)) {
-			Map<String, Map<String, List<DataGroup>>> toPartOfIncomingLinks = getFromPartOfIncomingLinksForToTypeAndToId(
-					toType, toId);
-
-			removeLinkAndFromHolderFromIncomingLinks(link, toPartOfIncomingLinks);
-
-			removeToHolderFromIncomingLinks(toType, toId, toPartOfIncomingLinks);
-		}
-	}
-
-	private boolean incomingLinksContainsToTypeAndToId(String toType, String toId) {
-		if (!incomingLinks.containsKey(toType)) {
-			return false;
-		}
-
-		return incomingLinks.get(toType).containsKey(toId);
-	}
-
-	private Map<String, Map<String, List<DataGroup>>> getFromPartOfIncomingLinksForToTypeAndToId(
-			String toType, String toId) {
-		return incomingLinks.get(toType).get(toId);
-	}
-
-	private void removeLinkAndFromHolderFromIncomingLinks(DataGroup link,
-			Map<String, Map<String, List<DataGroup>>> linksForToPart) {
-		DataGroup from = link.getFirstGroupWithNameInData("from");
-		String fromType = extractLinkedRecordTypeValue(from);
-		String fromId = extractLinkedRecordIdValue(from);
-
-		Map<String, List<DataGroup>> fromTypeMap = linksForToPart.get(fromType);
-		if (null != fromTypeMap) {
-			fromTypeMap.remove(fromId);
-
-			if (fromTypeMap.isEmpty()) {
-				linksForToPart.remove(fromType);
-			}
-		}
-	}
-
-	private void removeToHolderFromIncomingLinks(String toType, String toId,
-			Map<String, Map<String, List<DataGroup>>> toPartOfIncomingLinks) {
-		if (toPartOfIncomingLinks.isEmpty()) {
-			incomingLinks.get(toType).remove(toId);
-		}
-		if (incomingLinks.get(toType).isEmpty()) {
-			incomingLinks.remove(toType);
-		}
+		incomingLinks.removeLinksFromSource(recordType, recordId);
 	}
 
 	@Override
 	public Collection<DataGroup> getMetadataElements() {
+		return getUsingReadLock(this::readMetadataElements);
+	}
+
+	private Collection<DataGroup> readMetadataElements() {
 		Collection<DataGroup> readDataGroups = new ArrayList<>();
 		for (MetadataTypes metadataType : MetadataTypes.values()) {
 			readListForMetadataType(readDataGroups, metadataType);
@@ -651,12 +711,13 @@ public class RecordStorageInMemory implements RecordStorage, MetadataStorage, Se
 
 	private void readListForMetadataType(Collection<DataGroup> readDataGroups,
 			MetadataTypes metadataType) {
-		DataGroup recordTypeDataGroup = read(RECORD_TYPE, metadataType.type);
-		if (recordTypeIsAbstract(recordTypeDataGroup)) {
-			readDataGroups
-					.addAll(readAbstractList(metadataType.type, emptyFilter).listOfDataGroups);
+		checkRecordExists(RECORD_TYPE, metadataType.type);
+		if (recordTypeIsAbstract(metadataType.type)) {
+			readDataGroups.addAll(
+					readAbstractListForType(metadataType.type, emptyFilter).listOfDataGroups);
 		} else {
-			readDataGroups.addAll(readList(metadataType.type, emptyFilter).listOfDataGroups);
+			readDataGroups
+					.addAll(readListForType(metadataType.type, emptyFilter).listOfDataGroups);
 		}
 	}
 
@@ -29,10 +29,20 @@ public final class RecordStorageInMemoryReadFromDisk extends RecordStorageOnDisk
 		return new RecordStorageInMemoryReadFromDisk(basePath);
 	}
 
+	public static RecordStorageInMemoryReadFromDisk createRecordStorageOnDiskWithBasePathAndSettings(
+			String basePath, RecordStorageOnDiskSettings settings) {
+		return new RecordStorageInMemoryReadFromDisk(basePath, settings);
+	}
+
 	private RecordStorageInMemoryReadFromDisk(String basePath) {
 		super(basePath);
 	}
 
+	private RecordStorageInMemoryReadFromDisk(String basePath,
+			RecordStorageOnDiskSettings settings) {
+		super(basePath, settings);
+	}
+
 	@Override
 	protected void writeDataToDisk(String recordType, String dataDivider) {
 		// do not write to disk
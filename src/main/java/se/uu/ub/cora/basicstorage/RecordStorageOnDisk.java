@@ -19,27 +19,38 @@
  */
 package se.uu.ub.cora.basicstorage;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -63,37 +74,63 @@ public class RecordStorageOnDisk extends RecordStorageInMemory
 	private static final String GZ_ENDING = ".gz";
 	private static final String COLLECTED_DATA = "collectedData";
 	private static final String LINK_LISTS = "linkLists";
+	private static final String RECORD_LIST = "recordList";
 	private static final String JSON_FILE_END = ".json";
+	private static final String BINARY_FILE_END = ".bin";
 	private static final int FILE_EXTENSION_LENGTH = ".gz".length();
-	private Set<String> allSeenCollectedDataFileNames = new HashSet<>();
+	protected static final String WRITE_AHEAD_LOG_DIR = "writeAheadLog";
+	private static final String MAPPED_RECORDS_DIR = ".mappedRecords";
 	private String basePath;
+	private RecordStorageOnDiskSettings settings;
+	private RecordCache recordCache;
 	private List<Path> pathsToAllFilesInBasePath = new ArrayList<>();
+	private Map<String, Map<String, Set<String>>> linkListRecordIdsByDataDivider = new HashMap<>();
+	private Set<String> changedLinkListDataDividers = new HashSet<>();
+	private Map<Path, MappedRecordFile> mappedRecordFiles = new HashMap<>();
+	private List<RemappedRecordFile> recordFilesToRemap = new ArrayList<>();
+	private long noOfMappedRecordFiles = 0;
 
 	protected RecordStorageOnDisk(String basePath) {
+		this(basePath, RecordStorageOnDiskSettings.usingDefaults());
+	}
+
+	protected RecordStorageOnDisk(String basePath, RecordStorageOnDiskSettings settings) {
 		this.basePath = basePath;
+		this.settings = settings;
+		immutableRecords = settings.useImmutableRecords();
+		recordCache = RecordCache.usingMaxNoOfRecords(settings.getRecordCacheSize());
 		tryToReadStoredDataFromDisk();
+		changedLinkListDataDividers.clear();
+		collectedTermsHolder.clearChangedDataDividers();
 	}
 
 	public static RecordStorageOnDisk createRecordStorageOnDiskWithBasePath(String basePath) {
 		return new RecordStorageOnDisk(basePath);
 	}
 
+	public static RecordStorageOnDisk createRecordStorageOnDiskWithBasePathAndSettings(
+			String basePath, RecordStorageOnDiskSettings settings) {
+		return new RecordStorageOnDisk(basePath, settings);
+	}
+
 	private final void tryToReadStoredDataFromDisk() {
 		Stream<Path> list = Stream.empty();
 		try {
 			list = Files.list(Paths.get(basePath));
 			collectPathsToAllFilesIncludingSubdirectoriesFromDisk(list);
-			for (Path path : pathsToAllFilesInBasePath) {
-				readFileAndParseFileByPath(path);
-			}
+			readAndStoreAllFiles();
 		} catch (IOException e) {
-			throw DataStorageException
-					.withMessageAndException("can not read files from disk on init: " + e, e);
+			throw createReadOnInitException(e);
 		} finally {
 			list.close();
 		}
 	}
 
+	private DataStorageException createReadOnInitException(Exception e) {
+		return DataStorageException
+				.withMessageAndException("can not read files from disk on init: " + e, e);
+	}
+
 	private final void collectPathsToAllFilesIncludingSubdirectoriesFromDisk(Stream<Path> list)
 			throws IOException {
 		Iterator<Path> iterator = list.iterator();
@@ -106,36 +143,153 @@ public class RecordStorageOnDisk extends RecordStorageInMemory
 			Iterator<Path> iterator) throws IOException {
 		Path path = iterator.next();
 		File file = path.toFile();
-		if (file.isDirectory()) {
-			if (!path.endsWith("streams/")) {
+		if (path.endsWith(MAPPED_RECORDS_DIR)) {
+			removeMappedRecordFilesFromEarlierRun(path);
+		} else if (file.isDirectory()) {
+			if (!path.endsWith("streams/") && !path.endsWith(WRITE_AHEAD_LOG_DIR)) {
 				Stream<Path> list = Files.list(path);
 				collectPathsToAllFilesIncludingSubdirectoriesFromDisk(list);
 			}
+		} else if (path.toString().endsWith(DurableFiles.TEMP_FILE_ENDING)) {
+			Files.delete(path);
 		} else {
 			throwErrorIfPathIsSymbolicLinkWhereTargetDoesNotExist(path);
 			pathsToAllFilesInBasePath.add(path);
 		}
 	}
 
+	private final void removeMappedRecordFilesFromEarlierRun(Path mappedRecordsPath)
+			throws IOException {
+		try (Stream<Path> list = Files.list(mappedRecordsPath)) {
+			for (Path path : (Iterable<Path>) list::iterator) {
+				Files.delete(path);
+			}
+		}
+	}
+
 	private final void throwErrorIfPathIsSymbolicLinkWhereTargetDoesNotExist(Path path) {
 		if (!Files.exists(path)) {
 			throw DataStorageException.withMessage("Symbolic link points to missing path: " + path);
 		}
 	}
 
-	private final void readFileAndParseFileByPath(Path path) throws IOException {
+	private final void readAndStoreAllFiles() throws IOException {
+		if (settings.getLoadParallelism() > 1 && !settings.useLazyRecordLoading()) {
+			readFilesInParallelAndStoreInOrder();
+		} else {
+			for (Path path : pathsToAllFilesInBasePath) {
+				readAndStoreFile(path);
+			}
+		}
+	}
+
+	private final void readAndStoreFile(Path path) throws IOException {
+		if (isRecordFileToMap(path)) {
+			mapAndStoreRecordsFromFile(getTypeFromPath(path), getDataDividerFromPath(path));
+		} else {
+			readChildrenFromFileByPath(path, createStorerForChildrenInFileByPath(path));
+		}
+	}
+
+	private final boolean isRecordFileToMap(Path path) {
+		String fileNameTypePart = getTypeFromPath(path);
+		return settings.useLazyRecordLoading() && path.toString().endsWith(BINARY_FILE_END)
+				&& !fileContainsLinkLists(fileNameTypePart)
+				&& !COLLECTED_DATA.equals(fileNameTypePart);
+	}
+
+	private final void mapAndStoreRecordsFromFile(String recordType, String dataDivider)
+			throws IOException {
+		ensureStorageExistsForRecordType(recordType);
+		MappedRecordFile mappedRecordFile = MappedRecordFile.usingPathRecordCacheAndRecordConverter(
+				getPathToMapForRecordFile(recordType, dataDivider), recordCache,
+				this::possiblyMakeImmutable);
+		mappedRecordFiles.put(createBinaryPath(recordType, dataDivider), mappedRecordFile);
+		mappedRecordFile.readChildren(
+				(record, mappedRecord) -> storeDividerGroupByRecordTypeAndRecordId(recordType,
+						getRecordIdFromRecord(record),
+						DividerGroup.withDataDividerAndDataGroupSource(dataDivider, mappedRecord)));
+	}
+
+	private Path getPathToMapForRecordFile(String recordType, String dataDivider)
+			throws IOException {
+		// record files are replaced using an atomic move, so a mapped file stays readable until
+		// it is released, platforms that can not replace or remove a mapped file can map copies
+		Path recordFilePath = createBinaryPath(recordType, dataDivider);
+		if (settings.useMappedRecordFileCopies()) {
+			return copyRecordFileToMappedRecordsDir(recordFilePath, recordType, dataDivider);
+		}
+		return recordFilePath;
+	}
+
+	private Path copyRecordFileToMappedRecordsDir(Path recordFilePath, String recordType,
+			String dataDivider) throws IOException {
+		Path mappedPath = Paths.get(basePath, MAPPED_RECORDS_DIR,
+				recordType + "_" + dataDivider + "_" + noOfMappedRecordFiles + BINARY_FILE_END);
+		noOfMappedRecordFiles++;
+		Files.createDirectories(mappedPath.getParent());
+		Files.copy(recordFilePath, mappedPath);
+		return mappedPath;
+	}
+
+	private final void readFilesInParallelAndStoreInOrder() {
+		List<List<DataGroup>> childrenForAllFiles = readAllFilesInParallel();
+		for (int fileNo = 0; fileNo < pathsToAllFilesInBasePath.size(); fileNo++) {
+			Path path = pathsToAllFilesInBasePath.get(fileNo);
+			childrenForAllFiles.get(fileNo).forEach(createStorerForChildrenInFileByPath(path));
+		}
+	}
+
+	private final List<List<DataGroup>> readAllFilesInParallel() {
+		ForkJoinPool pool = new ForkJoinPool(settings.getLoadParallelism());
+		try {
+			return pool.submit(() -> pathsToAllFilesInBasePath.parallelStream()
+					.map(this::readChildrenFromFileByPathUnchecked)
+					.collect(Collectors.toList())).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw createReadOnInitException(e);
+		} catch (ExecutionException e) {
+			throw createExceptionFromParallelRead(e);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private List<DataGroup> readChildrenFromFileByPathUnchecked(Path path) {
+		List<DataGroup> children = new ArrayList<>();
+		try {
+			readChildrenFromFileByPath(path, children::add);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return children;
+	}
+
+	private RuntimeException createExceptionFromParallelRead(ExecutionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof UncheckedIOException) {
+			return createReadOnInitException(((UncheckedIOException) cause).getCause());
+		}
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		return createReadOnInitException(e);
+	}
+
+	private final Consumer<DataGroup> createStorerForChildrenInFileByPath(Path path) {
 		String fileNameTypePart = getTypeFromPath(path);
 		String dataDivider = getDataDividerFromPath(path);
-		List<DataElement> recordsFromFile = extractChildrenFromFileByPath(path);
 
 		if (fileContainsLinkLists(fileNameTypePart)) {
-			parseAndStoreDataLinksInMemory(dataDivider, recordsFromFile);
-		} else if (COLLECTED_DATA.equals(fileNameTypePart)) {
-			allSeenCollectedDataFileNames.add(dataDivider);
-			parseAndStoreCollectedStorageTermsInMemory(recordsFromFile);
-		} else {
-			parseAndStoreRecordsInMemory(fileNameTypePart, dataDivider, recordsFromFile);
+			return recordType -> parseAndStoreRecordTypeDataLinksInMemory(dataDivider,
+					recordType);
 		}
+		if (COLLECTED_DATA.equals(fileNameTypePart)) {
+			return this::parseAndStoreCollectedStorageTermInMemory;
+		}
+		ensureStorageExistsForRecordType(fileNameTypePart);
+		return record -> parseAndStoreRecordInMemory(fileNameTypePart, dataDivider, record);
 	}
 
 	private final String getTypeFromPath(Path path) {
@@ -148,38 +302,48 @@ public class RecordStorageOnDisk extends RecordStorageInMemory
 		return fileName2.substring(fileName2.lastIndexOf('_') + 1, fileName2.indexOf('.'));
 	}
 
-	private final List<DataElement> extractChildrenFromFileByPath(Path path) throws IOException {
-		String json = readJsonFileByPath(path);
-		DataGroup recordList = convertJsonStringToDataGroup(json);
-		return recordList.getChildren();
+	private final void readChildrenFromFileByPath(Path path, Consumer<DataGroup> childConsumer)
+			throws IOException {
+		if (path.toString().endsWith(BINARY_FILE_END)) {
+			readChildrenFromBinaryFileByPath(path, childConsumer);
+		} else {
+			readChildrenFromJsonFileByPath(path, childConsumer);
+		}
+	}
+
+	private void readChildrenFromBinaryFileByPath(Path path, Consumer<DataGroup> childConsumer)
+			throws IOException {
+		try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(path))) {
+			RecordListBinaryReader.usingInputStream(inputStream).readChildren(childConsumer);
+		}
 	}
 
-	private String readJsonFileByPath(Path path) throws IOException {
-		if (path.toString().endsWith(GZ_ENDING)) {
-			try (InputStream newInputStream = Files.newInputStream(path);
-					InputStreamReader inputStreamReader = new java.io.InputStreamReader(
-							new GZIPInputStream(newInputStream), StandardCharsets.UTF_8);
-					BufferedReader bufferedReader = new BufferedReader(inputStreamReader);) {
-				return readContentFromReaderAsJsonString(bufferedReader);
-			}
+	private void readChildrenFromJsonFileByPath(Path path, Consumer<DataGroup> childConsumer)
+			throws IOException {
+		try (Reader reader = openReaderForPath(path)) {
+			RecordListJsonReader.usingReader(reader).readChildren(
+					childJson -> childConsumer.accept(convertJsonStringToDataGroup(childJson)));
 		}
-		try (BufferedReader bufferedReader = Files.newBufferedReader(path,
-				StandardCharsets.UTF_8)) {
-			return readContentFromReaderAsJsonString(bufferedReader);
+	}
+
+	private Reader openReaderForPath(Path path) throws IOException {
+		InputStream inputStream = Files.newInputStream(path);
+		if (path.toString().endsWith(GZ_ENDING)) {
+			return openReaderForZippedStream(inputStream);
 		}
+		return new InputStreamReader(inputStream, StandardCharsets.UTF_8);
 	}
 
-	private String readContentFromReaderAsJsonString(BufferedReader bufferedReader)
-			throws IOException {
-		StringBuilder jsonBuilder = new StringBuilder();
-		String line = null;
-		while ((line = bufferedReader.readLine()) != null) {
-			jsonBuilder.append(line);
+	private Reader openReaderForZippedStream(InputStream inputStream) throws IOException {
+		try {
+			return new InputStreamReader(new GZIPInputStream(inputStream), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			inputStream.close();
+			throw e;
 		}
-		return jsonBuilder.toString();
 	}
 
-	private DataGroup convertJsonStringToDataGroup(String jsonRecord) {
+	protected DataGroup convertJsonStringToDataGroup(String jsonRecord) {
 		JsonParser jsonParser = new OrgJsonParser();
 		JsonValue jsonValue = jsonParser.parseString(jsonRecord);
 		JsonToDataConverter jsonToDataConverter = JsonToDataConverterProvider
@@ -192,13 +356,6 @@ public class RecordStorageOnDisk extends RecordStorageInMemory
 		return LINK_LISTS.equals(fileNameTypePart);
 	}
 
-	private final void parseAndStoreDataLinksInMemory(String dataDivider,
-			List<DataElement> recordTypes) {
-		for (DataElement typesElement : recordTypes) {
-			parseAndStoreRecordTypeDataLinksInMemory(dataDivider, (DataGroup) typesElement);
-		}
-	}
-
 	private void parseAndStoreRecordTypeDataLinksInMemory(String dataDivider,
 			DataGroup recordType) {
 		String recordTypeName = recordType.getNameInData();
@@ -219,13 +376,6 @@ public class RecordStorageOnDisk extends RecordStorageInMemory
 		storeLinks(recordTypeName, recordId, collectedDataLinks, dataDivider);
 	}
 
-	private final void parseAndStoreCollectedStorageTermsInMemory(
-			List<DataElement> recordsFromFile) {
-		for (DataElement storageTerm : recordsFromFile) {
-			parseAndStoreCollectedStorageTermInMemory((DataGroup) storageTerm);
-		}
-	}
-
 	private void parseAndStoreCollectedStorageTermInMemory(DataGroup storageTerm) {
 		String type = storageTerm.getFirstAtomicValueWithNameInData("type");
 		String key = storageTerm.getFirstAtomicValueWithNameInData("key");
@@ -240,69 +390,139 @@ public class RecordStorageOnDisk extends RecordStorageInMemory
 		return StorageTermData.withValueAndDataDivider(value, dataDivider);
 	}
 
-	private final void parseAndStoreRecordsInMemory(String fileNameTypePart, String dataDivider,
-			List<DataElement> recordTypes) {
-		ensureStorageExistsForRecordType(fileNameTypePart);
+	private void parseAndStoreRecordInMemory(String fileNameTypePart, String dataDivider,
+			DataGroup record) {
+		String recordId = getRecordIdFromRecord(record);
+		storeRecordByRecordTypeAndRecordId(fileNameTypePart, recordId, record, dataDivider);
+	}
 
-		for (DataElement dataElement : recordTypes) {
-			parseAndStoreRecordInMemory(fileNameTypePart, dataDivider, (DataGroup) dataElement);
+	@Override
+	protected void storeIndependentRecordByRecordTypeAndRecordId(String recordType,
+			String recordId, DataGroup record, String dataDivider) {
+		if (settings.useCompactRecords()) {
+			storeCompactRecord(recordType, recordId, record, dataDivider);
+		} else {
+			super.storeIndependentRecordByRecordTypeAndRecordId(recordType, recordId, record,
+					dataDivider);
 		}
 	}
 
-	private void parseAndStoreRecordInMemory(String fileNameTypePart, String dataDivider,
-			DataGroup record) {
+	private void storeCompactRecord(String recordType, String recordId, DataGroup record,
+			String dataDivider) {
+		CompactRecord compactRecord = CompactRecord.usingDataGroupRecordCacheAndRecordConverter(
+				record, recordCache, this::possiblyMakeImmutable);
+		storeDividerGroupByRecordTypeAndRecordId(recordType, recordId,
+				DividerGroup.withDataDividerAndDataGroupSource(dataDivider, compactRecord));
+	}
 
-		DataGroup recordInfo = record.getFirstGroupWithNameInData("recordInfo");
-		String recordId = recordInfo.getFirstAtomicValueWithNameInData("id");
+	@Override
+	protected void storeRecordByRecordTypeAndRecordId(String recordType, String recordId,
+			DataGroup record, String dataDivider) {
+		if (settings.useCompactRecords()) {
+			storeCompactRecord(recordType, recordId, record, dataDivider);
+		} else {
+			super.storeRecordByRecordTypeAndRecordId(recordType, recordId, record, dataDivider);
+		}
+	}
 
-		storeRecordByRecordTypeAndRecordId(fileNameTypePart, recordId, record, dataDivider);
+	private String getRecordIdFromRecord(DataGroup record) {
+		DataGroup recordInfo = record.getFirstGroupWithNameInData("recordInfo");
+		return recordInfo.getFirstAtomicValueWithNameInData("id");
 	}
 
 	@Override
 	public synchronized void create(String recordType, String recordId, DataGroup record,
 			DataGroup collectedTerms, DataGroup linkList, String dataDivider) {
 		super.create(recordType, recordId, record, collectedTerms, linkList, dataDivider);
-		writeDataToDisk(recordType, dataDivider);
+		writeToDiskUsingReadLock(() -> writeDataToDisk(recordType, dataDivider));
+	}
+
+	@Override
+	protected void storeChangedLinks(String recordType, String recordId, DataGroup linkList,
+			String dataDivider) {
+		possiblyRemoveRecordFromLinkListIndex(recordType, recordId);
+		super.storeChangedLinks(recordType, recordId, linkList, dataDivider);
+		possiblyAddRecordToLinkListIndex(recordType, recordId);
+	}
+
+	private void possiblyRemoveRecordFromLinkListIndex(String recordType, String recordId) {
+		if (linkListExistsForRecord(recordType, recordId)) {
+			String dataDivider = linkLists.get(recordType).get(recordId).dataDivider;
+			Map<String, Set<String>> recordIdsByRecordType = linkListRecordIdsByDataDivider
+					.get(dataDivider);
+			Set<String> recordIds = recordIdsByRecordType.get(recordType);
+			recordIds.remove(recordId);
+			if (recordIds.isEmpty()) {
+				recordIdsByRecordType.remove(recordType);
+			}
+			changedLinkListDataDividers.add(dataDivider);
+		}
+	}
+
+	private boolean linkListExistsForRecord(String recordType, String recordId) {
+		Map<String, DividerGroup> linkListsForRecordType = linkLists.get(recordType);
+		return null != linkListsForRecordType && linkListsForRecordType.containsKey(recordId);
+	}
+
+	private void possiblyAddRecordToLinkListIndex(String recordType, String recordId) {
+		if (linkListExistsForRecord(recordType, recordId)) {
+			String dataDivider = linkLists.get(recordType).get(recordId).dataDivider;
+			linkListRecordIdsByDataDivider.computeIfAbsent(dataDivider, key -> new HashMap<>())
+					.computeIfAbsent(SymbolTable.intern(recordType), key -> new LinkedHashSet<>())
+					.add(recordId);
+			changedLinkListDataDividers.add(dataDivider);
+		}
 	}
 
 	protected void writeDataToDisk(String recordType, String dataDivider) {
 		writeRecordsToDisk(recordType, dataDivider);
-		writeCollectedDataToDisk();
-		writeLinkListToDisk(dataDivider);
+		writeChangedCollectedDataToDisk();
+		writeChangedLinkListsToDisk();
 	}
 
-	private void writeCollectedDataToDisk() {
+	private void writeChangedCollectedDataToDisk() {
 		Map<String, DataGroup> collectedDataByDataDivider = collectedTermsHolder
-				.structureCollectedTermsForDisk();
-		removePreviousCollectedDataFiles();
-		if (!collectedDataByDataDivider.isEmpty()) {
-			writeCollectedDataForDataDividersToDisk(collectedDataByDataDivider);
+				.structureChangedCollectedTermsForDisk();
+		for (Entry<String, DataGroup> entry : collectedDataByDataDivider.entrySet()) {
+			writeOrRemoveDataDividerFile(COLLECTED_DATA, entry.getKey(), entry.getValue());
 		}
 	}
 
-	private void removePreviousCollectedDataFiles() {
-		for (String dataDivider : allSeenCollectedDataFileNames) {
-			String collectedDataFileName = COLLECTED_DATA + "_" + dataDivider + JSON_FILE_END;
-			Path path = Paths.get(basePath, dataDivider, collectedDataFileName);
-			if (path.toFile().exists()) {
-				removeFileFromDisk(COLLECTED_DATA, dataDivider);
-			} else {
-				path = Paths.get(basePath, dataDivider, collectedDataFileName + GZ_ENDING);
-				if (path.toFile().exists()) {
-					removeFileFromDisk(COLLECTED_DATA, dataDivider);
-				}
-			}
+	private void writeOrRemoveDataDividerFile(String fileType, String dataDivider,
+			DataGroup dataGroup) {
+		if (dataGroup.getChildren().isEmpty()) {
+			possiblyRemoveDataDividerFile(fileType, dataDivider);
+		} else {
+			possiblyCreateFolderForDataDivider(dataDivider);
+			writeDataGroupToDataDividerFile(fileType, dataDivider, dataGroup);
 		}
 	}
 
-	private void writeCollectedDataForDataDividersToDisk(
-			Map<String, DataGroup> collectedDataByDataDivider) {
-		for (Entry<String, DataGroup> entry : collectedDataByDataDivider.entrySet()) {
-			String dataDivider = entry.getKey();
-			Path path = Paths.get(basePath, dataDivider,
-					"collectedData_" + dataDivider + JSON_FILE_END + GZ_ENDING);
-			tryToWriteDataGroupToDiskAsJson(path, entry.getValue());
-			allSeenCollectedDataFileNames.add(dataDivider);
+	private void writeDataGroupToDataDividerFile(String fileType, String dataDivider,
+			DataGroup dataGroup) {
+		if (writeBinaryStorageFiles()) {
+			tryToWriteChildrenToDiskAsBinary(fileType, dataDivider, dataGroup.getChildren());
+		} else {
+			tryToWriteDataGroupToDiskAsJson(createJsonPath(fileType, dataDivider), dataGroup);
+		}
+	}
+
+	private boolean writeBinaryStorageFiles() {
+		return settings.useBinaryStorageFiles() || settings.useLazyRecordLoading();
+	}
+
+	private Path createJsonPath(String fileType, String dataDivider) {
+		return Paths.get(basePath, dataDivider,
+				fileType + "_" + dataDivider + JSON_FILE_END + GZ_ENDING);
+	}
+
+	private Path createBinaryPath(String fileType, String dataDivider) {
+		return Paths.get(basePath, dataDivider, fileType + "_" + dataDivider + BINARY_FILE_END);
+	}
+
+	private void possiblyRemoveDataDividerFile(String fileType, String dataDivider) {
+		if (recordTypeFileExistsOnDisk(fileType, dataDivider)) {
+			removeFileFromDisk(fileType, dataDivider);
 		}
 	}
 
@@ -320,10 +540,14 @@ public class RecordStorageOnDisk extends RecordStorageInMemory
 			Path path = Paths.get(basePath, dataDivider, recordTypeFileName);
 			if (Files.exists(Paths.get(basePath, dataDivider, recordTypeFileName))) {
 				Files.delete(path);
+			} else if (Files.exists(createBinaryPath(recordType, dataDivider))) {
+				Files.delete(createBinaryPath(recordType, dataDivider));
+				possiblyReleaseMappedRecordFileAfterWrite(recordType, dataDivider);
 			} else {
 				path = Paths.get(basePath, dataDivider, recordTypeFileName + GZ_ENDING);
 				Files.delete(path);
 			}
+			DurableFiles.syncDirectory(Paths.get(basePath, dataDivider));
 			deleteDirectoryIfEmpty(dataDivider);
 		} catch (IOException e) {
 			throw DataStorageException
@@ -331,11 +555,19 @@ public class RecordStorageOnDisk extends RecordStorageInMemory
 		}
 	}
 
-	private void deleteDirectoryIfEmpty(String dataDivider) {
+	protected boolean recordTypeFileExistsOnDisk(String recordType, String dataDivider) {
+		String recordTypeFileName = recordType + "_" + dataDivider + JSON_FILE_END;
+		return Files.exists(Paths.get(basePath, dataDivider, recordTypeFileName))
+				|| Files.exists(Paths.get(basePath, dataDivider, recordTypeFileName + GZ_ENDING))
+				|| Files.exists(createBinaryPath(recordType, dataDivider));
+	}
+
+	private void deleteDirectoryIfEmpty(String dataDivider) throws IOException {
 		File directoryIncludingDataDivider = Paths.get(basePath, dataDivider).toFile();
 		String[] list = directoryIncludingDataDivider.list();
 		if (list.length == 0) {
 			deleteDirectory(directoryIncludingDataDivider);
+			DurableFiles.syncDirectory(Paths.get(basePath));
 		}
 	}
 
@@ -348,46 +580,226 @@ public class RecordStorageOnDisk extends RecordStorageInMemory
 	}
 
 	private void writeRecordsToDiskWhereRecordTypeExists(String recordType, String dataDivider) {
-		Map<String, DataGroup> recordLists = divideRecordTypeDataByDataDivider(recordType);
+		Map<String, Map<String, DividerGroup>> recordLists = divideRecordTypeDataByDataDivider(
+				recordType);
 		writeDividedRecordsToDisk(recordType, recordLists);
 		possiblyRemoveOldDataDividerFile(recordType, dataDivider, recordLists);
 	}
 
-	private Map<String, DataGroup> divideRecordTypeDataByDataDivider(String recordType) {
+	private Map<String, Map<String, DividerGroup>> divideRecordTypeDataByDataDivider(
+			String recordType) {
 		Map<String, DividerGroup> mapOfRecordsOfRecordType = records.get(recordType);
-		Map<String, DataGroup> mapOfRecordsByDataDivider = new HashMap<>();
-		for (Entry<String, DividerGroup> dividerEntry : mapOfRecordsOfRecordType.entrySet()) {
-			addRecordToListBasedOnDataDivider(mapOfRecordsByDataDivider, dividerEntry);
+		Map<String, Map<String, DividerGroup>> mapOfRecordsByDataDivider = new HashMap<>();
+		for (Entry<String, DividerGroup> recordEntry : mapOfRecordsOfRecordType.entrySet()) {
+			DividerGroup dividerGroup = recordEntry.getValue();
+			mapOfRecordsByDataDivider
+					.computeIfAbsent(dividerGroup.dataDivider, key -> new LinkedHashMap<>())
+					.put(recordEntry.getKey(), dividerGroup);
 		}
 		return mapOfRecordsByDataDivider;
 	}
 
-	private void addRecordToListBasedOnDataDivider(Map<String, DataGroup> mapOfRecordsByDataDivider,
-			Entry<String, DividerGroup> dividerEntry) {
-		DividerGroup dividerGroup = dividerEntry.getValue();
-		String currentDataDivider = dividerGroup.dataDivider;
-		DataGroup currentDataGroup = dividerGroup.dataGroup;
-		ensureListForDataDivider(mapOfRecordsByDataDivider, currentDataDivider);
-		mapOfRecordsByDataDivider.get(currentDataDivider).addChild(currentDataGroup);
+	private void writeDividedRecordsToDisk(String recordType,
+			Map<String, Map<String, DividerGroup>> recordLists) {
+		for (Entry<String, Map<String, DividerGroup>> recordListEntry : recordLists
+				.entrySet()) {
+			String dataDivider = recordListEntry.getKey();
+
+			possiblyCreateFolderForDataDivider(dataDivider);
+			writeRecordListToDisk(recordType, dataDivider, recordListEntry.getValue());
+		}
 	}
 
-	private void ensureListForDataDivider(Map<String, DataGroup> recordLists,
-			String currentDataDivider) {
-		if (!recordLists.containsKey(currentDataDivider)) {
-			recordLists.put(currentDataDivider,
-					DataGroupProvider.getDataGroupUsingNameInData("recordList"));
+	private List<DataGroup> createDataGroupsView(Collection<DividerGroup> recordsToWrite) {
+		List<DividerGroup> dividerGroups = new ArrayList<>(recordsToWrite);
+		return new AbstractList<DataGroup>() {
+			@Override
+			public DataGroup get(int index) {
+				return dividerGroups.get(index).getDataGroupWithoutCaching();
+			}
+
+			@Override
+			public int size() {
+				return dividerGroups.size();
+			}
+		};
+	}
+
+	private void writeRecordListToDisk(String recordType, String dataDivider,
+			Map<String, DividerGroup> recordsToWrite) {
+		if (settings.useLazyRecordLoading()) {
+			WrittenRecordFile writtenRecordFile = tryToWriteRecordsToDiskAsBinary(recordType,
+					dataDivider, recordsToWrite);
+			tryToMapWrittenRecordFile(recordType, dataDivider, writtenRecordFile);
+		} else if (settings.useBinaryStorageFiles()) {
+			tryToWriteRecordsToDiskAsBinary(recordType, dataDivider, recordsToWrite);
+		} else if (settings.useStreamingRecordFileWrites()) {
+			tryToWriteRecordsToDiskAsJsonStream(createJsonPath(recordType, dataDivider),
+					createDataGroupsView(recordsToWrite.values()));
+		} else {
+			tryToWriteDataGroupToDiskAsJson(createJsonPath(recordType, dataDivider),
+					createRecordList(createDataGroupsView(recordsToWrite.values())));
 		}
 	}
 
-	private void writeDividedRecordsToDisk(String recordType, Map<String, DataGroup> recordLists) {
-		for (Entry<String, DataGroup> recordListEntry : recordLists.entrySet()) {
-			String dataDivider = recordListEntry.getKey();
-			DataGroup dataGroupRecord = recordListEntry.getValue();
+	private void tryToMapWrittenRecordFile(String recordType, String dataDivider,
+			WrittenRecordFile writtenRecordFile) {
+		try {
+			mapWrittenRecordFile(recordType, dataDivider, writtenRecordFile);
+		} catch (IOException e) {
+			throw DataStorageException
+					.withMessageAndException("can not read written files from disk: " + e, e);
+		}
+	}
 
-			possiblyCreateFolderForDataDivider(dataDivider);
-			Path path = Paths.get(basePath, dataDivider,
-					recordType + "_" + dataDivider + JSON_FILE_END + GZ_ENDING);
-			tryToWriteDataGroupToDiskAsJson(path, dataGroupRecord);
+	private void mapWrittenRecordFile(String recordType, String dataDivider,
+			WrittenRecordFile writtenRecordFile) throws IOException {
+		MappedRecordFile mappedRecordFile = MappedRecordFile
+				.usingPathRecordCacheRecordConverterAndDictionary(
+						getPathToMapForRecordFile(recordType, dataDivider), recordCache,
+						this::possiblyMakeImmutable, writtenRecordFile.dictionary);
+		Map<String, RecordSource> recordSources = new LinkedHashMap<>();
+		writtenRecordFile.positionsByRecordId.forEach((recordId, position) -> recordSources
+				.put(recordId, mappedRecordFile.getRecordAtOffsetWithLength(position[0],
+						position[1])));
+		recordFilesToRemap.add(new RemappedRecordFile(recordType, dataDivider, mappedRecordFile,
+				recordSources));
+	}
+
+	protected final void writeToDiskUsingReadLock(Runnable diskWriter) {
+		runUsingReadLock(diskWriter);
+		possiblyReplaceRecordSourcesOfRemappedRecordFiles();
+	}
+
+	private void possiblyReplaceRecordSourcesOfRemappedRecordFiles() {
+		if (!recordFilesToRemap.isEmpty()) {
+			List<MappedRecordFile> replacedRecordFiles = new ArrayList<>();
+			runUsingWriteLock(() -> replaceRecordSourcesOfRemappedRecordFiles(replacedRecordFiles));
+			recordFilesToRemap.clear();
+			replacedRecordFiles.forEach(this::releaseMappedRecordFile);
+		}
+	}
+
+	private void replaceRecordSourcesOfRemappedRecordFiles(
+			List<MappedRecordFile> replacedRecordFiles) {
+		for (RemappedRecordFile remapped : recordFilesToRemap) {
+			MappedRecordFile replaced = swapMappedRecordFile(remapped);
+			if (null != replaced) {
+				replacedRecordFiles.add(replaced);
+			}
+			replaceRecordSources(remapped);
+		}
+	}
+
+	private MappedRecordFile swapMappedRecordFile(RemappedRecordFile remapped) {
+		Path path = createBinaryPath(remapped.recordType, remapped.dataDivider);
+		if (null == remapped.mappedRecordFile) {
+			return mappedRecordFiles.remove(path);
+		}
+		return mappedRecordFiles.put(path, remapped.mappedRecordFile);
+	}
+
+	private void replaceRecordSources(RemappedRecordFile remapped) {
+		Map<String, DividerGroup> recordsOfType = records.get(remapped.recordType);
+		remapped.recordSources.forEach((recordId, source) -> recordsOfType.replace(recordId,
+				DividerGroup.withDataDividerAndDataGroupSource(remapped.dataDivider, source)));
+	}
+
+	private void releaseMappedRecordFile(MappedRecordFile mappedRecordFile) {
+		mappedRecordFile.release();
+		if (settings.useMappedRecordFileCopies()) {
+			possiblyRemoveMappedRecordFileCopy(mappedRecordFile.getPath());
+		}
+	}
+
+	private void possiblyRemoveMappedRecordFileCopy(Path mappedPath) {
+		try {
+			Files.deleteIfExists(mappedPath);
+		} catch (IOException e) {
+			// a file that is still mapped can not be removed on all platforms, it is removed on
+			// the next startup instead
+		}
+	}
+
+	private void tryToWriteChildrenToDiskAsBinary(String fileType, String dataDivider,
+			List<? extends DataElement> children) {
+		tryToWriteBinaryFileToDisk(fileType, dataDivider, outputStream -> RecordListBinaryWriter
+				.usingOutputStream(outputStream).writeChildren(children));
+	}
+
+	private WrittenRecordFile tryToWriteRecordsToDiskAsBinary(String recordType,
+			String dataDivider, Map<String, DividerGroup> recordsToWrite) {
+		WrittenRecordFile writtenRecordFile = new WrittenRecordFile();
+		tryToWriteBinaryFileToDisk(recordType, dataDivider, outputStream -> writeRecordsAsBinary(
+				outputStream, recordsToWrite, writtenRecordFile));
+		return writtenRecordFile;
+	}
+
+	private void writeRecordsAsBinary(OutputStream outputStream,
+			Map<String, DividerGroup> recordsToWrite, WrittenRecordFile writtenRecordFile)
+			throws IOException {
+		RecordListBinaryWriter writer = RecordListBinaryWriter.usingOutputStream(outputStream);
+		writer.writeHeader(recordsToWrite.size());
+		for (Entry<String, DividerGroup> recordEntry : recordsToWrite.entrySet()) {
+			int offset = writer.getNoOfBytesWritten();
+			recordEntry.getValue().writeDataGroupTo(writer);
+			writtenRecordFile.positionsByRecordId.put(recordEntry.getKey(),
+					new int[] { offset, writer.getNoOfBytesWritten() - offset });
+		}
+		writer.flush();
+		writtenRecordFile.dictionary = writer.getDictionary();
+	}
+
+	private void tryToWriteBinaryFileToDisk(String fileType, String dataDivider,
+			DurableFiles.ContentWriter contentWriter) {
+		Path jsonPath = createJsonPath(fileType, dataDivider);
+		try {
+			DurableFiles.writeFileAtomically(createBinaryPath(fileType, dataDivider),
+					contentWriter);
+			removeFilesInOtherFormats(createNonZippedPath(jsonPath), jsonPath);
+		} catch (IOException e) {
+			throw DataStorageException.withMessageAndException("can not write files to disk: " + e,
+					e);
+		}
+	}
+
+	private DataGroup createRecordList(List<DataGroup> recordsToWrite) {
+		DataGroup recordList = DataGroupProvider.getDataGroupUsingNameInData(RECORD_LIST);
+		for (DataGroup record : recordsToWrite) {
+			recordList.addChild(record);
+		}
+		return recordList;
+	}
+
+	private void tryToWriteRecordsToDiskAsJsonStream(Path path, List<DataGroup> recordsToWrite) {
+		try {
+			writeRecordsAsJsonToGZippedFileOnDisk(path, recordsToWrite);
+			removeFilesInOtherFormats(createNonZippedPath(path), createBinaryPathForJsonPath(path));
+		} catch (IOException e) {
+			throw DataStorageException.withMessageAndException("can not write files to disk: " + e,
+					e);
+		}
+	}
+
+	private void writeRecordsAsJsonToGZippedFileOnDisk(Path path, List<DataGroup> recordsToWrite)
+			throws IOException {
+		DurableFiles.writeFileAtomically(path,
+				outputStream -> writeRecordsAsJsonToGZippedStream(outputStream, recordsToWrite));
+	}
+
+	private void writeRecordsAsJsonToGZippedStream(OutputStream outputStream,
+			List<DataGroup> recordsToWrite) throws IOException {
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+				new GZIPOutputStream(outputStream), StandardCharsets.UTF_8))) {
+			writer.write("{\"name\":\"" + RECORD_LIST + "\",\"children\":[");
+			String separator = "";
+			for (DataGroup record : recordsToWrite) {
+				writer.write(separator);
+				writer.write(DataToJsonConverterProvider.getConverterUsingDataPart(record)
+						.toJsonCompactFormat());
+				separator = ",";
+			}
+			writer.write("]}");
 		}
 	}
 
@@ -400,6 +812,16 @@ public class RecordStorageOnDisk extends RecordStorageInMemory
 				throw DataStorageException
 						.withMessage("Could not make directory " + newPath.toString());
 			}
+			tryToSyncBaseDirectory();
+		}
+	}
+
+	private void tryToSyncBaseDirectory() {
+		try {
+			DurableFiles.syncDirectory(Paths.get(basePath));
+		} catch (IOException e) {
+			throw DataStorageException.withMessageAndException("can not write files to disk: " + e,
+					e);
 		}
 	}
 
@@ -414,31 +836,39 @@ public class RecordStorageOnDisk extends RecordStorageInMemory
 	}
 
 	private void writeDataGroupToDiskAsJson(Path path, String json) throws IOException {
-		possiblyRemoveOldNonZippedFile(path);
-		possiblyRemoveOldZippedFile(path);
 		writeJsonToGZippedFileOnDisk(path, json);
+		removeFilesInOtherFormats(createNonZippedPath(path), createBinaryPathForJsonPath(path));
 	}
 
 	private void writeJsonToGZippedFileOnDisk(Path path, String json) throws IOException {
-		try (OutputStream newOutputStream = Files.newOutputStream(path, StandardOpenOption.CREATE);
-				Writer writer = new OutputStreamWriter(new GZIPOutputStream(newOutputStream),
-						StandardCharsets.UTF_8);) {
-			writer.write(json, 0, json.length());
-			writer.flush();
-		}
+		DurableFiles.writeFileAtomically(path, outputStream -> {
+			try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(outputStream),
+					StandardCharsets.UTF_8)) {
+				writer.write(json, 0, json.length());
+			}
+		});
 	}
 
-	private void possiblyRemoveOldZippedFile(Path path) throws IOException {
-		if (path.toFile().exists()) {
-			Files.delete(path);
+	private void removeFilesInOtherFormats(Path... paths) throws IOException {
+		boolean removedFile = false;
+		for (Path path : paths) {
+			removedFile |= Files.deleteIfExists(path);
+		}
+		if (removedFile) {
+			DurableFiles.syncDirectory(paths[0].toAbsolutePath().getParent());
 		}
 	}
 
-	private void possiblyRemoveOldNonZippedFile(Path path) throws IOException {
+	private Path createNonZippedPath(Path path) {
 		String pathWithoutGZ = path.toString().substring(0,
 				path.toString().length() - FILE_EXTENSION_LENGTH);
-		Path oldFileName = Paths.get(pathWithoutGZ);
-		possiblyRemoveOldZippedFile(oldFileName);
+		return Paths.get(pathWithoutGZ);
+	}
+
+	private Path createBinaryPathForJsonPath(Path path) {
+		String pathWithoutJsonGZ = path.toString().substring(0,
+				path.toString().length() - (JSON_FILE_END + GZ_ENDING).length());
+		return Paths.get(pathWithoutJsonGZ + BINARY_FILE_END);
 	}
 
 	private String convertDataGroupToJsonString(DataGroup dataGroup) {
@@ -450,98 +880,49 @@ public class RecordStorageOnDisk extends RecordStorageInMemory
 		return DataToJsonConverterProvider.getConverterUsingDataPart(dataGroup);
 	}
 
-	private void possiblyRemoveOldDataDividerFile(String recordType, String dataDivider,
-			Map<String, DataGroup> recordLists) {
-		if (!recordLists.containsKey(dataDivider)) {
-			removeFileFromDisk(recordType, dataDivider);
-		}
-	}
-
-	private void writeLinkListToDisk(String dataDivider) {
-		Map<String, DataGroup> linkListsGroups = new HashMap<>();
-		divideLinkListsByDataDivider(linkListsGroups);
-		writeDividedLinkListsToDisk(linkListsGroups);
-		possiblyRemoveOldDataDividerLinkListFile(dataDivider, linkListsGroups);
-	}
-
-	private void divideLinkListsByDataDivider(Map<String, DataGroup> linkListsGroups) {
-		for (Entry<String, Map<String, DividerGroup>> recordType : linkLists.entrySet()) {
-			addLinkListsForRecordTypeBasedOnDataDivider(linkListsGroups, recordType);
+	private void possiblyReleaseMappedRecordFileAfterWrite(String recordType,
+			String dataDivider) {
+		if (mappedRecordFiles.containsKey(createBinaryPath(recordType, dataDivider))) {
+			recordFilesToRemap.add(new RemappedRecordFile(recordType, dataDivider, null,
+					Collections.emptyMap()));
 		}
 	}
 
-	private void addLinkListsForRecordTypeBasedOnDataDivider(Map<String, DataGroup> linkListsGroups,
-			Entry<String, Map<String, DividerGroup>> recordType) {
-		Map<String, DividerGroup> recordGroupMap = recordType.getValue();
-		for (Entry<String, DividerGroup> recordEntry : recordGroupMap.entrySet()) {
-			addLinkListsForRecordToListBasedOnDataDivider(linkListsGroups, recordType, recordEntry);
+	private void possiblyRemoveOldDataDividerFile(String recordType, String dataDivider,
+			Map<String, Map<String, DividerGroup>> recordLists) {
+		if (!recordLists.containsKey(dataDivider)) {
+			removeFileFromDisk(recordType, dataDivider);
 		}
 	}
 
-	private void addLinkListsForRecordToListBasedOnDataDivider(
-			Map<String, DataGroup> linkListsGroups,
-			Entry<String, Map<String, DividerGroup>> recordType,
-			Entry<String, DividerGroup> recordEntry) {
-		DividerGroup dataDividerGroup = recordEntry.getValue();
-		String currentDataDivider = dataDividerGroup.dataDivider;
-		ensureLinkListForDataDivider(linkListsGroups, currentDataDivider);
-		ensureLinkListForRecordType(linkListsGroups, recordType, currentDataDivider);
-
-		DataGroup recordTypeChild = (DataGroup) linkListsGroups.get(currentDataDivider)
-				.getFirstChildWithNameInData(recordType.getKey());
-		addLinkListsForRecord(recordEntry, dataDividerGroup, recordTypeChild);
-	}
-
-	private void ensureLinkListForDataDivider(Map<String, DataGroup> linkListsGroups,
-			String currentDataDivider) {
-		if (!linkListsGroups.containsKey(currentDataDivider)) {
-			linkListsGroups.put(currentDataDivider,
-					DataGroupProvider.getDataGroupUsingNameInData(LINK_LISTS));
+	private void writeChangedLinkListsToDisk() {
+		for (String dataDivider : changedLinkListDataDividers) {
+			DataGroup linkListsGroup = createLinkListsForDataDivider(dataDivider);
+			writeOrRemoveDataDividerFile(LINK_LISTS, dataDivider, linkListsGroup);
 		}
+		changedLinkListDataDividers.clear();
 	}
 
-	private void ensureLinkListForRecordType(Map<String, DataGroup> linkListsGroups,
-			Entry<String, Map<String, DividerGroup>> recordType, String currentDataDivider) {
-		if (!linkListsGroups.get(currentDataDivider)
-				.containsChildWithNameInData(recordType.getKey())) {
-			DataGroup recordTypeGroup = DataGroupProvider
-					.getDataGroupUsingNameInData(recordType.getKey());
-			linkListsGroups.get(currentDataDivider).addChild(recordTypeGroup);
+	private DataGroup createLinkListsForDataDivider(String dataDivider) {
+		DataGroup linkListsGroup = DataGroupProvider.getDataGroupUsingNameInData(LINK_LISTS);
+		Map<String, Set<String>> recordIdsByRecordType = linkListRecordIdsByDataDivider
+				.getOrDefault(dataDivider, Collections.emptyMap());
+		for (Entry<String, Set<String>> recordTypeEntry : recordIdsByRecordType.entrySet()) {
+			linkListsGroup.addChild(createLinkListsForRecordType(recordTypeEntry.getKey(),
+					recordTypeEntry.getValue()));
 		}
+		return linkListsGroup;
 	}
 
-	private void addLinkListsForRecord(Entry<String, DividerGroup> recordEntry,
-			DividerGroup dataDividerGroup, DataGroup recordTypeChild) {
-		DataGroup recordIdGroup = DataGroupProvider
-				.getDataGroupUsingNameInData(recordEntry.getKey());
-		recordIdGroup.addChild(dataDividerGroup.dataGroup);
-
-		recordTypeChild.addChild(recordIdGroup);
-	}
-
-	private void writeDividedLinkListsToDisk(Map<String, DataGroup> linkListsGroups) {
-		for (Entry<String, DataGroup> recordListEntry : linkListsGroups.entrySet()) {
-			String dataDivider = recordListEntry.getKey();
-			Path path = Paths.get(basePath, dataDivider,
-					"linkLists_" + dataDivider + JSON_FILE_END + GZ_ENDING);
-			tryToWriteDataGroupToDiskAsJson(path, recordListEntry.getValue());
-		}
-	}
-
-	private void possiblyRemoveOldDataDividerLinkListFile(String dataDivider,
-			Map<String, DataGroup> linkListsGroups) {
-		if (!linkListsGroups.containsKey(dataDivider)) {
-			String linkListFileName = "linkLists_" + dataDivider + JSON_FILE_END;
-			Path path = Paths.get(basePath, dataDivider, linkListFileName);
-			if (path.toFile().exists()) {
-				removeFileFromDisk(LINK_LISTS, dataDivider);
-			} else {
-				path = Paths.get(basePath, dataDivider, linkListFileName + GZ_ENDING);
-				if (path.toFile().exists()) {
-					removeFileFromDisk(LINK_LISTS, dataDivider);
-				}
-			}
+	private DataGroup createLinkListsForRecordType(String recordType, Set<String> recordIds) {
+		DataGroup recordTypeGroup = DataGroupProvider.getDataGroupUsingNameInData(recordType);
+		for (String recordId : recordIds) {
+			DataGroup recordIdGroup = DataGroupProvider.getDataGroupUsingNameInData(recordId);
+			recordIdGroup.addChild(
+					linkLists.get(recordType).get(recordId).getDataGroupWithoutCaching());
+			recordTypeGroup.addChild(recordIdGroup);
 		}
+		return recordTypeGroup;
 	}
 
 	@Override
@@ -549,18 +930,44 @@ public class RecordStorageOnDisk extends RecordStorageInMemory
 			DataGroup collectedTerms, DataGroup linkList, String dataDivider) {
 		String previousDataDivider = records.get(recordType).get(recordId).dataDivider;
 		super.update(recordType, recordId, record, collectedTerms, linkList, dataDivider);
-		writeDataToDisk(recordType, previousDataDivider);
+		writeToDiskUsingReadLock(() -> writeDataToDisk(recordType, previousDataDivider));
 	}
 
 	@Override
 	public synchronized void deleteByTypeAndId(String recordType, String recordId) {
 		String previousDataDivider = records.get(recordType).get(recordId).dataDivider;
+		possiblyRemoveRecordFromLinkListIndex(recordType, recordId);
 		super.deleteByTypeAndId(recordType, recordId);
-		writeDataToDisk(recordType, previousDataDivider);
+		writeToDiskUsingReadLock(() -> writeDataToDisk(recordType, previousDataDivider));
 	}
 
 	public String getBasePath() {
 		// needed for test
 		return basePath;
 	}
+
+	RecordCache getRecordCache() {
+		// needed for test
+		return recordCache;
+	}
+
+	private static final class RemappedRecordFile {
+		private final String recordType;
+		private final String dataDivider;
+		private final MappedRecordFile mappedRecordFile;
+		private final Map<String, RecordSource> recordSources;
+
+		private RemappedRecordFile(String recordType, String dataDivider,
+				MappedRecordFile mappedRecordFile, Map<String, RecordSource> recordSources) {
+			this.recordType = recordType;
+			this.dataDivider = dataDivider;
+			this.mappedRecordFile = mappedRecordFile;
+			this.recordSources = recordSources;
+		}
+	}
+
+	private static final class WrittenRecordFile {
+		private final Map<String, int[]> positionsByRecordId = new LinkedHashMap<>();
+		private List<String> dictionary;
+	}
 }
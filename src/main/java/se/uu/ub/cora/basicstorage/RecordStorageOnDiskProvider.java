@@ -19,6 +19,8 @@
 package se.uu.ub.cora.basicstorage;
 
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 import se.uu.ub.cora.logger.Logger;
 import se.uu.ub.cora.logger.LoggerProvider;
@@ -59,11 +61,72 @@ public class RecordStorageOnDiskProvider implements RecordStorageProvider, Metad
 	private void startNewRecordStorageOnDiskInstance() {
 		String basePath = tryToGetInitParameter("storageOnDiskBasePath");
 		String type = tryToGetInitParameter("storageType");
+		RecordStorageOnDiskSettings settings = createSettings();
 		if ("memory".equals(type)) {
 			setStaticInstance(RecordStorageInMemoryReadFromDisk
-					.createRecordStorageOnDiskWithBasePath(basePath));
+					.createRecordStorageOnDiskWithBasePathAndSettings(basePath, settings));
+		} else if ("writeAheadLog".equals(type)) {
+			setStaticInstance(RecordStorageOnDiskWithWriteAheadLog
+					.createRecordStorageOnDiskWithBasePathAndSettings(basePath, settings));
 		} else {
-			setStaticInstance(RecordStorageOnDisk.createRecordStorageOnDiskWithBasePath(basePath));
+			setStaticInstance(RecordStorageOnDisk
+					.createRecordStorageOnDiskWithBasePathAndSettings(basePath, settings));
+		}
+	}
+
+	private RecordStorageOnDiskSettings createSettings() {
+		RecordStorageOnDiskSettings settings = RecordStorageOnDiskSettings.usingDefaults();
+		possiblySetIntSetting("writeAheadLogSyncBatchSize",
+				settings::withWriteAheadLogSyncBatchSize);
+		possiblySetIntSetting("writeAheadLogCompactAfterNoOfEntries",
+				settings::withWriteAheadLogCompactAfterNoOfEntries);
+		possiblySetIntSetting("writeAheadLogCompactionIntervalInSeconds",
+				settings::withWriteAheadLogCompactionIntervalInSeconds);
+		possiblySetIntSetting("writeAheadLogSyncIntervalInMillis",
+				settings::withWriteAheadLogSyncIntervalInMillis);
+		possiblySetIntSetting("loadParallelism", settings::withLoadParallelism);
+		possiblySetBooleanSetting("streamingRecordFileWrites",
+				settings::withStreamingRecordFileWrites);
+		possiblySetBooleanSetting("binaryStorageFiles", settings::withBinaryStorageFiles);
+		possiblySetBooleanSetting("lazyRecordLoading", settings::withLazyRecordLoading);
+		possiblySetBooleanSetting("mappedRecordFileCopies",
+				settings::withMappedRecordFileCopies);
+		possiblySetIntSetting("recordCacheSize", settings::withRecordCacheSize);
+		possiblySetBooleanSetting("compactRecords", settings::withCompactRecords);
+		possiblySetBooleanSetting("immutableRecords", settings::withImmutableRecords);
+		return settings;
+	}
+
+	private void possiblySetBooleanSetting(String parameterName, Consumer<Boolean> setting) {
+		if (initInfo.containsKey(parameterName)) {
+			String parameter = tryToGetInitParameter(parameterName);
+			setting.accept(tryToParseBooleanParameter(parameterName, parameter));
+		}
+	}
+
+	private boolean tryToParseBooleanParameter(String parameterName, String parameter) {
+		if (!"true".equals(parameter) && !"false".equals(parameter)) {
+			String errorMessage = "InitInfo must contain true or false for " + parameterName;
+			log.logFatalUsingMessage(errorMessage);
+			throw DataStorageException.withMessage(errorMessage);
+		}
+		return Boolean.parseBoolean(parameter);
+	}
+
+	private void possiblySetIntSetting(String parameterName, IntConsumer setting) {
+		if (initInfo.containsKey(parameterName)) {
+			String parameter = tryToGetInitParameter(parameterName);
+			setting.accept(tryToParseIntParameter(parameterName, parameter));
+		}
+	}
+
+	private int tryToParseIntParameter(String parameterName, String parameter) {
+		try {
+			return Integer.parseInt(parameter);
+		} catch (NumberFormatException e) {
+			String errorMessage = "InitInfo must contain a number for " + parameterName;
+			log.logFatalUsingMessage(errorMessage);
+			throw DataStorageException.withMessageAndException(errorMessage, e);
 		}
 	}
 
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+public final class RecordStorageOnDiskSettings {
+	private int writeAheadLogSyncBatchSize = 1;
+	private int writeAheadLogCompactAfterNoOfEntries = 1000;
+	private int writeAheadLogCompactionIntervalInSeconds = 60;
+	private int writeAheadLogSyncIntervalInMillis = 1000;
+	private int loadParallelism = 1;
+	private boolean streamingRecordFileWrites = false;
+	private boolean binaryStorageFiles = false;
+	private boolean lazyRecordLoading = false;
+	private boolean mappedRecordFileCopies = false;
+	private int recordCacheSize = 10000;
+	private boolean compactRecords = false;
+	private boolean immutableRecords = false;
+
+	public static RecordStorageOnDiskSettings usingDefaults() {
+		return new RecordStorageOnDiskSettings();
+	}
+
+	private RecordStorageOnDiskSettings() {
+	}
+
+	public RecordStorageOnDiskSettings withWriteAheadLogSyncBatchSize(int syncBatchSize) {
+		throwErrorIfNotPositive("writeAheadLogSyncBatchSize", syncBatchSize);
+		writeAheadLogSyncBatchSize = syncBatchSize;
+		return this;
+	}
+
+	public RecordStorageOnDiskSettings withWriteAheadLogCompactAfterNoOfEntries(
+			int compactAfterNoOfEntries) {
+		throwErrorIfNotPositive("writeAheadLogCompactAfterNoOfEntries", compactAfterNoOfEntries);
+		writeAheadLogCompactAfterNoOfEntries = compactAfterNoOfEntries;
+		return this;
+	}
+
+	public RecordStorageOnDiskSettings withWriteAheadLogCompactionIntervalInSeconds(
+			int compactionIntervalInSeconds) {
+		writeAheadLogCompactionIntervalInSeconds = compactionIntervalInSeconds;
+		return this;
+	}
+
+	public RecordStorageOnDiskSettings withWriteAheadLogSyncIntervalInMillis(
+			int syncIntervalInMillis) {
+		writeAheadLogSyncIntervalInMillis = syncIntervalInMillis;
+		return this;
+	}
+
+	public RecordStorageOnDiskSettings withLoadParallelism(int parallelism) {
+		throwErrorIfNotPositive("loadParallelism", parallelism);
+		loadParallelism = parallelism;
+		return this;
+	}
+
+	public RecordStorageOnDiskSettings withStreamingRecordFileWrites(
+			boolean streamingRecordFileWrites) {
+		this.streamingRecordFileWrites = streamingRecordFileWrites;
+		return this;
+	}
+
+	public RecordStorageOnDiskSettings withBinaryStorageFiles(boolean binaryStorageFiles) {
+		this.binaryStorageFiles = binaryStorageFiles;
+		return this;
+	}
+
+	public RecordStorageOnDiskSettings withLazyRecordLoading(boolean lazyRecordLoading) {
+		this.lazyRecordLoading = lazyRecordLoading;
+		return this;
+	}
+
+	public RecordStorageOnDiskSettings withMappedRecordFileCopies(
+			boolean mappedRecordFileCopies) {
+		this.mappedRecordFileCopies = mappedRecordFileCopies;
+		return this;
+	}
+
+	public RecordStorageOnDiskSettings withRecordCacheSize(int noOfRecords) {
+		throwErrorIfNotPositive("recordCacheSize", noOfRecords);
+		recordCacheSize = noOfRecords;
+		return this;
+	}
+
+	public RecordStorageOnDiskSettings withCompactRecords(boolean compactRecords) {
+		this.compactRecords = compactRecords;
+		return this;
+	}
+
+	public RecordStorageOnDiskSettings withImmutableRecords(boolean immutableRecords) {
+		this.immutableRecords = immutableRecords;
+		return this;
+	}
+
+	private void throwErrorIfNotPositive(String name, int value) {
+		if (value < 1) {
+			throw DataStorageException.withMessage(name + " must be larger than zero");
+		}
+	}
+
+	public int getWriteAheadLogSyncBatchSize() {
+		return writeAheadLogSyncBatchSize;
+	}
+
+	public int getWriteAheadLogCompactAfterNoOfEntries() {
+		return writeAheadLogCompactAfterNoOfEntries;
+	}
+
+	public int getWriteAheadLogCompactionIntervalInSeconds() {
+		return writeAheadLogCompactionIntervalInSeconds;
+	}
+
+	public int getWriteAheadLogSyncIntervalInMillis() {
+		return writeAheadLogSyncIntervalInMillis;
+	}
+
+	public int getLoadParallelism() {
+		return loadParallelism;
+	}
+
+	public boolean useStreamingRecordFileWrites() {
+		return streamingRecordFileWrites;
+	}
+
+	public boolean useBinaryStorageFiles() {
+		return binaryStorageFiles;
+	}
+
+	public boolean useLazyRecordLoading() {
+		return lazyRecordLoading;
+	}
+
+	public boolean useMappedRecordFileCopies() {
+		return mappedRecordFileCopies;
+	}
+
+	public int getRecordCacheSize() {
+		return recordCacheSize;
+	}
+
+	public boolean useCompactRecords() {
+		return compactRecords;
+	}
+
+	public boolean useImmutableRecords() {
+		return immutableRecords;
+	}
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import se.uu.ub.cora.data.DataAtomic;
+import se.uu.ub.cora.data.DataAtomicProvider;
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.data.DataGroupProvider;
+import se.uu.ub.cora.data.converter.DataToJsonConverterProvider;
+import se.uu.ub.cora.logger.LoggerProvider;
+import se.uu.ub.cora.storage.MetadataStorage;
+import se.uu.ub.cora.storage.RecordStorage;
+
+public class RecordStorageOnDiskWithWriteAheadLog extends RecordStorageOnDisk
+		implements RecordStorage, MetadataStorage {
+	private static final String OPERATION = "operation";
+	private static final String CREATE = "create";
+	private static final String UPDATE = "update";
+	private static final String DELETE = "delete";
+	private static final String RECORD_TYPE_NAME = "recordType";
+	private static final String RECORD_ID = "recordId";
+	private static final String DATA_DIVIDER = "dataDivider";
+	private static final String RECORD = "record";
+	private static final String COLLECTED_TERMS = "collectedTerms";
+	private static final String LINK_LIST = "linkList";
+	private RecordStorageOnDiskSettings settings;
+	private WriteAheadLog writeAheadLog;
+	private Map<String, Set<String>> dataDividersToWriteByRecordType = new HashMap<>();
+	private int noOfEntriesSinceCompaction = 0;
+	private ScheduledExecutorService backgroundExecutor;
+
+	public static RecordStorageOnDiskWithWriteAheadLog createRecordStorageOnDiskWithBasePathAndSettings(
+			String basePath, RecordStorageOnDiskSettings settings) {
+		return new RecordStorageOnDiskWithWriteAheadLog(basePath, settings);
+	}
+
+	protected RecordStorageOnDiskWithWriteAheadLog(String basePath,
+			RecordStorageOnDiskSettings settings) {
+		super(basePath, settings);
+		this.settings = settings;
+		writeAheadLog = WriteAheadLog.usingDirectoryAndSyncBatchSize(
+				Paths.get(basePath, WRITE_AHEAD_LOG_DIR), settings.getWriteAheadLogSyncBatchSize());
+		replayWriteAheadLog();
+		possiblyStartBackgroundCompaction();
+		possiblyStartBackgroundSync();
+	}
+
+	private void replayWriteAheadLog() {
+		List<String> entries = writeAheadLog.readEntries();
+		for (int entryNo = 0; entryNo < entries.size(); entryNo++) {
+			replayEntryUnlessTruncatedLastEntry(entries, entryNo);
+		}
+		if (writeAheadLog.hasSegments()) {
+			compact();
+		}
+	}
+
+	private void replayEntryUnlessTruncatedLastEntry(List<String> entries, int entryNo) {
+		DataGroup entry;
+		try {
+			entry = convertJsonStringToDataGroup(entries.get(entryNo));
+		} catch (RuntimeException e) {
+			throwErrorIfNotLastEntry(entries, entryNo, e);
+			return;
+		}
+		replayEntry(entry);
+	}
+
+	private void throwErrorIfNotLastEntry(List<String> entries, int entryNo, RuntimeException e) {
+		boolean isLastEntry = entryNo == entries.size() - 1;
+		if (!isLastEntry) {
+			throw DataStorageException
+					.withMessageAndException("can not read write ahead log entry: " + e, e);
+		}
+	}
+
+	private void replayEntry(DataGroup entry) {
+		String operation = entry.getFirstAtomicValueWithNameInData(OPERATION);
+		String recordType = entry.getFirstAtomicValueWithNameInData(RECORD_TYPE_NAME);
+		String recordId = entry.getFirstAtomicValueWithNameInData(RECORD_ID);
+		if (DELETE.equals(operation)) {
+			replayDelete(recordType, recordId);
+		} else {
+			replayCreateOrUpdate(entry, recordType, recordId);
+		}
+	}
+
+	private void replayDelete(String recordType, String recordId) {
+		if (recordExistsInStorage(recordType, recordId)) {
+			super.deleteByTypeAndId(recordType, recordId);
+		}
+	}
+
+	private boolean recordExistsInStorage(String recordType, String recordId) {
+		return records.containsKey(recordType) && records.get(recordType).containsKey(recordId);
+	}
+
+	private void replayCreateOrUpdate(DataGroup entry, String recordType, String recordId) {
+		String dataDivider = entry.getFirstAtomicValueWithNameInData(DATA_DIVIDER);
+		DataGroup record = extractWrappedDataGroup(entry, RECORD);
+		DataGroup collectedTerms = extractWrappedDataGroup(entry, COLLECTED_TERMS);
+		DataGroup linkList = extractWrappedDataGroup(entry, LINK_LIST);
+		if (recordExistsInStorage(recordType, recordId)) {
+			super.update(recordType, recordId, record, collectedTerms, linkList, dataDivider);
+		} else {
+			super.create(recordType, recordId, record, collectedTerms, linkList, dataDivider);
+		}
+	}
+
+	private DataGroup extractWrappedDataGroup(DataGroup entry, String wrapperName) {
+		DataGroup wrapper = entry.getFirstGroupWithNameInData(wrapperName);
+		return (DataGroup) wrapper.getChildren().get(0);
+	}
+
+	private void possiblyStartBackgroundCompaction() {
+		int interval = settings.getWriteAheadLogCompactionIntervalInSeconds();
+		if (interval > 0) {
+			getBackgroundExecutor().scheduleWithFixedDelay(this::tryToCompactInBackground,
+					interval, interval, TimeUnit.SECONDS);
+		}
+	}
+
+	private ScheduledExecutorService getBackgroundExecutor() {
+		if (null == backgroundExecutor) {
+			backgroundExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "writeAheadLogBackground");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return backgroundExecutor;
+	}
+
+	private void possiblyStartBackgroundSync() {
+		int interval = settings.getWriteAheadLogSyncIntervalInMillis();
+		if (interval > 0 && settings.getWriteAheadLogSyncBatchSize() > 1) {
+			getBackgroundExecutor().scheduleWithFixedDelay(this::tryToSyncInBackground, interval,
+					interval, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void tryToSyncInBackground() {
+		try {
+			syncWriteAheadLog();
+		} catch (Exception e) {
+			LoggerProvider.getLoggerForClass(RecordStorageOnDiskWithWriteAheadLog.class)
+					.logErrorUsingMessageAndException("background sync failed", e);
+		}
+	}
+
+	private synchronized void syncWriteAheadLog() {
+		writeAheadLog.sync();
+	}
+
+	private void tryToCompactInBackground() {
+		try {
+			compactIfChanged();
+		} catch (Exception e) {
+			LoggerProvider.getLoggerForClass(RecordStorageOnDiskWithWriteAheadLog.class)
+					.logErrorUsingMessageAndException("background compaction failed", e);
+		}
+	}
+
+	private synchronized void compactIfChanged() {
+		if (noOfEntriesSinceCompaction > 0) {
+			compact();
+		}
+	}
+
+	@Override
+	public synchronized void create(String recordType, String recordId, DataGroup record,
+			DataGroup collectedTerms, DataGroup linkList, String dataDivider) {
+		runUsingReadLock(() -> checkNoConflictOnRecordId(recordType, recordId));
+		DataGroup entry = createEntry(CREATE, recordType, recordId);
+		addRecordPartsToEntry(entry, record, collectedTerms, linkList, dataDivider);
+		appendEntryToWriteAheadLogAndApply(entry, () -> super.create(recordType, recordId,
+				record, collectedTerms, linkList, dataDivider));
+		possiblyCompactAfterNoOfEntries();
+	}
+
+	private DataGroup createEntry(String operation, String recordType, String recordId) {
+		DataGroup entry = DataGroupProvider.getDataGroupUsingNameInData("writeAheadLogEntry");
+		entry.addChild(createAtomic(OPERATION, operation));
+		entry.addChild(createAtomic(RECORD_TYPE_NAME, recordType));
+		entry.addChild(createAtomic(RECORD_ID, recordId));
+		return entry;
+	}
+
+	private void addRecordPartsToEntry(DataGroup entry, DataGroup record,
+			DataGroup collectedTerms, DataGroup linkList, String dataDivider) {
+		entry.addChild(createAtomic(DATA_DIVIDER, dataDivider));
+		entry.addChild(wrapDataGroup(RECORD, record));
+		entry.addChild(wrapDataGroup(COLLECTED_TERMS, collectedTerms));
+		entry.addChild(wrapDataGroup(LINK_LIST, linkList));
+	}
+
+	private DataAtomic createAtomic(String nameInData, String value) {
+		return DataAtomicProvider.getDataAtomicUsingNameInDataAndValue(nameInData, value);
+	}
+
+	private DataGroup wrapDataGroup(String wrapperName, DataGroup dataGroup) {
+		DataGroup wrapper = DataGroupProvider.getDataGroupUsingNameInData(wrapperName);
+		wrapper.addChild(dataGroup);
+		return wrapper;
+	}
+
+	private void appendEntryToWriteAheadLogAndApply(DataGroup entry, Runnable change) {
+		String json = DataToJsonConverterProvider.getConverterUsingDataPart(entry)
+				.toJsonCompactFormat();
+		writeAheadLog.append(json);
+		try {
+			change.run();
+		} catch (RuntimeException e) {
+			writeAheadLog.removeLastEntry();
+			throw e;
+		}
+		noOfEntriesSinceCompaction++;
+	}
+
+	private void possiblyCompactAfterNoOfEntries() {
+		if (noOfEntriesSinceCompaction >= settings.getWriteAheadLogCompactAfterNoOfEntries()) {
+			compact();
+		}
+	}
+
+	@Override
+	public synchronized void update(String recordType, String recordId, DataGroup record,
+			DataGroup collectedTerms, DataGroup linkList, String dataDivider) {
+		runUsingReadLock(() -> checkRecordExists(recordType, recordId));
+		DataGroup entry = createEntry(UPDATE, recordType, recordId);
+		addRecordPartsToEntry(entry, record, collectedTerms, linkList, dataDivider);
+		appendEntryToWriteAheadLogAndApply(entry, () -> super.update(recordType, recordId,
+				record, collectedTerms, linkList, dataDivider));
+		markDataDividerAsChanged(recordType, dataDivider);
+		possiblyCompactAfterNoOfEntries();
+	}
+
+	@Override
+	public synchronized void deleteByTypeAndId(String recordType, String recordId) {
+		runUsingReadLock(() -> checkRecordExists(recordType, recordId));
+		appendEntryToWriteAheadLogAndApply(createEntry(DELETE, recordType, recordId),
+				() -> super.deleteByTypeAndId(recordType, recordId));
+		possiblyCompactAfterNoOfEntries();
+	}
+
+	@Override
+	protected void writeDataToDisk(String recordType, String dataDivider) {
+		markDataDividerAsChanged(recordType, dataDivider);
+	}
+
+	private void markDataDividerAsChanged(String recordType, String dataDivider) {
+		dataDividersToWriteByRecordType.computeIfAbsent(recordType, key -> new HashSet<>())
+				.add(dataDivider);
+	}
+
+	public synchronized void compact() {
+		writeToDiskUsingReadLock(this::writeChangedRecordTypesToDisk);
+		writeAheadLog.startNewSegmentAndRemoveOldSegments();
+		noOfEntriesSinceCompaction = 0;
+	}
+
+	private void writeChangedRecordTypesToDisk() {
+		for (Entry<String, Set<String>> entry : dataDividersToWriteByRecordType.entrySet()) {
+			writeChangedDataDividersForRecordTypeToDisk(entry.getKey(), entry.getValue());
+		}
+		dataDividersToWriteByRecordType.clear();
+	}
+
+	private void writeChangedDataDividersForRecordTypeToDisk(String recordType,
+			Set<String> dataDividers) {
+		for (String dataDivider : dataDividers) {
+			if (recordTypeFileExistsOnDisk(recordType, dataDivider)
+					|| recordsExistForRecordTypeAndDataDivider(recordType, dataDivider)) {
+				super.writeDataToDisk(recordType, dataDivider);
+			}
+		}
+	}
+
+	private boolean recordsExistForRecordTypeAndDataDivider(String recordType,
+			String dataDivider) {
+		if (!records.containsKey(recordType)) {
+			return false;
+		}
+		for (DividerGroup dividerGroup : records.get(recordType).values()) {
+			if (dividerGroup.dataDivider.equals(dataDivider)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public synchronized void stopBackgroundCompaction() {
+		if (null != backgroundExecutor) {
+			backgroundExecutor.shutdown();
+		}
+		writeAheadLog.sync();
+	}
+
+	WriteAheadLog getWriteAheadLog() {
+		// needed for test
+		return writeAheadLog;
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import se.uu.ub.cora.data.DataGroup;
+
+final class RecordTypeHierarchy {
+	private static final String PARENT_ID = "parentId";
+	private static final String ABSTRACT = "abstract";
+	private Map<String, List<String>> childrenByParent = new HashMap<>();
+	private Map<String, Set<String>> implementingRecordTypesByType = new HashMap<>();
+	private Set<String> abstractRecordTypes = new HashSet<>();
+
+	static RecordTypeHierarchy usingRecordTypes(Map<String, DividerGroup> recordTypes) {
+		return new RecordTypeHierarchy(recordTypes);
+	}
+
+	private RecordTypeHierarchy(Map<String, DividerGroup> recordTypes) {
+		if (null != recordTypes) {
+			collectParentsAndAbstractRecordTypes(recordTypes);
+			collectImplementingRecordTypesForAllParents();
+		}
+	}
+
+	private void collectParentsAndAbstractRecordTypes(Map<String, DividerGroup> recordTypes) {
+		for (Entry<String, DividerGroup> entry : recordTypes.entrySet()) {
+			String recordTypeId = entry.getKey();
+			DataGroup recordType = entry.getValue().getDataGroup();
+			possiblyAddAsChildOfParent(recordTypeId, recordType);
+			if (recordTypeIsAbstract(recordType)) {
+				abstractRecordTypes.add(recordTypeId);
+			}
+		}
+	}
+
+	private boolean recordTypeIsAbstract(DataGroup recordType) {
+		return recordType.containsChildWithNameInData(ABSTRACT)
+				&& "true".equals(recordType.getFirstAtomicValueWithNameInData(ABSTRACT));
+	}
+
+	private void possiblyAddAsChildOfParent(String recordTypeId, DataGroup recordType) {
+		if (recordType.containsChildWithNameInData(PARENT_ID)) {
+			String parentId = recordType.getFirstGroupWithNameInData(PARENT_ID)
+					.getFirstAtomicValueWithNameInData("linkedRecordId");
+			childrenByParent.computeIfAbsent(parentId, key -> new ArrayList<>())
+					.add(recordTypeId);
+		}
+	}
+
+	private void collectImplementingRecordTypesForAllParents() {
+		for (String parentId : childrenByParent.keySet()) {
+			Set<String> implementingRecordTypes = new LinkedHashSet<>();
+			addChildrenAndTheirChildren(parentId, implementingRecordTypes);
+			implementingRecordTypesByType.put(parentId,
+					Collections.unmodifiableSet(implementingRecordTypes));
+		}
+	}
+
+	private void addChildrenAndTheirChildren(String parentId,
+			Set<String> implementingRecordTypes) {
+		for (String childId : childrenByParent.getOrDefault(parentId,
+				Collections.emptyList())) {
+			if (implementingRecordTypes.add(childId)) {
+				addChildrenAndTheirChildren(childId, implementingRecordTypes);
+			}
+		}
+	}
+
+	Set<String> getImplementingRecordTypes(String recordType) {
+		return implementingRecordTypesByType.getOrDefault(recordType, Collections.emptySet());
+	}
+
+	boolean isAbstract(String recordType) {
+		return abstractRecordTypes.contains(recordType);
+	}
+}
@@ -25,7 +25,7 @@ public final class StorageTermData {
 
 	private StorageTermData(String value, String dataDivider) {
 		this.value = value;
-		this.dataDivider = dataDivider;
+		this.dataDivider = SymbolTable.intern(dataDivider);
 	}
 
 	public static StorageTermData withValueAndDataDivider(String value, String dataDivider) {
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Pattern;
+
+/**
+ * Stores streams once per content as blobs named by their digest, each stream path is a hard link
+ * to its blob. A blob is removed when its link count shows that no path other than the one being
+ * replaced or removed links to it, and at startup when only the blob directory links to it. Any
+ * hard link to a blob made outside this store, such as by a backup using hard links, therefore
+ * keeps the blob until that link is removed and the store is started again.
+ */
+final class StreamBlobStore {
+	static final String TEMP_LINK_FILE_ENDING = ".link";
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	private static final String TEMP_FILE_ENDING = ".tmp";
+	private static final String LINK_COUNT_ATTRIBUTE = "unix:nlink";
+	private static final String HARD_LINKS_NOT_SUPPORTED = "content addressed storage needs a "
+			+ "file system with hard links and unix:nlink: ";
+	private static final Pattern DIGEST_PATTERN = Pattern.compile("[0-9a-f]{64}");
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	private final Path blobDirectory;
+	private final Path digestDirectory;
+	private final StreamWriter streamWriter;
+
+	interface StreamWriter {
+		long writeStreamToPath(InputStream stream, Path path) throws IOException;
+	}
+
+	static StreamBlobStore usingBlobDirectoryDigestDirectoryAndStreamWriter(Path blobDirectory,
+			Path digestDirectory, StreamWriter streamWriter) {
+		return new StreamBlobStore(blobDirectory, digestDirectory, streamWriter);
+	}
+
+	private StreamBlobStore(Path blobDirectory, Path digestDirectory,
+			StreamWriter streamWriter) {
+		this.blobDirectory = blobDirectory;
+		this.digestDirectory = digestDirectory.toAbsolutePath();
+		this.streamWriter = streamWriter;
+		tryToPrepareBlobDirectory();
+	}
+
+	private void tryToPrepareBlobDirectory() {
+		try {
+			Files.createDirectories(blobDirectory);
+			throwErrorIfHardLinksAreNotSupported();
+			removeFilesLeftFromEarlierRun();
+		} catch (IOException e) {
+			throw DataStorageException
+					.withMessageAndException("can not prepare blob directory: " + e, e);
+		}
+	}
+
+	private void throwErrorIfHardLinksAreNotSupported() throws IOException {
+		Path testPath = Files.createTempFile(blobDirectory, ".", TEMP_FILE_ENDING);
+		Path testLinkPath = testPath.resolveSibling(testPath.getFileName() + TEMP_FILE_ENDING);
+		try {
+			Files.createLink(testLinkPath, testPath);
+			throwErrorIfLinkIsNotCounted(testPath);
+		} catch (UnsupportedOperationException | IllegalArgumentException
+				| FileSystemException e) {
+			throw DataStorageException.withMessageAndException(HARD_LINKS_NOT_SUPPORTED + e, e);
+		} finally {
+			Files.deleteIfExists(testLinkPath);
+			Files.deleteIfExists(testPath);
+		}
+	}
+
+	private void throwErrorIfLinkIsNotCounted(Path testPath) throws IOException {
+		int noOfLinks = countLinks(testPath);
+		if (noOfLinks != 2) {
+			throw DataStorageException
+					.withMessage(HARD_LINKS_NOT_SUPPORTED + "found " + noOfLinks + " links");
+		}
+	}
+
+	private void removeFilesLeftFromEarlierRun() throws IOException {
+		try (DirectoryStream<Path> blobPaths = Files.newDirectoryStream(blobDirectory)) {
+			for (Path blobPath : blobPaths) {
+				possiblyRemoveFileLeftFromEarlierRun(blobPath);
+			}
+		}
+	}
+
+	private void possiblyRemoveFileLeftFromEarlierRun(Path blobPath) throws IOException {
+		if (isTempFile(blobPath) || countLinks(blobPath) == 1) {
+			Files.delete(blobPath);
+		}
+	}
+
+	private boolean isTempFile(Path blobPath) {
+		return blobPath.getFileName().toString().endsWith(TEMP_FILE_ENDING);
+	}
+
+	long storeStreamAsBlobLinkedFromPath(InputStream stream, Path path) throws IOException {
+		MessageDigest messageDigest = createMessageDigest();
+		Path tempBlobPath = Files.createTempFile(blobDirectory, ".", TEMP_FILE_ENDING);
+		try {
+			long size = streamWriter.writeStreamToPath(
+					new DigestInputStream(stream, messageDigest), tempBlobPath);
+			String digest = convertToHex(messageDigest.digest());
+			moveTempBlobIntoPlaceAndLinkFromPath(tempBlobPath, digest, path);
+			return size;
+		} finally {
+			Files.deleteIfExists(tempBlobPath);
+		}
+	}
+
+	private MessageDigest createMessageDigest() {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw DataStorageException.withMessageAndException(
+					"can not create digest for streams: " + e, e);
+		}
+	}
+
+	private String convertToHex(byte[] digest) {
+		char[] hex = new char[digest.length * 2];
+		for (int i = 0; i < digest.length; i++) {
+			hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+			hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+		}
+		return new String(hex);
+	}
+
+	private synchronized void moveTempBlobIntoPlaceAndLinkFromPath(Path tempBlobPath,
+			String digest, Path path) throws IOException {
+		Path blobPath = blobDirectory.resolve(digest);
+		moveTempBlobIntoPlaceUnlessAlreadyStored(tempBlobPath, blobPath);
+		linkPathToBlob(path, digest, blobPath);
+	}
+
+	private void moveTempBlobIntoPlaceUnlessAlreadyStored(Path tempBlobPath, Path blobPath)
+			throws IOException {
+		if (!Files.exists(blobPath)) {
+			moveAtomically(tempBlobPath, blobPath);
+		}
+	}
+
+	private void moveAtomically(Path source, Path target) throws IOException {
+		DurableFiles.moveAtomicallyAndSyncDirectory(source, target);
+	}
+
+	private void linkPathToBlob(Path path, String digest, Path blobPath) throws IOException {
+		if (Files.exists(path) && Files.isSameFile(path, blobPath)) {
+			writeDigestForPath(path, digest);
+			return;
+		}
+		Path previousBlobPath = findBlobOnlyLinkedFromPath(path);
+		Path tempLinkPath = path
+				.resolveSibling("." + path.getFileName() + TEMP_LINK_FILE_ENDING);
+		Files.deleteIfExists(tempLinkPath);
+		Files.createLink(tempLinkPath, blobPath);
+		writeDigestForPath(path, digest);
+		moveAtomically(tempLinkPath, path);
+		possiblyRemoveUnlinkedBlob(previousBlobPath);
+	}
+
+	private void writeDigestForPath(Path path, String digest) throws IOException {
+		Path digestPath = getDigestPathForPath(path);
+		Files.createDirectories(digestPath.getParent());
+		Files.write(digestPath, digest.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private Path getDigestPathForPath(Path path) {
+		Path basePath = digestDirectory.getParent();
+		return digestDirectory.resolve(basePath.relativize(path.toAbsolutePath()));
+	}
+
+	private Path findBlobOnlyLinkedFromPath(Path path) throws IOException {
+		if (!Files.exists(path) || countLinks(path) != 2) {
+			return null;
+		}
+		Path recordedBlobPath = readRecordedBlobPathForPath(path);
+		if (blobIsLinkedFromPath(recordedBlobPath, path)) {
+			return recordedBlobPath;
+		}
+		Path computedBlobPath = blobDirectory.resolve(computeDigestForFile(path));
+		if (blobIsLinkedFromPath(computedBlobPath, path)) {
+			return computedBlobPath;
+		}
+		return null;
+	}
+
+	private Path readRecordedBlobPathForPath(Path path) throws IOException {
+		Path digestPath = getDigestPathForPath(path);
+		if (!Files.exists(digestPath)) {
+			return null;
+		}
+		String digest = new String(Files.readAllBytes(digestPath), StandardCharsets.US_ASCII);
+		if (!DIGEST_PATTERN.matcher(digest).matches()) {
+			return null;
+		}
+		return blobDirectory.resolve(digest);
+	}
+
+	private boolean blobIsLinkedFromPath(Path blobPath, Path path) throws IOException {
+		return null != blobPath && Files.exists(blobPath) && Files.isSameFile(path, blobPath);
+	}
+
+	private int countLinks(Path path) throws IOException {
+		return (Integer) Files.getAttribute(path, LINK_COUNT_ATTRIBUTE);
+	}
+
+	private String computeDigestForFile(Path path) throws IOException {
+		MessageDigest messageDigest = createMessageDigest();
+		try (InputStream stream = new DigestInputStream(Files.newInputStream(path),
+				messageDigest)) {
+			readToEnd(stream);
+		}
+		return convertToHex(messageDigest.digest());
+	}
+
+	private void readToEnd(InputStream stream) throws IOException {
+		byte[] buffer = new byte[READ_BUFFER_SIZE];
+		int read;
+		do {
+			read = stream.read(buffer);
+		} while (read != -1);
+	}
+
+	private void possiblyRemoveUnlinkedBlob(Path blobPath) throws IOException {
+		if (null != blobPath && countLinks(blobPath) == 1) {
+			Files.delete(blobPath);
+		}
+	}
+
+	synchronized void removeLinkFromPath(Path path) throws IOException {
+		Path blobPath = findBlobOnlyLinkedFromPath(path);
+		Files.delete(path);
+		Files.deleteIfExists(getDigestPathForPath(path));
+		possiblyRemoveUnlinkedBlob(blobPath);
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+final class StreamDirectoryLayout {
+	static final int MAX_DIRECTORY_LEVELS = 4;
+	private static final int HEX_DIGITS_PER_LEVEL = 2;
+	private static final int NO_OF_HEX_DIGITS_IN_HASH = 8;
+	private final int directoryLevels;
+
+	static StreamDirectoryLayout usingDirectoryLevels(int directoryLevels) {
+		return new StreamDirectoryLayout(directoryLevels);
+	}
+
+	private StreamDirectoryLayout(int directoryLevels) {
+		this.directoryLevels = directoryLevels;
+	}
+
+	Path getPathForStream(Path pathByDataDivider, String streamId) {
+		Path directory = pathByDataDivider;
+		String hash = createHashForStreamId(streamId);
+		for (int level = 0; level < directoryLevels; level++) {
+			int start = level * HEX_DIGITS_PER_LEVEL;
+			directory = directory.resolve(hash.substring(start, start + HEX_DIGITS_PER_LEVEL));
+		}
+		return directory.resolve(streamId);
+	}
+
+	private String createHashForStreamId(String streamId) {
+		CRC32 crc = new CRC32();
+		crc.update(streamId.getBytes(StandardCharsets.UTF_8));
+		String hex = Long.toHexString(crc.getValue());
+		StringBuilder hash = new StringBuilder(NO_OF_HEX_DIGITS_IN_HASH);
+		for (int i = hex.length(); i < NO_OF_HEX_DIGITS_IN_HASH; i++) {
+			hash.append('0');
+		}
+		return hash.append(hex).toString();
+	}
+
+	Path getLegacyPathForStream(Path pathByDataDivider, String streamId) {
+		return pathByDataDivider.resolve(streamId);
+	}
+
+	boolean usesDirectories() {
+		return directoryLevels > 0;
+	}
+}
@@ -20,30 +20,105 @@
 
 package se.uu.ub.cora.basicstorage;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemException;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 import se.uu.ub.cora.storage.StreamStorage;
 
 public final class StreamStorageOnDisk implements StreamStorage {
 
 	private static final String CAN_NOT_WRITE_FILES_TO_DISK = "can not write files to disk: ";
-	private static final int BUFFER_LENGTH = 1024;
+	private static final String CAN_NOT_READ_FILES_FROM_DISK = "can not read files from disk: ";
+	private static final String TEMP_FILE_ENDING = ".tmp";
+	private static final String BLOB_DIRECTORY = ".blobs";
+	private static final String DIGEST_DIRECTORY = ".blobDigests";
 	private String basePath;
+	private StreamStorageOnDiskSettings settings;
+	private StreamBlobStore blobStore;
+	private StreamDirectoryLayout directoryLayout;
 
-	private StreamStorageOnDisk(String basePath) {
+	private StreamStorageOnDisk(String basePath, StreamStorageOnDiskSettings settings) {
 		this.basePath = basePath;
+		this.settings = settings;
+		directoryLayout = StreamDirectoryLayout
+				.usingDirectoryLevels(settings.getDirectoryLevels());
 		if (basePathDoesNotExist(basePath)) {
 			createBaseDirectory(basePath);
 		}
+		// temp links are removed before the blob store is prepared, so that blobs only linked
+		// from them are removed with other unlinked blobs
+		removeFilesLeftFromEarlierRun();
+		possiblyCreateBlobStore();
+	}
+
+	private void removeFilesLeftFromEarlierRun() {
+		try {
+			removeFilesLeftFromEarlierRunInDirectory(Paths.get(basePath));
+		} catch (IOException e) {
+			throw DataStorageException.withMessageAndException(
+					"can not remove files left from earlier run: " + e, e);
+		}
+	}
+
+	private void removeFilesLeftFromEarlierRunInDirectory(Path directory) throws IOException {
+		try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory)) {
+			for (Path path : paths) {
+				possiblyRemoveFileLeftFromEarlierRun(path);
+			}
+		}
+	}
+
+	private void possiblyRemoveFileLeftFromEarlierRun(Path path) throws IOException {
+		if (isStreamDirectory(path)) {
+			removeFilesLeftFromEarlierRunInDirectory(path);
+		} else if (isTempFile(path) || isTempLinkFile(path)) {
+			Files.delete(path);
+		}
+	}
+
+	private boolean isStreamDirectory(Path path) {
+		return Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)
+				&& !path.equals(Paths.get(basePath, BLOB_DIRECTORY))
+				&& !path.equals(Paths.get(basePath, DIGEST_DIRECTORY));
+	}
+
+	private boolean isTempFile(Path path) {
+		String fileName = path.getFileName().toString();
+		return fileName.startsWith(".") && fileName.endsWith(TEMP_FILE_ENDING);
+	}
+
+	private boolean isTempLinkFile(Path path) {
+		String fileName = path.getFileName().toString();
+		return fileName.startsWith(".")
+				&& fileName.endsWith(StreamBlobStore.TEMP_LINK_FILE_ENDING);
+	}
+
+	private void possiblyCreateBlobStore() {
+		if (settings.useContentAddressedStorage()) {
+			blobStore = StreamBlobStore.usingBlobDirectoryDigestDirectoryAndStreamWriter(
+					Paths.get(basePath, BLOB_DIRECTORY), Paths.get(basePath, DIGEST_DIRECTORY),
+					this::storeStream);
+		}
 	}
 
 	public static StreamStorageOnDisk usingBasePath(String basePath) {
-		return new StreamStorageOnDisk(basePath);
+		return new StreamStorageOnDisk(basePath, StreamStorageOnDiskSettings.usingDefaults());
+	}
+
+	public static StreamStorageOnDisk usingBasePathAndSettings(String basePath,
+			StreamStorageOnDiskSettings settings) {
+		return new StreamStorageOnDisk(basePath, settings);
 	}
 
 	private boolean basePathDoesNotExist(String basePath) {
@@ -59,39 +134,133 @@ public final class StreamStorageOnDisk implements StreamStorage {
 		Path pathByDataDivider = Paths.get(basePath, dataDivider);
 		ensureStorageDirectoryExists(pathByDataDivider);
 
-		Path path = Paths.get(basePath, dataDivider, streamId);
-		return tryToStoreStream(stream, path);
+		Path path = directoryLayout.getPathForStream(pathByDataDivider, streamId);
+		possiblyCreateStreamDirectories(path.getParent());
+		long size = tryToStoreStream(stream, path);
+		possiblyRemoveLegacyStream(pathByDataDivider, streamId);
+		return size;
+	}
+
+	private void possiblyCreateStreamDirectories(Path streamDirectory) {
+		if (directoryLayout.usesDirectories()) {
+			try {
+				Files.createDirectories(streamDirectory);
+			} catch (IOException e) {
+				throw DataStorageException
+						.withMessageAndException(CAN_NOT_WRITE_FILES_TO_DISK + e, e);
+			}
+		}
+	}
+
+	private void possiblyRemoveLegacyStream(Path pathByDataDivider, String streamId) {
+		Path legacyPath = directoryLayout.getLegacyPathForStream(pathByDataDivider, streamId);
+		if (directoryLayout.usesDirectories() && Files.isRegularFile(legacyPath)) {
+			try {
+				removeStream(legacyPath);
+			} catch (IOException e) {
+				throw DataStorageException
+						.withMessageAndException(CAN_NOT_WRITE_FILES_TO_DISK + e, e);
+			}
+		}
 	}
 
 	long tryToStoreStream(InputStream stream, Path path) {
 		try {
-			return storeStream(stream, path);
+			throwErrorIfPathIsDirectory(path);
+			return storeStreamAsBlobOrUsingTempFile(stream, path);
 		} catch (IOException e) {
 			throw DataStorageException.withMessageAndException(CAN_NOT_WRITE_FILES_TO_DISK + e, e);
 		}
 	}
 
+	private long storeStreamAsBlobOrUsingTempFile(InputStream stream, Path path)
+			throws IOException {
+		if (null != blobStore) {
+			return blobStore.storeStreamAsBlobLinkedFromPath(stream, path);
+		}
+		return storeStreamUsingTempFile(stream, path);
+	}
+
+	private long storeStreamUsingTempFile(InputStream stream, Path path) throws IOException {
+		Path tempPath = Files.createTempFile(path.toAbsolutePath().getParent(),
+				"." + path.getFileName() + ".", TEMP_FILE_ENDING);
+		try {
+			long size = storeStream(stream, tempPath);
+			moveTempFileIntoPlace(tempPath, path);
+			return size;
+		} catch (IOException | RuntimeException e) {
+			removeTempFileAfterFailure(tempPath, e);
+			throw e;
+		}
+	}
+
+	private void throwErrorIfPathIsDirectory(Path path) throws FileSystemException {
+		if (Files.isDirectory(path)) {
+			throw new FileSystemException(path.toString(), null, "Is a directory");
+		}
+	}
+
 	private long storeStream(InputStream stream, Path path) throws IOException {
-		OutputStream outputStream = Files.newOutputStream(path);
-		long size = storeStreamUsingOutputStream(stream, outputStream);
-		outputStream.flush();
-		outputStream.close();
-		return size;
+		try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			long size = storeStreamUsingFileChannel(stream, fileChannel);
+			fileChannel.force(true);
+			return size;
+		}
+	}
+
+	private void moveTempFileIntoPlace(Path tempPath, Path path) throws IOException {
+		DurableFiles.moveAtomicallyAndSyncDirectory(tempPath, path);
+	}
+
+	private void removeTempFileAfterFailure(Path tempPath, Exception failure) {
+		try {
+			Files.deleteIfExists(tempPath);
+		} catch (IOException e) {
+			failure.addSuppressed(e);
+		}
+	}
+
+	private long storeStreamUsingFileChannel(InputStream stream, FileChannel fileChannel)
+			throws IOException {
+		if (stream instanceof FileInputStream) {
+			return transferFromFileChannel(((FileInputStream) stream).getChannel(), fileChannel);
+		}
+		return copyUsingBuffer(stream, fileChannel);
 	}
 
-	private long storeStreamUsingOutputStream(InputStream stream, OutputStream outputStream)
+	private long transferFromFileChannel(FileChannel source, FileChannel fileChannel)
 			throws IOException {
 		long size = 0;
-		byte[] bytes = new byte[BUFFER_LENGTH];
+		long transferred;
+		while ((transferred = fileChannel.transferFrom(source, size,
+				settings.getBufferSize())) > 0) {
+			size += transferred;
+		}
+		return size;
+	}
 
-		int written;
-		while ((written = stream.read(bytes)) != -1) {
-			outputStream.write(bytes, 0, written);
-			size += written;
+	private long copyUsingBuffer(InputStream stream, FileChannel fileChannel)
+			throws IOException {
+		long size = 0;
+		byte[] bytes = new byte[settings.getBufferSize()];
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		int read;
+		while ((read = stream.readNBytes(bytes, 0, bytes.length)) > 0) {
+			buffer.clear().limit(read);
+			writeBufferToChannel(buffer, fileChannel);
+			size += read;
 		}
 		return size;
 	}
 
+	private void writeBufferToChannel(ByteBuffer buffer, FileChannel fileChannel)
+			throws IOException {
+		while (buffer.hasRemaining()) {
+			fileChannel.write(buffer);
+		}
+	}
+
 	private void ensureStorageDirectoryExists(Path pathByDataDivider) {
 		if (storageDirectoryDoesNotExist(pathByDataDivider)) {
 			tryToCreateStorageDirectory(pathByDataDivider);
@@ -112,17 +281,117 @@ public final class StreamStorageOnDisk implements StreamStorage {
 
 	@Override
 	public InputStream retrieve(String streamId, String dataDivider) {
+		return tryToReadStream(getPathToExistingStream(streamId, dataDivider));
+	}
+
+	private Path getPathToExistingStream(String streamId, String dataDivider) {
 		Path pathByDataDivider = Paths.get(basePath, dataDivider);
 		if (storageDirectoryDoesNotExist(pathByDataDivider)) {
 			throw DataStorageException.withMessage("can not read stream from disk, no such folder");
 		}
 
-		Path path = Paths.get(basePath, dataDivider, streamId);
+		Path path = findStreamInLayoutOrLegacyLayout(pathByDataDivider, streamId);
 		if (storageDirectoryDoesNotExist(path)) {
 			throw DataStorageException
 					.withMessage("can not read stream from disk, no such " + "stream");
 		}
-		return tryToReadStream(path);
+		return path;
+	}
+
+	private Path findStreamInLayoutOrLegacyLayout(Path pathByDataDivider, String streamId) {
+		Path path = directoryLayout.getPathForStream(pathByDataDivider, streamId);
+		Path legacyPath = directoryLayout.getLegacyPathForStream(pathByDataDivider, streamId);
+		if (storageDirectoryDoesNotExist(path) && Files.isRegularFile(legacyPath)) {
+			return legacyPath;
+		}
+		return path;
+	}
+
+	public void delete(String streamId, String dataDivider) {
+		Path path = getPathToExistingStream(streamId, dataDivider);
+		try {
+			removeStream(path);
+		} catch (IOException e) {
+			throw DataStorageException
+					.withMessageAndException("can not delete stream from disk: " + e, e);
+		}
+	}
+
+	private void removeStream(Path path) throws IOException {
+		if (null != blobStore) {
+			blobStore.removeLinkFromPath(path);
+		} else {
+			Files.delete(path);
+		}
+	}
+
+	public long getSize(String streamId, String dataDivider) {
+		Path path = getPathToExistingStream(streamId, dataDivider);
+		try {
+			return Files.size(path);
+		} catch (IOException e) {
+			throw DataStorageException.withMessageAndException(CAN_NOT_READ_FILES_FROM_DISK + e,
+					e);
+		}
+	}
+
+	public FileChannel retrieveChannel(String streamId, String dataDivider) {
+		return tryToOpenChannel(getPathToExistingStream(streamId, dataDivider));
+	}
+
+	private FileChannel tryToOpenChannel(Path path) {
+		try {
+			return FileChannel.open(path, StandardOpenOption.READ);
+		} catch (IOException e) {
+			throw DataStorageException.withMessageAndException(CAN_NOT_READ_FILES_FROM_DISK + e,
+					e);
+		}
+	}
+
+	public InputStream retrieveRange(String streamId, String dataDivider, long offset,
+			long length) {
+		throwErrorIfRangeIsNegative(offset, length);
+		FileChannel channel = retrieveChannel(streamId, dataDivider);
+		try {
+			return createRangeInputStreamFromChannel(channel, offset, length);
+		} catch (DataStorageException e) {
+			closeChannelAfterFailure(channel, e);
+			throw e;
+		} catch (IOException e) {
+			closeChannelAfterFailure(channel, e);
+			throw DataStorageException.withMessageAndException(CAN_NOT_READ_FILES_FROM_DISK + e,
+					e);
+		}
+	}
+
+	private InputStream createRangeInputStreamFromChannel(FileChannel channel, long offset,
+			long length) throws IOException {
+		throwErrorIfOffsetIsAfterEndOfStream(channel, offset);
+		channel.position(offset);
+		return new RangeInputStream(Channels.newInputStream(channel), length);
+	}
+
+	private void throwErrorIfRangeIsNegative(long offset, long length) {
+		if (offset < 0 || length < 0) {
+			throw DataStorageException.withMessage(
+					"can not read stream range from disk, offset and length must not be negative");
+		}
+	}
+
+	private void throwErrorIfOffsetIsAfterEndOfStream(FileChannel channel, long offset)
+			throws IOException {
+		if (offset > channel.size()) {
+			throw DataStorageException.withMessage(
+					"can not read stream range from disk, offset is after end of stream");
+		}
+	}
+
+	private void closeChannelAfterFailure(FileChannel channel, Exception failure) {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			failure.addSuppressed(e);
+		}
 	}
 
 	InputStream tryToReadStream(Path path) {
@@ -142,4 +411,51 @@ public final class StreamStorageOnDisk implements StreamStorage {
 		// needed for test
 		return basePath;
 	}
+
+	StreamStorageOnDiskSettings getSettings() {
+		// needed for test
+		return settings;
+	}
+
+	private static final class RangeInputStream extends InputStream {
+		private final InputStream stream;
+		private long remaining;
+
+		RangeInputStream(InputStream stream, long length) {
+			this.stream = stream;
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (remaining <= 0) {
+				return -1;
+			}
+			int read = stream.read();
+			if (read != -1) {
+				remaining--;
+			}
+			return read;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			if (length == 0) {
+				return 0;
+			}
+			if (remaining <= 0) {
+				return -1;
+			}
+			int read = stream.read(bytes, offset, (int) Math.min(length, remaining));
+			if (read > 0) {
+				remaining -= read;
+			}
+			return read;
+		}
+
+		@Override
+		public void close() throws IOException {
+			stream.close();
+		}
+	}
 }
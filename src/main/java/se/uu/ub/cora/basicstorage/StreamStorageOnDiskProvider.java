@@ -19,6 +19,8 @@
 package se.uu.ub.cora.basicstorage;
 
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 import se.uu.ub.cora.logger.Logger;
 import se.uu.ub.cora.logger.LoggerProvider;
@@ -45,7 +47,50 @@ public class StreamStorageOnDiskProvider implements StreamStorageProvider {
 
 	private void startStreamStorage() {
 		String basePath = tryToGetInitParameter("storageOnDiskBasePath");
-		streamStorage = StreamStorageOnDisk.usingBasePath(basePath + "streams/");
+		streamStorage = StreamStorageOnDisk.usingBasePathAndSettings(basePath + "streams/",
+				createSettings());
+	}
+
+	private StreamStorageOnDiskSettings createSettings() {
+		StreamStorageOnDiskSettings settings = StreamStorageOnDiskSettings.usingDefaults();
+		possiblySetIntSetting("streamBufferSize", settings::withBufferSize);
+		possiblySetBooleanSetting("contentAddressedStreams",
+				settings::withContentAddressedStorage);
+		possiblySetIntSetting("streamDirectoryLevels", settings::withDirectoryLevels);
+		return settings;
+	}
+
+	private void possiblySetBooleanSetting(String parameterName, Consumer<Boolean> setting) {
+		if (initInfo.containsKey(parameterName)) {
+			String parameter = tryToGetInitParameter(parameterName);
+			setting.accept(tryToParseBooleanParameter(parameterName, parameter));
+		}
+	}
+
+	private boolean tryToParseBooleanParameter(String parameterName, String parameter) {
+		if (!"true".equals(parameter) && !"false".equals(parameter)) {
+			String errorMessage = "InitInfo must contain true or false for " + parameterName;
+			log.logFatalUsingMessage(errorMessage);
+			throw DataStorageException.withMessage(errorMessage);
+		}
+		return Boolean.parseBoolean(parameter);
+	}
+
+	private void possiblySetIntSetting(String parameterName, IntConsumer setting) {
+		if (initInfo.containsKey(parameterName)) {
+			String parameter = tryToGetInitParameter(parameterName);
+			setting.accept(tryToParseIntParameter(parameterName, parameter));
+		}
+	}
+
+	private int tryToParseIntParameter(String parameterName, String parameter) {
+		try {
+			return Integer.parseInt(parameter);
+		} catch (NumberFormatException e) {
+			String errorMessage = "InitInfo must contain a number for " + parameterName;
+			log.logFatalUsingMessage(errorMessage);
+			throw DataStorageException.withMessageAndException(errorMessage, e);
+		}
 	}
 
 	private String tryToGetInitParameter(String parameterName) {
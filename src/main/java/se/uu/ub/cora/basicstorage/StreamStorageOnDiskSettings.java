@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+public final class StreamStorageOnDiskSettings {
+	private int bufferSize = 64 * 1024;
+	private boolean contentAddressedStorage = false;
+	private int directoryLevels = 0;
+
+	public static StreamStorageOnDiskSettings usingDefaults() {
+		return new StreamStorageOnDiskSettings();
+	}
+
+	private StreamStorageOnDiskSettings() {
+	}
+
+	public StreamStorageOnDiskSettings withBufferSize(int bufferSize) {
+		throwErrorIfNotPositive("streamBufferSize", bufferSize);
+		this.bufferSize = bufferSize;
+		return this;
+	}
+
+	public StreamStorageOnDiskSettings withContentAddressedStorage(
+			boolean contentAddressedStorage) {
+		this.contentAddressedStorage = contentAddressedStorage;
+		return this;
+	}
+
+	public StreamStorageOnDiskSettings withDirectoryLevels(int directoryLevels) {
+		if (directoryLevels < 0 || directoryLevels > StreamDirectoryLayout.MAX_DIRECTORY_LEVELS) {
+			throw DataStorageException.withMessage("streamDirectoryLevels must be between 0 and "
+					+ StreamDirectoryLayout.MAX_DIRECTORY_LEVELS);
+		}
+		this.directoryLevels = directoryLevels;
+		return this;
+	}
+
+	private void throwErrorIfNotPositive(String name, int value) {
+		if (value < 1) {
+			throw DataStorageException.withMessage(name + " must be larger than zero");
+		}
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	public boolean useContentAddressedStorage() {
+		return contentAddressedStorage;
+	}
+
+	public int getDirectoryLevels() {
+		return directoryLevels;
+	}
+}
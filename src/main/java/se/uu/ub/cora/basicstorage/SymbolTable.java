@@ -0,0 +1,140 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process wide table of interned symbols and of indexes for names in data, shared by all storage
+ * instances in the process. Neither symbols nor names are ever removed, both are bounded by a
+ * maximum number and when it is reached new symbols are no longer interned and new names get
+ * {@link #NO_NAME_INDEX}, so callers must then store the name itself.
+ * <p>
+ * Name indexes depend on the order in which names were first seen in this process, so compact
+ * records written using shared names are only valid within the process that wrote them. They are
+ * never written to disk as they are, they are translated to the dictionary of the written file.
+ */
+final class SymbolTable {
+	static final int NO_NAME_INDEX = -1;
+	private static final int INITIAL_NO_OF_NAMES = 256;
+	private static final int DEFAULT_MAX_NO_OF_SYMBOLS = 100000;
+	private static final int DEFAULT_MAX_NO_OF_NAMES = 100000;
+	// symbols are never removed, only bounded sets such as record types, data dividers, storage
+	// term keys and names in data are interned, and interning stops when the limit is reached
+	private static final Map<String, String> symbols = new ConcurrentHashMap<>();
+	private static volatile int maxNoOfSymbols = DEFAULT_MAX_NO_OF_SYMBOLS;
+	private static final Map<String, Integer> nameIndexes = new ConcurrentHashMap<>();
+	private static volatile String[] names = new String[INITIAL_NO_OF_NAMES];
+	private static int noOfNames = 0;
+	private static volatile int maxNoOfNames = DEFAULT_MAX_NO_OF_NAMES;
+
+	private SymbolTable() {
+		throw new UnsupportedOperationException();
+	}
+
+	static String intern(String symbol) {
+		if (null == symbol) {
+			return null;
+		}
+		String existingSymbol = symbols.get(symbol);
+		if (null != existingSymbol) {
+			return existingSymbol;
+		}
+		return possiblyAddSymbol(symbol);
+	}
+
+	private static String possiblyAddSymbol(String symbol) {
+		if (symbols.size() >= maxNoOfSymbols) {
+			return symbol;
+		}
+		String existingSymbol = symbols.putIfAbsent(symbol, symbol);
+		if (null == existingSymbol) {
+			return symbol;
+		}
+		return existingSymbol;
+	}
+
+	static int getNoOfSymbols() {
+		// needed for test
+		return symbols.size();
+	}
+
+	static void setMaxNoOfSymbols(int noOfSymbols) {
+		// needed for test
+		maxNoOfSymbols = noOfSymbols;
+	}
+
+	static void resetMaxNoOfSymbols() {
+		// needed for test
+		maxNoOfSymbols = DEFAULT_MAX_NO_OF_SYMBOLS;
+	}
+
+	static int indexOfName(String name) {
+		Integer index = nameIndexes.get(name);
+		if (null != index) {
+			return index;
+		}
+		return addName(name);
+	}
+
+	private static synchronized int addName(String name) {
+		Integer existingIndex = nameIndexes.get(name);
+		if (null != existingIndex) {
+			return existingIndex;
+		}
+		if (noOfNames >= maxNoOfNames) {
+			return NO_NAME_INDEX;
+		}
+		possiblyGrowNames();
+		names[noOfNames] = intern(name);
+		nameIndexes.put(names[noOfNames], noOfNames);
+		return noOfNames++;
+	}
+
+	private static void possiblyGrowNames() {
+		if (noOfNames == names.length) {
+			names = Arrays.copyOf(names, noOfNames * 2);
+		}
+	}
+
+	static synchronized int getNoOfNames() {
+		// needed for test
+		return noOfNames;
+	}
+
+	static void setMaxNoOfNames(int noOfNamesToKeep) {
+		// needed for test
+		maxNoOfNames = noOfNamesToKeep;
+	}
+
+	static void resetMaxNoOfNames() {
+		// needed for test
+		maxNoOfNames = DEFAULT_MAX_NO_OF_NAMES;
+	}
+
+	static String getNameByIndex(int index) {
+		String[] currentNames = names;
+		if (index < 0 || index >= currentNames.length || null == currentNames[index]) {
+			throw DataStorageException.withMessage("unknown name index " + index);
+		}
+		return currentNames[index];
+	}
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+final class WriteAheadLog {
+	private static final String SEGMENT_PREFIX = "segment_";
+	private static final String SEGMENT_ENDING = ".log";
+	private static final String NEW_LINE = "\n";
+	private static final byte NEW_LINE_BYTE = '\n';
+	private Path directory;
+	private int syncBatchSize;
+	private long segmentNo;
+	private FileChannel currentSegment;
+	private int noOfUnsyncedEntries = 0;
+	private long lastEntryPosition = 0;
+
+	static WriteAheadLog usingDirectoryAndSyncBatchSize(Path directory, int syncBatchSize) {
+		return new WriteAheadLog(directory, syncBatchSize);
+	}
+
+	private WriteAheadLog(Path directory, int syncBatchSize) {
+		this.directory = directory;
+		this.syncBatchSize = syncBatchSize;
+		tryToEnsureDirectoryExists();
+		segmentNo = findHighestSegmentNo();
+	}
+
+	private void tryToEnsureDirectoryExists() {
+		try {
+			Files.createDirectories(directory);
+			DurableFiles.syncDirectory(directory.toAbsolutePath().getParent());
+		} catch (IOException e) {
+			throw DataStorageException
+					.withMessageAndException("can not create write ahead log directory: " + e, e);
+		}
+	}
+
+	private long findHighestSegmentNo() {
+		long highestSegmentNo = 0;
+		for (Path segment : tryToListSegmentsInOrder()) {
+			highestSegmentNo = Math.max(highestSegmentNo, getSegmentNoFromPath(segment));
+		}
+		return highestSegmentNo;
+	}
+
+	private List<Path> tryToListSegmentsInOrder() {
+		try (Stream<Path> list = Files.list(directory)) {
+			return list.filter(this::isSegment)
+					.sorted((first, second) -> Long.compare(getSegmentNoFromPath(first),
+							getSegmentNoFromPath(second)))
+					.collect(Collectors.toList());
+		} catch (IOException e) {
+			throw DataStorageException
+					.withMessageAndException("can not list write ahead log segments: " + e, e);
+		}
+	}
+
+	private boolean isSegment(Path path) {
+		String fileName = path.getFileName().toString();
+		return fileName.startsWith(SEGMENT_PREFIX) && fileName.endsWith(SEGMENT_ENDING);
+	}
+
+	private long getSegmentNoFromPath(Path path) {
+		String fileName = path.getFileName().toString();
+		return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(),
+				fileName.length() - SEGMENT_ENDING.length()));
+	}
+
+	List<String> readEntries() {
+		List<String> entries = new ArrayList<>();
+		List<Path> segments = tryToListSegmentsInOrder();
+		for (int segmentNo = 0; segmentNo < segments.size(); segmentNo++) {
+			boolean isLastSegment = segmentNo == segments.size() - 1;
+			entries.addAll(tryToReadEntriesFromSegment(segments.get(segmentNo), isLastSegment));
+		}
+		return entries;
+	}
+
+	private List<String> tryToReadEntriesFromSegment(Path segment, boolean isLastSegment) {
+		try {
+			return readNonEmptyLinesFromSegment(segment, isLastSegment);
+		} catch (IOException e) {
+			throw DataStorageException
+					.withMessageAndException("can not read write ahead log segment: " + e, e);
+		}
+	}
+
+	private List<String> readNonEmptyLinesFromSegment(Path segment, boolean isLastSegment)
+			throws IOException {
+		byte[] bytes = Files.readAllBytes(segment);
+		List<int[]> lines = findNonEmptyLines(bytes);
+		List<String> entries = new ArrayList<>(lines.size());
+		for (int lineNo = 0; lineNo < lines.size(); lineNo++) {
+			boolean mayBeTruncated = isLastSegment && lineNo == lines.size() - 1;
+			possiblyAddDecodedLine(entries, bytes, lines.get(lineNo), mayBeTruncated);
+		}
+		return entries;
+	}
+
+	private List<int[]> findNonEmptyLines(byte[] bytes) {
+		List<int[]> lines = new ArrayList<>();
+		int lineStart = 0;
+		for (int position = 0; position <= bytes.length; position++) {
+			if (position == bytes.length || bytes[position] == NEW_LINE_BYTE) {
+				possiblyAddLine(lines, lineStart, position);
+				lineStart = position + 1;
+			}
+		}
+		return lines;
+	}
+
+	private void possiblyAddLine(List<int[]> lines, int lineStart, int lineEnd) {
+		if (lineEnd > lineStart) {
+			lines.add(new int[] { lineStart, lineEnd });
+		}
+	}
+
+	private void possiblyAddDecodedLine(List<String> entries, byte[] bytes, int[] line,
+			boolean mayBeTruncated) throws CharacterCodingException {
+		try {
+			entries.add(decodeLine(bytes, line));
+		} catch (CharacterCodingException e) {
+			if (!mayBeTruncated) {
+				throw e;
+			}
+		}
+	}
+
+	private String decodeLine(byte[] bytes, int[] line) throws CharacterCodingException {
+		return StandardCharsets.UTF_8.newDecoder()
+				.decode(ByteBuffer.wrap(bytes, line[0], line[1] - line[0])).toString();
+	}
+
+	boolean hasSegments() {
+		return !tryToListSegmentsInOrder().isEmpty();
+	}
+
+	void append(String entry) {
+		try {
+			appendEntryAndPossiblySync(entry);
+		} catch (IOException e) {
+			throw DataStorageException
+					.withMessageAndException("can not write to write ahead log: " + e, e);
+		}
+	}
+
+	private void appendEntryAndPossiblySync(String entry) throws IOException {
+		ensureCurrentSegmentIsOpen();
+		lastEntryPosition = currentSegment.size();
+		ByteBuffer bytes = ByteBuffer.wrap((entry + NEW_LINE).getBytes(StandardCharsets.UTF_8));
+		while (bytes.hasRemaining()) {
+			currentSegment.write(bytes);
+		}
+		noOfUnsyncedEntries++;
+		if (noOfUnsyncedEntries >= syncBatchSize) {
+			forceCurrentSegment();
+		}
+	}
+
+	void removeLastEntry() {
+		try {
+			currentSegment.truncate(lastEntryPosition);
+			forceCurrentSegment();
+		} catch (IOException e) {
+			throw DataStorageException
+					.withMessageAndException("can not remove entry from write ahead log: " + e, e);
+		}
+	}
+
+	private void ensureCurrentSegmentIsOpen() throws IOException {
+		if (null == currentSegment) {
+			currentSegment = FileChannel.open(getPathForSegmentNo(segmentNo),
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND);
+			DurableFiles.syncDirectory(directory);
+		}
+	}
+
+	private Path getPathForSegmentNo(long segmentNoForPath) {
+		return directory.resolve(SEGMENT_PREFIX + segmentNoForPath + SEGMENT_ENDING);
+	}
+
+	private void forceCurrentSegment() throws IOException {
+		currentSegment.force(false);
+		noOfUnsyncedEntries = 0;
+	}
+
+	void sync() {
+		try {
+			possiblyForceCurrentSegment();
+		} catch (IOException e) {
+			throw DataStorageException
+					.withMessageAndException("can not sync write ahead log: " + e, e);
+		}
+	}
+
+	private void possiblyForceCurrentSegment() throws IOException {
+		if (null != currentSegment && noOfUnsyncedEntries > 0) {
+			forceCurrentSegment();
+		}
+	}
+
+	void startNewSegmentAndRemoveOldSegments() {
+		try {
+			closeCurrentSegment();
+			List<Path> oldSegments = tryToListSegmentsInOrder();
+			segmentNo++;
+			removeSegments(oldSegments);
+		} catch (IOException e) {
+			throw DataStorageException
+					.withMessageAndException("can not remove write ahead log segments: " + e, e);
+		}
+	}
+
+	private void closeCurrentSegment() throws IOException {
+		if (null != currentSegment) {
+			possiblyForceCurrentSegment();
+			currentSegment.close();
+			currentSegment = null;
+		}
+	}
+
+	private void removeSegments(List<Path> segments) throws IOException {
+		for (Path segment : segments) {
+			Files.deleteIfExists(segment);
+		}
+	}
+
+	int getNoOfUnsyncedEntries() {
+		// needed for test
+		return noOfUnsyncedEntries;
+	}
+
+	Path getDirectory() {
+		return directory;
+	}
+}
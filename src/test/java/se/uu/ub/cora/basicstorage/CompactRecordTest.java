@@ -0,0 +1,212 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.basicdata.converter.DataToJsonConverterFactoryImp;
+import se.uu.ub.cora.data.DataAtomicProvider;
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.data.DataGroupProvider;
+import se.uu.ub.cora.data.converter.DataToJsonConverterProvider;
+
+public class CompactRecordTest {
+	private RecordCache recordCache;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		DataGroupProvider.setDataGroupFactory(new DataGroupFactorySpy());
+		DataAtomicProvider.setDataAtomicFactory(new DataAtomicFactorySpy());
+		DataToJsonConverterProvider
+				.setDataToJsonConverterFactory(new DataToJsonConverterFactoryImp());
+		recordCache = RecordCache.usingMaxNoOfRecords(1);
+	}
+
+	private DataGroup createPlace(String id) {
+		DataGroup place = new DataGroupSpy("authority");
+		DataGroup recordInfo = new DataGroupSpy("recordInfo");
+		recordInfo.addChild(new DataAtomicSpy("id", id));
+		recordInfo.addChild(new DataAtomicSpy("type", "place"));
+		place.addChild(recordInfo);
+		return place;
+	}
+
+	private String getId(DataGroup record) {
+		return record.getFirstGroupWithNameInData("recordInfo")
+				.getFirstAtomicValueWithNameInData("id");
+	}
+
+	@Test
+	public void testGetReturnsRecordReadFromCompactRecord() {
+		DataGroup place = createPlace("place:0001");
+		CompactRecord compactRecord = CompactRecord.usingDataGroupAndRecordCache(place,
+				recordCache);
+
+		DataGroup readPlace = compactRecord.get();
+
+		assertNotSame(readPlace, place);
+		assertEquals(readPlace.getNameInData(), "authority");
+		assertEquals(getId(readPlace), "place:0001");
+	}
+
+	@Test
+	public void testCompactRecordIsIndependentOfEnteredRecord() {
+		DataGroup place = createPlace("place:0001");
+		CompactRecord compactRecord = CompactRecord.usingDataGroupAndRecordCache(place,
+				recordCache);
+
+		place.addChild(new DataAtomicSpy("added", "afterCompacting"));
+
+		assertEquals(compactRecord.get().getChildren().size(), 1);
+	}
+
+	@Test
+	public void testReadRecordIsCached() {
+		CompactRecord compactRecord = CompactRecord
+				.usingDataGroupAndRecordCache(createPlace("place:0001"), recordCache);
+
+		assertSame(compactRecord.get(), compactRecord.get());
+	}
+
+	@Test
+	public void testRecordIsReadAgainWhenRemovedFromCache() {
+		CompactRecord first = CompactRecord
+				.usingDataGroupAndRecordCache(createPlace("place:0001"), recordCache);
+		CompactRecord second = CompactRecord
+				.usingDataGroupAndRecordCache(createPlace("place:0002"), recordCache);
+
+		DataGroup firstRead = first.get();
+		second.get();
+
+		assertNotSame(first.get(), firstRead);
+		assertEquals(getId(first.get()), "place:0001");
+	}
+
+	@Test
+	public void testCompactRecordIsSmallerThanCompactJson() {
+		DataGroup place = createPlace("place:0001");
+		CompactRecord compactRecord = CompactRecord.usingDataGroupAndRecordCache(place,
+				recordCache);
+
+		String json = DataToJsonConverterProvider.getConverterUsingDataPart(place)
+				.toJsonCompactFormat();
+		assertTrue(compactRecord.getSizeInBytes() < json.getBytes(StandardCharsets.UTF_8).length);
+	}
+
+	@Test
+	public void testGetWithoutCachingDoesNotAddRecordToCache() {
+		CompactRecord compactRecord = CompactRecord
+				.usingDataGroupAndRecordCache(createPlace("place:0001"), recordCache);
+
+		DataGroup readPlace = compactRecord.getWithoutCaching();
+
+		assertEquals(getId(readPlace), "place:0001");
+		assertEquals(recordCache.size(), 0);
+	}
+
+	@Test
+	public void testRecordIsConvertedBeforeItIsCached() {
+		CompactRecord compactRecord = CompactRecord.usingDataGroupRecordCacheAndRecordConverter(
+				createPlace("place:0001"), recordCache, ImmutableDataGroup::usingDataGroup);
+
+		DataGroup readPlace = compactRecord.get();
+
+		assertTrue(readPlace instanceof ImmutableDataGroup);
+		assertSame(compactRecord.get(), readPlace);
+	}
+
+	@Test
+	public void testWriteToWritesRecordToBinaryRecordList() throws IOException {
+		CompactRecord compactRecord = CompactRecord
+				.usingDataGroupAndRecordCache(createPlace("place:0001"), recordCache);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		RecordListBinaryWriter writer = RecordListBinaryWriter.usingOutputStream(outputStream);
+		writer.writeHeader(1);
+
+		compactRecord.writeTo(writer);
+		writer.flush();
+
+		List<DataGroup> readRecords = new ArrayList<>();
+		RecordListBinaryReader
+				.usingInputStream(new ByteArrayInputStream(outputStream.toByteArray()))
+				.readChildren(readRecords::add);
+		assertEquals(getId(readRecords.get(0)), "place:0001");
+		assertEquals(recordCache.size(), 0);
+	}
+
+	@Test
+	public void testCompactRecordsUseLessThanAQuarterOfTheHeapOfRecordsForLargeCorpus() {
+		long heapBeforeCorpus = measureUsedHeapAfterGc();
+		List<DataGroup> corpus = createCorpusOfPlaces(10000);
+		long heapWithCorpus = measureUsedHeapAfterGc();
+		List<CompactRecord> compactCorpus = new ArrayList<>();
+		for (DataGroup place : corpus) {
+			compactCorpus.add(CompactRecord.usingDataGroupAndRecordCache(place, recordCache));
+		}
+		long heapWithCompactCorpus = measureUsedHeapAfterGc();
+
+		long heapForCorpus = heapWithCorpus - heapBeforeCorpus;
+		long heapForCompactCorpus = heapWithCompactCorpus - heapWithCorpus;
+		assertTrue(heapForCompactCorpus * 4 < heapForCorpus, "compact corpus used "
+				+ heapForCompactCorpus + " bytes, corpus used " + heapForCorpus + " bytes");
+		assertEquals(compactCorpus.size(), corpus.size());
+	}
+
+	private List<DataGroup> createCorpusOfPlaces(int noOfPlaces) {
+		List<DataGroup> corpus = new ArrayList<>(noOfPlaces);
+		for (int placeNo = 0; placeNo < noOfPlaces; placeNo++) {
+			corpus.add(createPlaceWithNames("place:" + placeNo));
+		}
+		return corpus;
+	}
+
+	private DataGroup createPlaceWithNames(String id) {
+		DataGroup place = createPlace(id);
+		for (int nameNo = 0; nameNo < 10; nameNo++) {
+			DataGroup name = new DataGroupSpy("name");
+			name.setRepeatId(String.valueOf(nameNo));
+			name.addAttributeByIdWithValue("type", "alternative");
+			name.addChild(new DataAtomicSpy("language", "sv"));
+			name.addChild(new DataAtomicSpy("value", "Name " + nameNo + " of " + id));
+			place.addChild(name);
+		}
+		return place;
+	}
+
+	private long measureUsedHeapAfterGc() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int gcNo = 0; gcNo < 3; gcNo++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
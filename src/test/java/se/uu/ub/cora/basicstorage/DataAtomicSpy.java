@@ -47,8 +47,7 @@ public class DataAtomicSpy implements DataAtomic {
 
 	@Override
 	public void setRepeatId(String repeatId) {
-		// TODO Auto-generated method stub
-
+		this.repeatId = repeatId;
 	}
 
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.basicstorage.testdata.DataCreator;
+import se.uu.ub.cora.data.DataGroup;
+
+public class DataGroupComparerTest {
+
+	private DataGroup createLink(String toRecordId) {
+		return DataCreator.createRecordToRecordLink("book", "book:1", "place", toRecordId);
+	}
+
+	private boolean areEqual(DataGroup first, DataGroup second) {
+		return DataGroupComparer.dataGroupsAreEqual(first, second);
+	}
+
+	@Test
+	public void testSameInstanceIsEqual() {
+		DataGroup link = createLink("place:0001");
+
+		assertTrue(areEqual(link, link));
+	}
+
+	@Test
+	public void testNullIsOnlyEqualToNull() {
+		assertTrue(areEqual(null, null));
+		assertFalse(areEqual(createLink("place:0001"), null));
+		assertFalse(areEqual(null, createLink("place:0001")));
+	}
+
+	@Test
+	public void testEqualStructure() {
+		assertTrue(areEqual(createLink("place:0001"), createLink("place:0001")));
+	}
+
+	@Test
+	public void testDifferentAtomicValue() {
+		assertFalse(areEqual(createLink("place:0001"), createLink("place:0002")));
+	}
+
+	@Test
+	public void testDifferentNameInData() {
+		assertFalse(areEqual(new DataGroupSpy("from"), new DataGroupSpy("to")));
+	}
+
+	@Test
+	public void testDifferentRepeatId() {
+		DataGroup first = createLink("place:0001");
+		DataGroup second = createLink("place:0001");
+		second.setRepeatId("1");
+
+		assertFalse(areEqual(first, second));
+	}
+
+	@Test
+	public void testDifferentAttributes() {
+		DataGroup first = createLink("place:0001");
+		DataGroup second = createLink("place:0001");
+		second.addAttributeByIdWithValue("type", "someType");
+
+		assertFalse(areEqual(first, second));
+	}
+
+	@Test
+	public void testDifferentNoOfChildren() {
+		DataGroup first = createLink("place:0001");
+		DataGroup second = createLink("place:0001");
+		second.addChild(new DataAtomicSpy("linkedPath", "somePath"));
+
+		assertFalse(areEqual(first, second));
+	}
+
+	@Test
+	public void testGroupIsNotEqualToAtomic() {
+		DataGroup first = new DataGroupSpy("link");
+		first.addChild(new DataGroupSpy("child"));
+		DataGroup second = new DataGroupSpy("link");
+		second.addChild(new DataAtomicSpy("child", "value"));
+
+		assertFalse(areEqual(first, second));
+	}
+
+	@Test
+	public void testDifferentAtomicRepeatId() {
+		DataGroup first = new DataGroupSpy("link");
+		first.addChild(new DataAtomicSpy("child", "value"));
+		DataGroup second = new DataGroupSpy("link");
+		DataAtomicSpy atomic = new DataAtomicSpy("child", "value");
+		atomic.setRepeatId("0");
+		second.addChild(atomic);
+
+		assertFalse(areEqual(first, second));
+	}
+}
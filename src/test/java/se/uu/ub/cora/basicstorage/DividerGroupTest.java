@@ -20,6 +20,8 @@
 package se.uu.ub.cora.basicstorage;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 
 import org.testng.annotations.Test;
 
@@ -34,6 +36,27 @@ public class DividerGroupTest {
 				dataGroup);
 		assertEquals(dividerGroup.dataDivider, "cora");
 		assertEquals(dividerGroup.dataGroup, dataGroup);
+		assertEquals(dividerGroup.getDataGroup(), dataGroup);
+	}
 
+	@Test
+	public void testDataDividerIsInterned() {
+		DataGroup dataGroup = new DataGroupSpy("someGroup");
+		DividerGroup first = DividerGroup
+				.withDataDividerAndDataGroup(new String("dividerGroupTestDivider"), dataGroup);
+		DividerGroup second = DividerGroup
+				.withDataDividerAndDataGroup(new String("dividerGroupTestDivider"), dataGroup);
+
+		assertSame(second.dataDivider, first.dataDivider);
+	}
+
+	@Test
+	public void testInitWithDataGroupSource() {
+		DataGroup dataGroup = new DataGroupSpy("someGroup");
+		DividerGroup dividerGroup = DividerGroup.withDataDividerAndDataGroupSource("cora",
+				() -> dataGroup);
+		assertEquals(dividerGroup.dataDivider, "cora");
+		assertNull(dividerGroup.dataGroup);
+		assertEquals(dividerGroup.getDataGroup(), dataGroup);
 	}
 }
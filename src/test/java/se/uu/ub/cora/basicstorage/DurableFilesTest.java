@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DurableFilesTest {
+	private String basePath = "/tmp/durableFilesTemp/";
+	private Path path = Paths.get(basePath, "someFile");
+
+	@BeforeMethod
+	public void beforeMethod() throws IOException {
+		removeTempFiles();
+		new File(basePath).mkdir();
+	}
+
+	@AfterMethod
+	public void removeTempFiles() throws IOException {
+		if (Files.exists(Paths.get(basePath))) {
+			try (Stream<Path> list = Files.list(Paths.get(basePath))) {
+				for (Path pathToRemove : (Iterable<Path>) list::iterator) {
+					Files.delete(pathToRemove);
+				}
+			}
+			Files.delete(Paths.get(basePath));
+		}
+	}
+
+	private void writeString(String content) throws IOException {
+		DurableFiles.writeFileAtomically(path,
+				outputStream -> outputStream.write(content.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private String readString() throws IOException {
+		return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testWriteFile() throws IOException {
+		writeString("some content");
+
+		assertEquals(readString(), "some content");
+		assertFalse(Files.exists(Paths.get(basePath, "someFile.tmp")));
+	}
+
+	@Test
+	public void testWriteFileReplacesExistingFile() throws IOException {
+		writeString("some longer content");
+
+		writeString("new content");
+
+		assertEquals(readString(), "new content");
+	}
+
+	@Test
+	public void testWriterClosingStreamDoesNotStopWrite() throws IOException {
+		DurableFiles.writeFileAtomically(path, outputStream -> {
+			outputStream.write("closed".getBytes(StandardCharsets.UTF_8));
+			outputStream.close();
+		});
+
+		assertEquals(readString(), "closed");
+	}
+
+	@Test
+	public void testFailedWriteKeepsExistingFileAndRemovesTempFile() throws IOException {
+		writeString("some content");
+		Exception caughtException = null;
+
+		try {
+			DurableFiles.writeFileAtomically(path, outputStream -> {
+				outputStream.write("partial".getBytes(StandardCharsets.UTF_8));
+				throw new IOException("write failed");
+			});
+		} catch (IOException e) {
+			caughtException = e;
+		}
+
+		assertEquals(caughtException.getMessage(), "write failed");
+		assertEquals(readString(), "some content");
+		assertFalse(Files.exists(Paths.get(basePath, "someFile.tmp")));
+	}
+
+	@Test
+	public void testMoveAtomicallyAndSyncDirectoryReplacesTarget() throws IOException {
+		writeString("old content");
+		Path source = Paths.get(basePath, "someFile.new");
+		Files.write(source, "new content".getBytes(StandardCharsets.UTF_8));
+
+		DurableFiles.moveAtomicallyAndSyncDirectory(source, path);
+
+		assertEquals(readString(), "new content");
+		assertFalse(Files.exists(source));
+	}
+
+	@Test
+	public void testSyncDirectory() throws IOException {
+		DurableFiles.syncDirectory(Paths.get(basePath));
+
+		assertTrue(Files.isDirectory(Paths.get(basePath)));
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.data.DataAtomic;
+import se.uu.ub.cora.data.DataElement;
+import se.uu.ub.cora.data.DataGroup;
+
+public class ImmutableDataGroupTest {
+	private DataGroupSpy place;
+	private DataGroup immutablePlace;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		place = new DataGroupSpy("authority");
+		place.setRepeatId("1");
+		place.addAttributeByIdWithValue("type", "place");
+		DataGroup recordInfo = new DataGroupSpy("recordInfo");
+		recordInfo.addChild(new DataAtomicSpy("id", "place:0001"));
+		place.addChild(recordInfo);
+		place.addChild(new DataAtomicSpy("name", "Uppsala"));
+		immutablePlace = ImmutableDataGroup.usingDataGroup(place);
+	}
+
+	@Test
+	public void testGettersReturnValuesFromDataGroup() {
+		assertEquals(immutablePlace.getNameInData(), "authority");
+		assertEquals(immutablePlace.getRepeatId(), "1");
+		assertEquals(immutablePlace.getAttribute("type"), "place");
+		assertEquals(immutablePlace.getAttributes().get("type"), "place");
+		assertEquals(immutablePlace.getFirstAtomicValueWithNameInData("name"), "Uppsala");
+		assertTrue(immutablePlace.containsChildWithNameInData("recordInfo"));
+		assertEquals(immutablePlace.getFirstGroupWithNameInData("recordInfo")
+				.getFirstAtomicValueWithNameInData("id"), "place:0001");
+	}
+
+	@Test
+	public void testUsingDataGroupDoesNotWrapTwice() {
+		assertSame(ImmutableDataGroup.usingDataGroup(immutablePlace), immutablePlace);
+		assertNull(ImmutableDataGroup.usingDataGroup(null));
+	}
+
+	@Test
+	public void testChildrenAreImmutable() {
+		List<DataElement> children = immutablePlace.getChildren();
+
+		assertEquals(children.size(), 2);
+		assertTrue(children.get(0) instanceof ImmutableDataGroup);
+		assertTrue(children.get(1) instanceof ImmutableDataAtomic);
+		assertEquals(((DataAtomic) children.get(1)).getValue(), "Uppsala");
+		assertTrue(immutablePlace.getFirstGroupWithNameInData("recordInfo")
+				.getFirstChildWithNameInData("id") instanceof ImmutableDataAtomic);
+		assertTrue(immutablePlace
+				.getFirstChildWithNameInData("recordInfo") instanceof ImmutableDataGroup);
+		assertTrue(immutablePlace.getAllGroupsWithNameInData("recordInfo")
+				.get(0) instanceof ImmutableDataGroup);
+		assertTrue(immutablePlace.getAllDataAtomicsWithNameInData("name")
+				.get(0) instanceof ImmutableDataAtomic);
+	}
+
+	@Test
+	public void testChildWrappersAreCreatedOnce() {
+		List<DataElement> children = immutablePlace.getChildren();
+
+		assertSame(immutablePlace.getChildren(), children);
+		assertSame(immutablePlace.getFirstGroupWithNameInData("recordInfo"), children.get(0));
+		assertSame(immutablePlace.getFirstChildWithNameInData("name"), children.get(1));
+		assertSame(immutablePlace.getAllGroupsWithNameInData("recordInfo").get(0),
+				children.get(0));
+		assertSame(immutablePlace.getAllDataAtomicsWithNameInData("name").get(0),
+				children.get(1));
+	}
+
+	@Test
+	public void testAttributesAreCreatedOnce() {
+		assertSame(immutablePlace.getAttributes(), immutablePlace.getAttributes());
+	}
+
+	@Test
+	public void testGetWrappedDataGroup() {
+		assertSame(ImmutableDataGroup.getWrappedDataGroup(immutablePlace), place);
+		assertSame(ImmutableDataGroup.getWrappedDataGroup(place), place);
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testChildrenListCanNotBeChanged() {
+		immutablePlace.getChildren().clear();
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testAttributesCanNotBeChanged() {
+		immutablePlace.getAttributes().put("type", "other");
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class, expectedExceptionsMessageRegExp = ""
+			+ "stored records can not be changed")
+	public void testAddChild() {
+		immutablePlace.addChild(new DataAtomicSpy("name", "Stockholm"));
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testSetRepeatId() {
+		immutablePlace.setRepeatId("2");
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testAddAttribute() {
+		immutablePlace.addAttributeByIdWithValue("type", "other");
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testRemoveFirstChild() {
+		immutablePlace.removeFirstChildWithNameInData("name");
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testSetRepeatIdOnChildAtomic() {
+		((DataAtomic) immutablePlace.getFirstChildWithNameInData("name")).setRepeatId("2");
+	}
+
+	@Test
+	public void testChangesAreNotMadeToWrappedDataGroup() {
+		try {
+			immutablePlace.getFirstGroupWithNameInData("recordInfo")
+					.addChild(new DataAtomicSpy("type", "place"));
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		assertEquals(place.getFirstGroupWithNameInData("recordInfo").getChildren().size(), 1);
+	}
+}
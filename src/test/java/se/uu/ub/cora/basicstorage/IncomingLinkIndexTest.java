@@ -0,0 +1,288 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.basicstorage.testdata.DataCreator;
+import se.uu.ub.cora.data.DataGroup;
+
+public class IncomingLinkIndexTest {
+	private IncomingLinkIndex index;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		index = IncomingLinkIndex.createEmpty();
+	}
+
+	private DataGroup createLinkListWithLinksFromSourceToTargetIds(String sourceId,
+			String... targetIds) {
+		DataGroup linkList = DataCreator.createEmptyLinkList();
+		for (String targetId : targetIds) {
+			linkList.addChild(DataCreator.createRecordToRecordLink("book", sourceId, "place",
+					targetId));
+		}
+		return linkList;
+	}
+
+	private List<String> getSourcesLinkingToPlace(String targetId) {
+		List<String> sources = new ArrayList<>();
+		index.forEachSourceLinkingToTarget("place", targetId,
+				(sourceType, sourceId) -> sources.add(sourceType + ":" + sourceId));
+		return sources;
+	}
+
+	@Test
+	public void testNoLinks() {
+		assertFalse(index.linksExistToTarget("place", "place:0001"));
+		assertEquals(getSourcesLinkingToPlace("place:0001").size(), 0);
+		assertEquals(index.getNoOfNodes(), 0);
+	}
+
+	@Test
+	public void testSourcesAreReturnedInInsertionOrder() {
+		index.replaceLinksFromSource("book", "book:2",
+				createLinkListWithLinksFromSourceToTargetIds("book:2", "place:0001"));
+		index.replaceLinksFromSource("book", "book:1",
+				createLinkListWithLinksFromSourceToTargetIds("book:1", "place:0001"));
+
+		assertTrue(index.linksExistToTarget("place", "place:0001"));
+		assertEquals(getSourcesLinkingToPlace("place:0001"),
+				Arrays.asList("book:book:2", "book:book:1"));
+		assertFalse(index.linksExistToTarget("book", "book:1"));
+	}
+
+	@Test
+	public void testSeveralLinksToSameTargetAreStoredAsOneEdge() {
+		index.replaceLinksFromSource("book", "book:1", createLinkListWithLinksFromSourceToTargetIds(
+				"book:1", "place:0001", "place:0001", "place:0002"));
+
+		assertEquals(getSourcesLinkingToPlace("place:0001"), Arrays.asList("book:book:1"));
+		assertEquals(getSourcesLinkingToPlace("place:0002"), Arrays.asList("book:book:1"));
+		assertEquals(index.getNoOfNodes(), 3);
+	}
+
+	@Test
+	public void testReplaceLinksFromSource() {
+		index.replaceLinksFromSource("book", "book:1",
+				createLinkListWithLinksFromSourceToTargetIds("book:1", "place:0001"));
+
+		index.replaceLinksFromSource("book", "book:1",
+				createLinkListWithLinksFromSourceToTargetIds("book:1", "place:0002"));
+
+		assertFalse(index.linksExistToTarget("place", "place:0001"));
+		assertEquals(getSourcesLinkingToPlace("place:0002"), Arrays.asList("book:book:1"));
+		assertEquals(index.getNoOfNodes(), 2);
+	}
+
+	@Test
+	public void testReplaceOnlyChangesChangedTargets() {
+		index.replaceLinksFromSource("book", "book:1",
+				createLinkListWithLinksFromSourceToTargetIds("book:1", "place:0001", "place:0002"));
+		index.replaceLinksFromSource("book", "book:2",
+				createLinkListWithLinksFromSourceToTargetIds("book:2", "place:0001"));
+
+		index.replaceLinksFromSource("book", "book:1",
+				createLinkListWithLinksFromSourceToTargetIds("book:1", "place:0001", "place:0003"));
+
+		assertEquals(getSourcesLinkingToPlace("place:0001"),
+				Arrays.asList("book:book:1", "book:book:2"));
+		assertFalse(index.linksExistToTarget("place", "place:0002"));
+		assertEquals(getSourcesLinkingToPlace("place:0003"), Arrays.asList("book:book:1"));
+		assertEquals(index.getNoOfNodes(), 4);
+	}
+
+	@Test
+	public void testReplaceWithEmptyLinkListRemovesLinks() {
+		index.replaceLinksFromSource("book", "book:1",
+				createLinkListWithLinksFromSourceToTargetIds("book:1", "place:0001"));
+
+		index.replaceLinksFromSource("book", "book:1", DataCreator.createEmptyLinkList());
+
+		assertFalse(index.linksExistToTarget("place", "place:0001"));
+		assertEquals(index.getNoOfNodes(), 0);
+	}
+
+	@Test
+	public void testRemoveLinksFromSourceKeepsOtherSources() {
+		index.replaceLinksFromSource("book", "book:1",
+				createLinkListWithLinksFromSourceToTargetIds("book:1", "place:0001"));
+		index.replaceLinksFromSource("book", "book:2",
+				createLinkListWithLinksFromSourceToTargetIds("book:2", "place:0001"));
+		index.replaceLinksFromSource("book", "book:3",
+				createLinkListWithLinksFromSourceToTargetIds("book:3", "place:0001"));
+
+		index.removeLinksFromSource("book", "book:2");
+
+		assertEquals(getSourcesLinkingToPlace("place:0001"),
+				Arrays.asList("book:book:1", "book:book:3"));
+		assertEquals(index.getNoOfNodes(), 3);
+	}
+
+	@Test
+	public void testRemoveSourcesInAnyOrderKeepsOtherSources() {
+		for (int i = 0; i < 6; i++) {
+			index.replaceLinksFromSource("book", "book:" + i,
+					createLinkListWithLinksFromSourceToTargetIds("book:" + i, "place:0001",
+							"place:0002"));
+		}
+
+		index.removeLinksFromSource("book", "book:0");
+		index.replaceLinksFromSource("book", "book:3",
+				createLinkListWithLinksFromSourceToTargetIds("book:3", "place:0002"));
+		index.removeLinksFromSource("book", "book:4");
+		index.removeLinksFromSource("book", "book:1");
+
+		assertEquals(getSortedSourcesLinkingToPlace("place:0001"),
+				Arrays.asList("book:book:2", "book:book:5"));
+		assertEquals(getSortedSourcesLinkingToPlace("place:0002"),
+				Arrays.asList("book:book:2", "book:book:3", "book:book:5"));
+
+		index.removeLinksFromSource("book", "book:5");
+		index.removeLinksFromSource("book", "book:2");
+		index.removeLinksFromSource("book", "book:3");
+
+		assertEquals(index.getNoOfNodes(), 0);
+	}
+
+	private List<String> getSortedSourcesLinkingToPlace(String targetId) {
+		List<String> sources = getSourcesLinkingToPlace(targetId);
+		Collections.sort(sources);
+		return sources;
+	}
+
+	@Test
+	public void testRemoveLinksFromUnknownSource() {
+		index.removeLinksFromSource("book", "book:1");
+
+		assertEquals(index.getNoOfNodes(), 0);
+	}
+
+	@Test
+	public void testReleasedNodesAreReused() {
+		index.replaceLinksFromSource("book", "book:1",
+				createLinkListWithLinksFromSourceToTargetIds("book:1", "place:0001"));
+		index.removeLinksFromSource("book", "book:1");
+
+		index.replaceLinksFromSource("book", "book:2",
+				createLinkListWithLinksFromSourceToTargetIds("book:2", "place:0002"));
+
+		assertEquals(getSourcesLinkingToPlace("place:0002"), Arrays.asList("book:book:2"));
+		assertEquals(index.getNoOfNodes(), 2);
+	}
+
+	@Test
+	public void testLinkToItself() {
+		DataGroup linkList = DataCreator.createEmptyLinkList();
+		linkList.addChild(
+				DataCreator.createRecordToRecordLink("place", "place:0001", "place", "place:0001"));
+		index.replaceLinksFromSource("place", "place:0001", linkList);
+
+		assertEquals(getSourcesLinkingToPlace("place:0001"), Arrays.asList("place:place:0001"));
+
+		index.removeLinksFromSource("place", "place:0001");
+
+		assertFalse(index.linksExistToTarget("place", "place:0001"));
+		assertEquals(index.getNoOfNodes(), 0);
+	}
+
+	@Test
+	public void testManyNodesAndSources() {
+		for (int i = 0; i < 100; i++) {
+			index.replaceLinksFromSource("book", "book:" + i,
+					createLinkListWithLinksFromSourceToTargetIds("book:" + i, "place:0001",
+							"place:" + i));
+		}
+
+		assertEquals(getSourcesLinkingToPlace("place:0001").size(), 100);
+		assertEquals(getSourcesLinkingToPlace("place:50"), Arrays.asList("book:book:50"));
+		assertEquals(index.getNoOfNodes(), 201);
+	}
+
+	@Test
+	public void testCountSources() {
+		index.replaceLinksFromSource("book", "book:1", createLinkListWithLinksFromSourceToTargetIds(
+				"book:1", "place:0001", "place:0001"));
+		index.replaceLinksFromSource("book", "book:2",
+				createLinkListWithLinksFromSourceToTargetIds("book:2", "place:0001"));
+		DataGroup linkList = DataCreator.createEmptyLinkList();
+		linkList.addChild(
+				DataCreator.createRecordToRecordLink("person", "person:1", "place", "place:0001"));
+		index.replaceLinksFromSource("person", "person:1", linkList);
+
+		assertEquals(index.countSourcesLinkingToTarget("place", "place:0001"), 3);
+		assertEquals(index.countSourcesOfTypeLinkingToTarget("place", "place:0001", "book"), 2);
+		assertEquals(index.countSourcesOfTypeLinkingToTarget("place", "place:0001", "person"), 1);
+		assertEquals(index.countSourcesOfTypeLinkingToTarget("place", "place:0001", "other"), 0);
+	}
+
+	@Test
+	public void testCountSourcesForUnknownTarget() {
+		assertEquals(index.countSourcesLinkingToTarget("place", "place:0001"), 0);
+		assertEquals(index.countSourcesOfTypeLinkingToTarget("place", "place:0001", "book"), 0);
+	}
+
+	@Test
+	public void testGetSourcesInRange() {
+		for (int i = 0; i < 5; i++) {
+			index.replaceLinksFromSource("book", "book:" + i,
+					createLinkListWithLinksFromSourceToTargetIds("book:" + i, "place:0001"));
+		}
+		List<String> sources = new ArrayList<>();
+
+		index.getSourcesLinkingToTarget("place", "place:0001").forEachSourceInRange(3, 10,
+				(sourceType, sourceId) -> sources.add(sourceType + ":" + sourceId));
+
+		assertEquals(sources, Arrays.asList("book:book:3", "book:book:4"));
+	}
+
+	@Test
+	public void testGetSourcesForUnknownTarget() {
+		assertEquals(index.getSourcesLinkingToTarget("place", "place:0001").size(), 0);
+	}
+
+	@Test
+	public void testSourcesAreNotChangedByLaterChangesToIndex() {
+		for (int i = 0; i < 3; i++) {
+			index.replaceLinksFromSource("book", "book:" + i,
+					createLinkListWithLinksFromSourceToTargetIds("book:" + i, "place:0001"));
+		}
+		IncomingLinkSources sources = index.getSourcesLinkingToTarget("place", "place:0001");
+
+		index.removeLinksFromSource("book", "book:0");
+		index.replaceLinksFromSource("book", "book:3",
+				createLinkListWithLinksFromSourceToTargetIds("book:3", "place:0001"));
+
+		List<String> sourceIds = new ArrayList<>();
+		sources.forEachSourceInRange(0, Integer.MAX_VALUE,
+				(sourceType, sourceId) -> sourceIds.add(sourceId));
+		assertEquals(sources.size(), 3);
+		assertEquals(sourceIds, Arrays.asList("book:0", "book:1", "book:2"));
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.data.DataGroup;
+
+public class IncomingLinkIteratorTest {
+	private List<DataGroup> links;
+	private List<String> requestedRanges;
+	private BiFunction<Integer, Integer, List<DataGroup>> pageReader;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		links = new ArrayList<>();
+		requestedRanges = new ArrayList<>();
+		pageReader = (fromIndex, toIndex) -> {
+			requestedRanges.add(fromIndex + "-" + toIndex);
+			return links.subList(Math.min(fromIndex, links.size()),
+					Math.min(toIndex, links.size()));
+		};
+	}
+
+	private void addLinks(int noOfLinks) {
+		for (int i = 0; i < noOfLinks; i++) {
+			links.add(new DataGroupSpy("link" + i));
+		}
+	}
+
+	private List<String> readAllNames(IncomingLinkIterator iterator) {
+		List<String> names = new ArrayList<>();
+		while (iterator.hasNext()) {
+			names.add(iterator.next().getNameInData());
+		}
+		return names;
+	}
+
+	private IncomingLinkIterator createIteratorUsingPageSize(int pageSize) {
+		return IncomingLinkIterator.usingPageReaderNoOfSourcesAndPageSize(pageReader,
+				links.size(), pageSize);
+	}
+
+	@Test
+	public void testNoLinks() {
+		IncomingLinkIterator iterator = createIteratorUsingPageSize(2);
+
+		assertFalse(iterator.hasNext());
+		assertEquals(requestedRanges, Collections.emptyList());
+	}
+
+	@Test(expectedExceptions = NoSuchElementException.class)
+	public void testNextWithoutMoreLinks() {
+		createIteratorUsingPageSize(2).next();
+	}
+
+	@Test
+	public void testLinksAreReadPageByPage() {
+		addLinks(5);
+		IncomingLinkIterator iterator = createIteratorUsingPageSize(2);
+
+		iterator.next();
+		assertEquals(requestedRanges, Collections.singletonList("0-2"));
+
+		assertEquals(readAllNames(iterator), Arrays.asList("link1", "link2", "link3", "link4"));
+		assertEquals(requestedRanges, Arrays.asList("0-2", "2-4", "4-5"));
+	}
+
+	@Test
+	public void testPageSizeAtMaxValueReadsOnePage() {
+		addLinks(3);
+		IncomingLinkIterator iterator = createIteratorUsingPageSize(Integer.MAX_VALUE);
+
+		assertEquals(readAllNames(iterator).size(), 3);
+		assertEquals(requestedRanges, Collections.singletonList("0-3"));
+	}
+
+	@Test
+	public void testEmptyPagesAreSkipped() {
+		addLinks(5);
+		BiFunction<Integer, Integer, List<DataGroup>> pageReaderWithEmptyPages = (fromIndex,
+				toIndex) -> fromIndex < 4 ? Collections.emptyList()
+						: pageReader.apply(fromIndex, toIndex);
+		IncomingLinkIterator iterator = IncomingLinkIterator
+				.usingPageReaderNoOfSourcesAndPageSize(pageReaderWithEmptyPages, 5, 2);
+
+		assertEquals(readAllNames(iterator), Collections.singletonList("link4"));
+		assertEquals(requestedRanges, Collections.singletonList("4-5"));
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "pageSize must be larger than zero")
+	public void testPageSizeMustBePositive() {
+		createIteratorUsingPageSize(0);
+	}
+}
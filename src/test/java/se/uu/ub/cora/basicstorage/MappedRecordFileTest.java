@@ -0,0 +1,201 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.data.DataAtomicProvider;
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.data.DataGroupProvider;
+
+public class MappedRecordFileTest {
+	private Path path = Paths.get("/tmp/mappedRecordFileTest.bin");
+	private List<DataGroup> readRecords;
+	private List<RecordSource> mappedRecords;
+	private RecordCache recordCache;
+
+	@BeforeMethod
+	public void beforeMethod() throws IOException {
+		DataGroupProvider.setDataGroupFactory(new DataGroupFactorySpy());
+		DataAtomicProvider.setDataAtomicFactory(new DataAtomicFactorySpy());
+		readRecords = new ArrayList<>();
+		mappedRecords = new ArrayList<>();
+		writeRecordsToFile(createPlace("place:0001"), createPlace("place:0002"));
+	}
+
+	@AfterMethod
+	public void afterMethod() throws IOException {
+		Files.deleteIfExists(path);
+	}
+
+	private void writeRecordsToFile(DataGroup... records) throws IOException {
+		try (OutputStream outputStream = Files.newOutputStream(path)) {
+			RecordListBinaryWriter.usingOutputStream(outputStream)
+					.writeChildren(Arrays.asList(records));
+		}
+	}
+
+	private DataGroup createPlace(String id) {
+		DataGroup place = new DataGroupSpy("authority");
+		DataGroup recordInfo = new DataGroupSpy("recordInfo");
+		recordInfo.addChild(new DataAtomicSpy("id", id));
+		recordInfo.addChild(new DataAtomicSpy("type", "place"));
+		place.addChild(recordInfo);
+		return place;
+	}
+
+	private MappedRecordFile readChildrenUsingCacheSize(int cacheSize) throws IOException {
+		recordCache = RecordCache.usingMaxNoOfRecords(cacheSize);
+		MappedRecordFile mappedRecordFile = MappedRecordFile.usingPathAndRecordCache(path,
+				recordCache);
+		readChildren(mappedRecordFile);
+		return mappedRecordFile;
+	}
+
+	private void readChildren(MappedRecordFile mappedRecordFile) throws IOException {
+		mappedRecordFile.readChildren((record, mappedRecord) -> {
+			readRecords.add(record);
+			mappedRecords.add(mappedRecord);
+		});
+	}
+
+	private String getId(DataGroup record) {
+		return record.getFirstGroupWithNameInData("recordInfo")
+				.getFirstAtomicValueWithNameInData("id");
+	}
+
+	@Test
+	public void testReadChildren() throws IOException {
+		readChildrenUsingCacheSize(10);
+
+		assertEquals(readRecords.size(), 2);
+		assertEquals(getId(readRecords.get(0)), "place:0001");
+		assertEquals(getId(readRecords.get(1)), "place:0002");
+	}
+
+	@Test
+	public void testMappedRecordIsReadFromFile() throws IOException {
+		readChildrenUsingCacheSize(10);
+
+		DataGroup secondRecord = mappedRecords.get(1).get();
+
+		assertNotSame(secondRecord, readRecords.get(1));
+		assertEquals(secondRecord.getNameInData(), "authority");
+		assertEquals(getId(secondRecord), "place:0002");
+		assertEquals(secondRecord.getFirstGroupWithNameInData("recordInfo")
+				.getFirstAtomicValueWithNameInData("type"), "place");
+	}
+
+	@Test
+	public void testMappedRecordIsReadFromFileAfterFileIsRemoved() throws IOException {
+		readChildrenUsingCacheSize(10);
+		Files.delete(path);
+
+		assertEquals(getId(mappedRecords.get(0).get()), "place:0001");
+	}
+
+	@Test
+	public void testMappedRecordIsCached() throws IOException {
+		readChildrenUsingCacheSize(10);
+
+		assertSame(mappedRecords.get(0).get(), mappedRecords.get(0).get());
+	}
+
+	@Test
+	public void testMappedRecordIsReadAgainWhenRemovedFromCache() throws IOException {
+		readChildrenUsingCacheSize(1);
+
+		DataGroup firstRecord = mappedRecords.get(0).get();
+		mappedRecords.get(1).get();
+
+		assertNotSame(mappedRecords.get(0).get(), firstRecord);
+		assertEquals(getId(mappedRecords.get(0).get()), "place:0001");
+	}
+
+	@Test
+	public void testMappedRecordIsConvertedBeforeItIsCached() throws IOException {
+		recordCache = RecordCache.usingMaxNoOfRecords(10);
+		MappedRecordFile mappedRecordFile = MappedRecordFile
+				.usingPathRecordCacheAndRecordConverter(path, recordCache,
+						ImmutableDataGroup::usingDataGroup);
+		readChildren(mappedRecordFile);
+
+		DataGroup firstRecord = mappedRecords.get(0).get();
+
+		assertTrue(firstRecord instanceof ImmutableDataGroup);
+		assertSame(mappedRecords.get(0).get(), firstRecord);
+	}
+
+	@Test
+	public void testGetWithoutCachingDoesNotAddRecordToCache() throws IOException {
+		readChildrenUsingCacheSize(10);
+
+		DataGroup firstRecord = mappedRecords.get(0).getWithoutCaching();
+
+		assertEquals(getId(firstRecord), "place:0001");
+		assertEquals(recordCache.size(), 0);
+	}
+
+	@Test
+	public void testReleaseRemovesRecordsOfFileFromCache() throws IOException {
+		MappedRecordFile mappedRecordFile = readChildrenUsingCacheSize(10);
+		recordCache.getOrLoad("otherKey", () -> createPlace("place:0003"));
+		mappedRecords.get(0).get();
+		mappedRecords.get(1).get();
+
+		mappedRecordFile.release();
+
+		assertEquals(recordCache.size(), 1);
+	}
+
+	@Test
+	public void testMappedRecordIsNotCachedAfterRelease() throws IOException {
+		MappedRecordFile mappedRecordFile = readChildrenUsingCacheSize(10);
+
+		mappedRecordFile.release();
+		DataGroup firstRecord = mappedRecords.get(0).get();
+
+		assertEquals(getId(firstRecord), "place:0001");
+		assertNotSame(mappedRecords.get(0).get(), firstRecord);
+		assertEquals(recordCache.size(), 0);
+	}
+
+	@Test
+	public void testGetPath() throws IOException {
+		MappedRecordFile mappedRecordFile = readChildrenUsingCacheSize(10);
+
+		assertEquals(mappedRecordFile.getPath(), path);
+	}
+}
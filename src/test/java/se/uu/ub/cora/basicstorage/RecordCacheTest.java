@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.data.DataGroup;
+
+public class RecordCacheTest {
+	private RecordCache recordCache;
+	private List<String> loadedKeys;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		recordCache = RecordCache.usingMaxNoOfRecords(2);
+		loadedKeys = new ArrayList<>();
+	}
+
+	private DataGroup getOrLoad(String key) {
+		return recordCache.getOrLoad(key, createLoader(key));
+	}
+
+	private Supplier<DataGroup> createLoader(String key) {
+		return () -> {
+			loadedKeys.add(key);
+			return new DataGroupSpy(key);
+		};
+	}
+
+	@Test
+	public void testGetOrLoadLoadsRecordOnce() {
+		DataGroup first = getOrLoad("place:0001");
+		DataGroup second = getOrLoad("place:0001");
+
+		assertSame(second, first);
+		assertEquals(first.getNameInData(), "place:0001");
+		assertEquals(loadedKeys.size(), 1);
+		assertEquals(recordCache.size(), 1);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedRecordIsRemoved() {
+		DataGroup first = getOrLoad("place:0001");
+		DataGroup second = getOrLoad("place:0002");
+		getOrLoad("place:0001");
+		getOrLoad("place:0003");
+
+		assertEquals(recordCache.size(), 2);
+		assertSame(getOrLoad("place:0001"), first);
+		assertNotSame(getOrLoad("place:0002"), second);
+		assertEquals(loadedKeys.size(), 4);
+	}
+
+	@Test
+	public void testRemoveRecordsWithKeysMatching() {
+		getOrLoad("place:0001");
+		getOrLoad("book:0001");
+
+		recordCache.removeRecordsWithKeysMatching(key -> ((String) key).startsWith("place"));
+
+		assertEquals(recordCache.size(), 1);
+		getOrLoad("book:0001");
+		getOrLoad("place:0001");
+		assertEquals(loadedKeys.size(), 3);
+	}
+}
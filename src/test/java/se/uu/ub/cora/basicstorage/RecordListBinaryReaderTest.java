@@ -0,0 +1,223 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.data.DataAtomicProvider;
+import se.uu.ub.cora.data.DataElement;
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.data.DataGroupProvider;
+
+public class RecordListBinaryReaderTest {
+
+	@BeforeMethod
+	public void beforeMethod() {
+		DataGroupProvider.setDataGroupFactory(new DataGroupFactorySpy());
+		DataAtomicProvider.setDataAtomicFactory(new DataAtomicFactorySpy());
+	}
+
+	private byte[] writeChildren(List<? extends DataElement> children) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		RecordListBinaryWriter.usingOutputStream(outputStream).writeChildren(children);
+		return outputStream.toByteArray();
+	}
+
+	private List<DataGroup> readChildren(byte[] bytes) throws IOException {
+		List<DataGroup> children = new ArrayList<>();
+		RecordListBinaryReader.usingInputStream(new ByteArrayInputStream(bytes))
+				.readChildren(children::add);
+		return children;
+	}
+
+	private DataGroup createPlace(String id) {
+		DataGroup place = new DataGroupSpy("authority");
+		DataGroup recordInfo = new DataGroupSpy("recordInfo");
+		recordInfo.addChild(new DataAtomicSpy("id", id));
+		recordInfo.addChild(new DataAtomicSpy("type", "place"));
+		place.addChild(recordInfo);
+		return place;
+	}
+
+	@Test
+	public void testWriteAndReadChildren() throws IOException {
+		List<DataGroup> children = readChildren(
+				writeChildren(Arrays.asList(createPlace("place:0001"), createPlace("place:0002"))));
+
+		assertEquals(children.size(), 2);
+		assertEquals(children.get(0).getNameInData(), "authority");
+		DataGroup recordInfo = children.get(1).getFirstGroupWithNameInData("recordInfo");
+		assertEquals(recordInfo.getFirstAtomicValueWithNameInData("id"), "place:0002");
+		assertEquals(recordInfo.getFirstAtomicValueWithNameInData("type"), "place");
+		assertNull(children.get(0).getRepeatId());
+	}
+
+	@Test
+	public void testWriteAndReadRepeatIdsAndAttributes() throws IOException {
+		DataGroup place = createPlace("place:0001");
+		DataGroup name = new DataGroupSpy("name");
+		name.setRepeatId("1");
+		name.addAttributeByIdWithValue("type", "authorized");
+		DataAtomicSpy value = new DataAtomicSpy("value", "Uppsala");
+		value.setRepeatId("2");
+		name.addChild(value);
+		place.addChild(name);
+
+		DataGroup readName = readChildren(writeChildren(Arrays.asList(place))).get(0)
+				.getFirstGroupWithNameInData("name");
+
+		assertEquals(readName.getRepeatId(), "1");
+		assertEquals(readName.getAttributes().get("type"), "authorized");
+		assertEquals(((DataAtomicSpy) readName.getChildren().get(0)).getRepeatId(), "2");
+		assertEquals(readName.getFirstAtomicValueWithNameInData("value"), "Uppsala");
+	}
+
+	@Test
+	public void testRepeatedNamesAreWrittenOnce() throws IOException {
+		byte[] one = writeChildren(Arrays.asList(createPlace("place:0001")));
+		byte[] two = writeChildren(
+				Arrays.asList(createPlace("place:0001"), createPlace("place:0002")));
+
+		int sizeOfOneRecordWithoutHeader = one.length - RecordListBinaryWriter.MAGIC.length - 1;
+		assertTrue(two.length - one.length < sizeOfOneRecordWithoutHeader);
+	}
+
+	@Test
+	public void testWriteAndReadNoChildren() throws IOException {
+		assertTrue(readChildren(writeChildren(new ArrayList<DataGroup>())).isEmpty());
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "can not read binary file: unknown format")
+	public void testReadUnknownFormat() throws IOException {
+		readChildren("{\"name\":\"recordList\"}".getBytes());
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "can not read binary file: unknown element type 7")
+	public void testReadUnknownElementType() throws IOException {
+		byte[] bytes = writeChildren(Arrays.asList(createPlace("place:0001")));
+		bytes[RecordListBinaryWriter.MAGIC.length + 1] = 7;
+		readChildren(bytes);
+	}
+
+	@Test(expectedExceptions = EOFException.class)
+	public void testReadTruncatedFile() throws IOException {
+		byte[] bytes = writeChildren(Arrays.asList(createPlace("place:0001")));
+		readChildren(Arrays.copyOf(bytes, bytes.length - 3));
+	}
+
+	private DataGroup createPlaceWithNameAndAttribute() {
+		DataGroup place = createPlace("place:0001");
+		DataGroup name = new DataGroupSpy("name");
+		name.setRepeatId("1");
+		name.addAttributeByIdWithValue("type", "authorized");
+		name.addChild(new DataAtomicSpy("value", "Uppsala"));
+		place.addChild(name);
+		return place;
+	}
+
+	private byte[] writeChildUsingSharedNames(DataGroup child) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		RecordListBinaryWriter writer = RecordListBinaryWriter
+				.usingOutputStreamAndSharedNames(outputStream);
+		writer.writeChild(child);
+		writer.flush();
+		return outputStream.toByteArray();
+	}
+
+	@Test
+	public void testWriteAndReadChildUsingSharedNames() throws IOException {
+		byte[] bytes = writeChildUsingSharedNames(createPlaceWithNameAndAttribute());
+
+		DataGroup place = RecordListBinaryReader
+				.usingInputStreamAndSharedNames(new ByteArrayInputStream(bytes)).readChild();
+
+		assertEquals(place.getNameInData(), "authority");
+		assertEquals(place.getFirstGroupWithNameInData("recordInfo")
+				.getFirstAtomicValueWithNameInData("id"), "place:0001");
+		DataGroup name = place.getFirstGroupWithNameInData("name");
+		assertEquals(name.getRepeatId(), "1");
+		assertEquals(name.getAttributes().get("type"), "authorized");
+		assertEquals(name.getFirstAtomicValueWithNameInData("value"), "Uppsala");
+	}
+
+	@Test
+	public void testSharedNamesAreNotWrittenWithChild() throws IOException {
+		DataGroup place = new DataGroupSpy("aLongNameInDataThatIsOnlyStoredInTheSharedNames");
+
+		byte[] bytes = writeChildUsingSharedNames(place);
+
+		assertTrue(bytes.length < place.getNameInData().length());
+	}
+
+	@Test
+	public void testNamesAreWrittenWithChildWhenMaxNoOfSharedNamesIsReached()
+			throws IOException {
+		SymbolTable.setMaxNoOfNames(SymbolTable.getNoOfNames());
+		try {
+			DataGroup place = new DataGroupSpy("aNameInDataWrittenAfterSharedNamesAreFull");
+			place.addChild(new DataAtomicSpy("anAtomicWrittenAfterSharedNamesAreFull", "value"));
+
+			byte[] bytes = writeChildUsingSharedNames(place);
+
+			DataGroup readPlace = RecordListBinaryReader
+					.usingInputStreamAndSharedNames(new ByteArrayInputStream(bytes)).readChild();
+			assertEquals(readPlace.getNameInData(), "aNameInDataWrittenAfterSharedNamesAreFull");
+			assertEquals(readPlace.getFirstAtomicValueWithNameInData(
+					"anAtomicWrittenAfterSharedNamesAreFull"), "value");
+		} finally {
+			SymbolTable.resetMaxNoOfNames();
+		}
+	}
+
+	@Test
+	public void testCopyChildUsingSharedNamesToWriter() throws IOException {
+		byte[] compactChild = writeChildUsingSharedNames(createPlaceWithNameAndAttribute());
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		RecordListBinaryWriter writer = RecordListBinaryWriter.usingOutputStream(outputStream);
+
+		writer.writeHeader(2);
+		writer.writeCompactChild(compactChild);
+		writer.writeChild(createPlace("place:0002"));
+		writer.flush();
+
+		List<DataGroup> children = readChildren(outputStream.toByteArray());
+		assertEquals(children.size(), 2);
+		DataGroup name = children.get(0).getFirstGroupWithNameInData("name");
+		assertEquals(name.getRepeatId(), "1");
+		assertEquals(name.getAttributes().get("type"), "authorized");
+		assertEquals(name.getFirstAtomicValueWithNameInData("value"), "Uppsala");
+		assertEquals(children.get(1).getFirstGroupWithNameInData("recordInfo")
+				.getFirstAtomicValueWithNameInData("id"), "place:0002");
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class RecordListJsonReaderTest {
+
+	private List<String> readChildren(String json) throws IOException {
+		List<String> children = new ArrayList<>();
+		RecordListJsonReader.usingReader(new StringReader(json)).readChildren(children::add);
+		return children;
+	}
+
+	@Test
+	public void testReadChildrenOneAtATime() throws IOException {
+		String first = "{\"name\":\"place\",\"children\":[{\"name\":\"id\",\"value\":\"1\"}]}";
+		String second = "{\"name\":\"place\",\"value\":\"2\"}";
+		List<String> children = readChildren(
+				"{\"children\":[" + first + "," + second + "],\"name\":\"recordList\"}");
+
+		assertEquals(children.size(), 2);
+		assertEquals(children.get(0), first);
+		assertEquals(children.get(1), second);
+	}
+
+	@Test
+	public void testReadChildrenPrettyPrintedWithNameFirst() throws IOException {
+		List<String> children = readChildren("{\n    \"name\": \"recordList\",\n"
+				+ "    \"children\": [\n        {\n            \"name\": \"place\"\n"
+				+ "        }\n    ]\n}");
+
+		assertEquals(children.size(), 1);
+		assertEquals(children.get(0), "{\n            \"name\": \"place\"\n        }");
+	}
+
+	@Test
+	public void testBracesAndEscapedQuotesInsideStringsAreCopied() throws IOException {
+		String child = "{\"name\":\"text\",\"value\":\"a } ] \\\" { [ \\\\\"}";
+		List<String> children = readChildren("{\"children\":[" + child + "]}");
+
+		assertEquals(children.get(0), child);
+	}
+
+	@Test
+	public void testOtherValuesAreSkipped() throws IOException {
+		List<String> children = readChildren("{\"attributes\":{\"type\":\"x\"},\"repeatId\":12,"
+				+ "\"flag\":true,\"children\":[{\"name\":\"a\"}],\"other\":null}");
+
+		assertEquals(children.size(), 1);
+	}
+
+	@Test
+	public void testNoChildren() throws IOException {
+		assertTrue(readChildren("{\"name\":\"atomicNameInData\",\"value\":\"atomicValue\"}")
+				.isEmpty());
+		assertTrue(readChildren("{\"children\":[ ],\"name\":\"recordList\"}").isEmpty());
+	}
+
+	@Test
+	public void testChildLargerThanBuffer() throws IOException {
+		StringBuilder value = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			value.append("abc\\\"");
+		}
+		String child = "{\"name\":\"text\",\"value\":\"" + value + "\"}";
+		List<String> children = readChildren("{\"children\":[" + child + "," + child + "]}");
+
+		assertEquals(children.size(), 2);
+		assertEquals(children.get(1), child);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "can not read json: unexpected end of file")
+	public void testTruncatedJson() throws IOException {
+		readChildren("{\"children\":[{\"name\":\"pla");
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "can not read json: expected ',' but found '\\{'")
+	public void testMissingComma() throws IOException {
+		readChildren("{\"children\":[{\"name\":\"a\"} {\"name\":\"b\"}]}");
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "can not read json: unexpected end of file")
+	public void testEmptyFile() throws IOException {
+		readChildren("");
+	}
+}
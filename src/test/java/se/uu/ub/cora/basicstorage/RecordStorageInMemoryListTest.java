@@ -84,6 +84,64 @@ public class RecordStorageInMemoryListTest {
 		assertEquals(readResult.totalNumberOfMatches, 2);
 	}
 
+	@Test
+	public void testListWithFromNoAndToNoReturnsRecordsInRangeInCreatedOrder() {
+		createPlaceInStorageWithUppsalaStorageTerm();
+		createPlaceInStorageWithStockholmStorageTerm();
+		createPlaceInStorageWithUppsalaStorageAndStockholmTerm();
+
+		StorageReadResult readResult = recordStorage.readList("place",
+				createFilterWithFromNoAndToNo("2", "3"));
+
+		assertEquals(readResult.listOfDataGroups.size(), 2);
+		assertEquals(readResult.start, 1);
+		assertEquals(readResult.totalNumberOfMatches, 3);
+		Iterator<DataGroup> iterator = readResult.listOfDataGroups.iterator();
+		assertEquals(getRecordId(iterator.next()), "place:0002");
+		assertEquals(getRecordId(iterator.next()), "place:0003");
+	}
+
+	private String getRecordId(DataGroup record) {
+		return record.getFirstGroupWithNameInData("recordInfo")
+				.getFirstAtomicValueWithNameInData("id");
+	}
+
+	@Test
+	public void testListWithToNoLargerThanNoOfMatches() {
+		createPlaceInStorageWithUppsalaStorageTerm();
+		createPlaceInStorageWithStockholmStorageTerm();
+
+		StorageReadResult readResult = recordStorage.readList("place",
+				createFilterWithFromNoAndToNo("2", "10"));
+
+		assertEquals(readResult.listOfDataGroups.size(), 1);
+		assertEquals(readResult.totalNumberOfMatches, 2);
+	}
+
+	@Test
+	public void testListWithFilterAndFromNoAndToNo() {
+		createPlaceInStorageWithUppsalaStorageTerm();
+		createPlaceInStorageWithStockholmStorageTerm();
+		createPlaceInStorageWithUppsalaStorageAndStockholmTerm();
+
+		DataGroup filter = createFilterWithFromNoAndToNo("2", "2");
+		filter.addChild(DataCreator.createFilterPartWithRepeatIdAndKeyAndValue("0", "placeName",
+				"Uppsala"));
+		StorageReadResult readResult = recordStorage.readList("place", filter);
+
+		assertEquals(readResult.listOfDataGroups.size(), 1);
+		assertEquals(readResult.totalNumberOfMatches, 2);
+		assertEquals(getRecordId(readResult.listOfDataGroups.iterator().next()), "place:0003");
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Filter value for fromNo is not a number: notANumber")
+	public void testListWithFromNoNotANumber() {
+		createPlaceInStorageWithUppsalaStorageTerm();
+
+		recordStorage.readList("place", createFilterWithFromNoAndToNo("notANumber", "2"));
+	}
+
 	@Test
 	public void testListWithCollectedStorageTermReadWithNonMatchingFilter() {
 		createPlaceInStorageWithUppsalaStorageTerm();
@@ -145,6 +203,24 @@ public class RecordStorageInMemoryListTest {
 				.getFirstAtomicValueWithNameInData("id"), "place:0001");
 	}
 
+	@Test
+	public void testListSkipsRecordIdsInTermIndexWithoutStoredRecord() {
+		createPlaceInStorageWithUppsalaStorageTerm();
+		((RecordStorageInMemory) recordStorage).collectedTermsHolder.storeCollectedTerms("place",
+				"place:9999", createCollectedDataWithUppsalaStorageTerm(), dataDivider);
+
+		DataGroup filter = DataCreator.createEmptyFilter();
+		filter.addChild(DataCreator.createFilterPartWithRepeatIdAndKeyAndValue("0", "placeName",
+				"Uppsala"));
+		StorageReadResult readResult = recordStorage.readList("place", filter);
+
+		assertEquals(readResult.listOfDataGroups.size(), 1);
+		assertEquals(readResult.totalNumberOfMatches, 1);
+		assertEquals(readResult.listOfDataGroups.iterator().next()
+				.getFirstGroupWithNameInData("recordInfo").getFirstAtomicValueWithNameInData("id"),
+				"place:0001");
+	}
+
 	@Test
 	public void testListAfterUpdateWithNoCollectedStorageTermReadWithFilter() {
 		createPlaceInStorageWithUppsalaStorageTerm();
@@ -215,6 +291,109 @@ public class RecordStorageInMemoryListTest {
 				.getFirstAtomicValueWithNameInData("id"), "place:0003");
 	}
 
+	@Test
+	public void testListWithSameTermValueTwiceInOneRecordReturnsRecordOnce() {
+		DataGroup collectedData = createCollectedDataWithUppsalaStorageTerm();
+		DataGroup collectStorageTerm = collectedData.getFirstGroupWithNameInData("storage");
+		collectStorageTerm.addChild(DataCreator
+				.createStorageTermWithRepeatIdAndTermIdAndTermValueAndStorageKey("2",
+						"placeNameStorageTerm", "Uppsala", "placeName"));
+		createPlaceInStorageWithCollectedData(collectedData);
+
+		DataGroup filter = DataCreator.createEmptyFilter();
+		DataGroup part = DataCreator.createFilterPartWithRepeatIdAndKeyAndValue("0", "placeName",
+				"Uppsala");
+		filter.addChild(part);
+
+		StorageReadResult readResult = recordStorage.readList("place", filter);
+		assertEquals(readResult.listOfDataGroups.size(), 1);
+		assertEquals(readResult.totalNumberOfMatches, 1);
+	}
+
+	@Test
+	public void testListAfterUpdateToOtherTermValueDoesNotMatchOldValue() {
+		createPlaceInStorageWithUppsalaStorageTerm();
+		DataGroup collectedData = DataCreator.createCollectedDataWithTypeAndId("place",
+				"place:0001");
+		DataGroup collectStorageTerm = new DataGroupSpy("storage");
+		collectedData.addChild(collectStorageTerm);
+		collectStorageTerm.addChild(DataCreator
+				.createStorageTermWithRepeatIdAndTermIdAndTermValueAndStorageKey("1",
+						"placeNameStorageTerm", "Stockholm", "placeName"));
+		updateUppsalaPlaceInStorageWithCollectedData(collectedData);
+
+		DataGroup filter = DataCreator.createEmptyFilter();
+		DataGroup part = DataCreator.createFilterPartWithRepeatIdAndKeyAndValue("0", "placeName",
+				"Uppsala");
+		filter.addChild(part);
+		assertEquals(recordStorage.readList("place", filter).listOfDataGroups.size(), 0);
+
+		DataGroup stockholmFilter = DataCreator.createEmptyFilter();
+		stockholmFilter.addChild(DataCreator.createFilterPartWithRepeatIdAndKeyAndValue("0",
+				"placeName", "Stockholm"));
+		assertEquals(recordStorage.readList("place", stockholmFilter).listOfDataGroups.size(),
+				1);
+	}
+
+	@Test
+	public void testListAfterDeleteOfRecordWithTermsForTwoKeys() {
+		DataGroup collectedData = createCollectedDataWithUppsalaStorageTerm();
+		DataGroup collectStorageTerm = collectedData.getFirstGroupWithNameInData("storage");
+		collectStorageTerm.addChild(DataCreator
+				.createStorageTermWithRepeatIdAndTermIdAndTermValueAndStorageKey("2",
+						"placeCountryStorageTerm", "Sweden", "placeCountry"));
+		createPlaceInStorageWithCollectedData(collectedData);
+		createPlaceInStorageWithStockholmStorageTerm();
+
+		recordStorage.deleteByTypeAndId("place", "place:0001");
+
+		DataGroup nameFilter = DataCreator.createEmptyFilter();
+		nameFilter.addChild(DataCreator.createFilterPartWithRepeatIdAndKeyAndValue("0",
+				"placeName", "Uppsala"));
+		assertEquals(recordStorage.readList("place", nameFilter).listOfDataGroups.size(), 0);
+		DataGroup countryFilter = DataCreator.createEmptyFilter();
+		countryFilter.addChild(DataCreator.createFilterPartWithRepeatIdAndKeyAndValue("0",
+				"placeCountry", "Sweden"));
+		assertEquals(recordStorage.readList("place", countryFilter).listOfDataGroups.size(), 0);
+		DataGroup stockholmFilter = DataCreator.createEmptyFilter();
+		stockholmFilter.addChild(DataCreator.createFilterPartWithRepeatIdAndKeyAndValue("0",
+				"placeName", "Stockholm"));
+		assertEquals(recordStorage.readList("place", stockholmFilter).listOfDataGroups.size(),
+				1);
+	}
+
+	@Test
+	public void testListWithTwoFilterPartsReturnsRecordsMatchingBothParts() {
+		createPlaceInStorageWithUppsalaStorageTerm();
+		createPlaceInStorageWithStockholmStorageTerm();
+		createPlaceInStorageWithUppsalaStorageAndStockholmTerm();
+
+		DataGroup filter = DataCreator.createEmptyFilter();
+		filter.addChild(DataCreator.createFilterPartWithRepeatIdAndKeyAndValue("0", "placeName",
+				"Uppsala"));
+		filter.addChild(DataCreator.createFilterPartWithRepeatIdAndKeyAndValue("1", "placeName",
+				"Stockholm"));
+
+		Collection<DataGroup> readList = recordStorage.readList("place", filter).listOfDataGroups;
+		assertEquals(readList.size(), 1);
+		assertEquals(readList.iterator().next().getFirstGroupWithNameInData("recordInfo")
+				.getFirstAtomicValueWithNameInData("id"), "place:0003");
+	}
+
+	@Test
+	public void testListWithTwoFilterPartsOneNotMatchingReturnsNoRecords() {
+		createPlaceInStorageWithUppsalaStorageTerm();
+
+		DataGroup filter = DataCreator.createEmptyFilter();
+		filter.addChild(DataCreator.createFilterPartWithRepeatIdAndKeyAndValue("0", "placeName",
+				"Uppsala"));
+		filter.addChild(DataCreator.createFilterPartWithRepeatIdAndKeyAndValue("1",
+				"NOTplaceName", "Uppsala"));
+
+		Collection<DataGroup> readList = recordStorage.readList("place", filter).listOfDataGroups;
+		assertEquals(readList.size(), 0);
+	}
+
 	@Test
 	public void testUpdateMultipleStorageTermsNoConcurrentException() {
 		createPlaceInStorageWithUppsalaStorageTerm();
@@ -357,6 +536,27 @@ public class RecordStorageInMemoryListTest {
 		assertEquals(readResult.totalNumberOfMatches, 3);
 	}
 
+	@Test
+	public void testReadAbstractRecordListWithFromNoAndToNo() {
+		recordStorage = TestDataRecordInMemoryStorage.createRecordStorageInMemoryWithTestData();
+
+		createImageRecords();
+		createGenericBinaryRecord();
+
+		DataGroup filter = createFilterWithFromNoAndToNo("2", "3");
+		StorageReadResult readResult = recordStorage.readAbstractList("binary", filter);
+		assertEquals(readResult.listOfDataGroups.size(), 2);
+		assertEquals(readResult.start, 1);
+		assertEquals(readResult.totalNumberOfMatches, 3);
+	}
+
+	private DataGroup createFilterWithFromNoAndToNo(String fromNo, String toNo) {
+		DataGroup filter = DataCreator.createEmptyFilter();
+		filter.addChild(new DataAtomicSpy("fromNo", fromNo));
+		filter.addChild(new DataAtomicSpy("toNo", toNo));
+		return filter;
+	}
+
 	@Test
 	public void testAbstractListWithCollectedStorageTermReadWithMatchingUppsalaFilter() {
 		recordStorage = TestDataRecordInMemoryStorage.createRecordStorageInMemoryWithTestData();
@@ -515,4 +715,30 @@ public class RecordStorageInMemoryListTest {
 				emptyFilter).listOfDataGroups;
 		assertEquals(recordList.size(), 2);
 	}
+
+	@Test
+	public void testReadAbstractRecordListAfterRecordTypeIsCreatedAndDeleted() {
+		recordStorage = TestDataRecordInMemoryStorage.createRecordStorageInMemoryWithTestData();
+		createChildOfAbstractAuthorityRecord();
+		recordStorage.readAbstractList("abstractAuthority", emptyFilter);
+
+		DataGroup otherChildRecordType = DataCreator
+				.createRecordTypeWithIdAndUserSuppliedIdAndParentId("otherChildToAbstractAuthority",
+						"true", "abstractAuthority");
+		recordStorage.create("recordType", "otherChildToAbstractAuthority", otherChildRecordType,
+				DataCreator.createEmptyCollectedData(), emptyLinkList, dataDivider);
+		DataGroup dataGroup = DataCreator
+				.createDataGroupWithNameInDataAndRecordInfoWithRecordTypeAndRecordId("nameInData",
+						"otherChildToAbstractAuthority", "otherChildToAbstractAuthority:0001");
+		recordStorage.create("otherChildToAbstractAuthority", "otherChildToAbstractAuthority:0001",
+				dataGroup, DataCreator.createEmptyCollectedData(), emptyLinkList, dataDivider);
+
+		assertEquals(recordStorage.readAbstractList("abstractAuthority",
+				emptyFilter).listOfDataGroups.size(), 2);
+
+		recordStorage.deleteByTypeAndId("recordType", "otherChildToAbstractAuthority");
+
+		assertEquals(recordStorage.readAbstractList("abstractAuthority",
+				emptyFilter).listOfDataGroups.size(), 1);
+	}
 }
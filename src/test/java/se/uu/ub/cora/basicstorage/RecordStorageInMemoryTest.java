@@ -25,10 +25,17 @@ import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -140,10 +147,10 @@ public class RecordStorageInMemoryTest {
 		assertEquals(generatedLinksPointToRecord.size(), 2);
 
 		Iterator<DataGroup> generatedLinks = generatedLinksPointToRecord.iterator();
-		assertRecordLinkIsCorrect(generatedLinks.next(), FROM_RECORD_TYPE, "fromRecordId2",
-				TO_RECORD_TYPE, TO_RECORD_ID);
 		assertRecordLinkIsCorrect(generatedLinks.next(), FROM_RECORD_TYPE, FROM_RECORD_ID,
 				TO_RECORD_TYPE, TO_RECORD_ID);
+		assertRecordLinkIsCorrect(generatedLinks.next(), FROM_RECORD_TYPE, "fromRecordId2",
+				TO_RECORD_TYPE, TO_RECORD_ID);
 
 		assertNoGeneratedLinksForRecordTypeAndRecordId(TO_RECORD_TYPE, "NOT_toRecordId");
 		assertNoGeneratedLinksForRecordTypeAndRecordId("NOT_toRecordType", TO_RECORD_ID);
@@ -306,6 +313,56 @@ public class RecordStorageInMemoryTest {
 		assertNotNull(image);
 	}
 
+	@Test(expectedExceptions = RecordNotFoundException.class)
+	public void testReadRecordOfAbstractTypeAfterImplementingRecordIsDeleted() {
+		recordStorage = TestDataRecordInMemoryStorage.createRecordStorageInMemoryWithTestData();
+		createImageRecords();
+
+		recordStorage.deleteByTypeAndId("image", "image:0001");
+
+		recordStorage.read("binary", "image:0001");
+	}
+
+	@Test(expectedExceptions = RecordNotFoundException.class)
+	public void testReadRecordOfAbstractTypeWithIdOnlyInNotImplementingType() {
+		recordStorage = TestDataRecordInMemoryStorage.createRecordStorageInMemoryWithTestData();
+		recordStorage.create("place", "image:0003", createDataGroupWithRecordInfo(),
+				emptyLinkList, emptyLinkList, dataDivider);
+
+		recordStorage.read("binary", "image:0003");
+	}
+
+	@Test
+	public void testReadRecordOfAbstractTypeWithSameIdInImplementingAndOtherType() {
+		recordStorage = TestDataRecordInMemoryStorage.createRecordStorageInMemoryWithTestData();
+		recordStorage.create("place", "image:0001", createDataGroupWithRecordInfo(),
+				emptyLinkList, emptyLinkList, dataDivider);
+		createImageRecords();
+
+		DataGroup image = recordStorage.read("binary", "image:0001");
+
+		assertEquals(image.getFirstGroupWithNameInData("recordInfo")
+				.getFirstAtomicValueWithNameInData("type"), "image");
+	}
+
+	@Test
+	public void testReadRecordOfAbstractTypeWithSameIdInTwoImplementingTypes() {
+		recordStorage = TestDataRecordInMemoryStorage.createRecordStorageInMemoryWithTestData();
+		recordStorage.create("image", "binary:0001", DataCreator
+				.createDataGroupWithNameInDataAndRecordInfoWithRecordTypeAndRecordId("nameInData",
+						"image", "binary:0001"),
+				emptyLinkList, emptyLinkList, dataDivider);
+		recordStorage.create("genericBinary", "binary:0001", DataCreator
+				.createDataGroupWithNameInDataAndRecordInfoWithRecordTypeAndRecordId("nameInData",
+						"genericBinary", "binary:0001"),
+				emptyLinkList, emptyLinkList, dataDivider);
+
+		DataGroup binary = recordStorage.read("binary", "binary:0001");
+
+		assertEquals(binary.getFirstGroupWithNameInData("recordInfo")
+				.getFirstAtomicValueWithNameInData("type"), "genericBinary");
+	}
+
 	@Test(expectedExceptions = RecordNotFoundException.class)
 	public void testReadMissingRecordType() {
 		recordStorage.read("", "");
@@ -488,6 +545,86 @@ public class RecordStorageInMemoryTest {
 		assertFalse(recordStorage.linksExistForRecord(TO_RECORD_TYPE, TO_RECORD_ID));
 	}
 
+	@Test
+	public void testCountRecordsLinkingToRecord() {
+		createTwoLinksPointingToSameRecordFromDifferentRecords();
+		RecordStorageInMemory inMemoryStorage = (RecordStorageInMemory) recordStorage;
+
+		assertEquals(inMemoryStorage.countRecordsLinkingToRecord(TO_RECORD_TYPE, TO_RECORD_ID), 2);
+		assertEquals(inMemoryStorage.countRecordsOfTypeLinkingToRecord(TO_RECORD_TYPE,
+				TO_RECORD_ID, FROM_RECORD_TYPE), 2);
+		assertEquals(inMemoryStorage.countRecordsOfTypeLinkingToRecord(TO_RECORD_TYPE,
+				TO_RECORD_ID, "otherRecordType"), 0);
+		assertEquals(inMemoryStorage.countRecordsLinkingToRecord(TO_RECORD_TYPE, "NOT_toRecordId"),
+				0);
+
+		recordStorage.deleteByTypeAndId(FROM_RECORD_TYPE, FROM_RECORD_ID);
+		assertEquals(inMemoryStorage.countRecordsLinkingToRecord(TO_RECORD_TYPE, TO_RECORD_ID), 1);
+	}
+
+	@Test
+	public void testIterateLinksPointingToRecord() {
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		recordStorage.create(FROM_RECORD_TYPE, FROM_RECORD_ID, dataGroup, emptyLinkList,
+				createLinkListWithThreeLinksTwoOfThemFromSameRecord(FROM_RECORD_ID), dataDivider);
+		recordStorage.create(FROM_RECORD_TYPE, "fromRecordId2", dataGroup, emptyLinkList,
+				createLinkListWithTwoLinks("fromRecordId2"), dataDivider);
+		RecordStorageInMemory inMemoryStorage = (RecordStorageInMemory) recordStorage;
+
+		Iterator<DataGroup> links = inMemoryStorage.iterateLinksPointingToRecord(TO_RECORD_TYPE,
+				TO_RECORD_ID, 1);
+
+		List<DataGroup> iteratedLinks = new ArrayList<>();
+		links.forEachRemaining(iteratedLinks::add);
+		assertEquals(iteratedLinks, new ArrayList<>(recordStorage
+				.generateLinkCollectionPointingToRecord(TO_RECORD_TYPE, TO_RECORD_ID)));
+		assertEquals(iteratedLinks.size(), 4);
+		assertRecordLinkIsCorrect(iteratedLinks.get(3), FROM_RECORD_TYPE, "fromRecordId2",
+				TO_RECORD_TYPE, TO_RECORD_ID);
+	}
+
+	@Test
+	public void testIterateLinksUsesLinkingRecordsFromWhenIterationStarted() {
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		for (String fromRecordId : Arrays.asList(FROM_RECORD_ID, "fromRecordId2",
+				"fromRecordId3")) {
+			recordStorage.create(FROM_RECORD_TYPE, fromRecordId, dataGroup, emptyLinkList,
+					createLinkListWithTwoLinks(fromRecordId), dataDivider);
+		}
+		Iterator<DataGroup> links = ((RecordStorageInMemory) recordStorage)
+				.iterateLinksPointingToRecord(TO_RECORD_TYPE, TO_RECORD_ID, 1);
+		assertRecordLinkIsCorrect(links.next(), FROM_RECORD_TYPE, FROM_RECORD_ID,
+				TO_RECORD_TYPE, TO_RECORD_ID);
+
+		recordStorage.deleteByTypeAndId(FROM_RECORD_TYPE, FROM_RECORD_ID);
+		recordStorage.create(FROM_RECORD_TYPE, "fromRecordId4", dataGroup, emptyLinkList,
+				createLinkListWithTwoLinks("fromRecordId4"), dataDivider);
+
+		List<DataGroup> iteratedLinks = new ArrayList<>();
+		links.forEachRemaining(iteratedLinks::add);
+		assertEquals(iteratedLinks.size(), 2);
+		assertRecordLinkIsCorrect(iteratedLinks.get(0), FROM_RECORD_TYPE, "fromRecordId2",
+				TO_RECORD_TYPE, TO_RECORD_ID);
+		assertRecordLinkIsCorrect(iteratedLinks.get(1), FROM_RECORD_TYPE, "fromRecordId3",
+				TO_RECORD_TYPE, TO_RECORD_ID);
+	}
+
+	@Test
+	public void testIterateLinksSkipsLinkingRecordsDeletedDuringIteration() {
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		recordStorage.create(FROM_RECORD_TYPE, FROM_RECORD_ID, dataGroup, emptyLinkList,
+				createLinkListWithTwoLinks(FROM_RECORD_ID), dataDivider);
+		recordStorage.create(FROM_RECORD_TYPE, "fromRecordId2", dataGroup, emptyLinkList,
+				createLinkListWithTwoLinks("fromRecordId2"), dataDivider);
+		Iterator<DataGroup> links = ((RecordStorageInMemory) recordStorage)
+				.iterateLinksPointingToRecord(TO_RECORD_TYPE, TO_RECORD_ID, 1);
+		links.next();
+
+		recordStorage.deleteByTypeAndId(FROM_RECORD_TYPE, "fromRecordId2");
+
+		assertFalse(links.hasNext());
+	}
+
 	@Test(expectedExceptions = RecordNotFoundException.class)
 	public void testDeleteNotFound() {
 		DataGroup dataGroup = createDataGroupWithRecordInfo();
@@ -588,6 +725,36 @@ public class RecordStorageInMemoryTest {
 		assertNoOfLinksPointingToRecord(TO_RECORD_TYPE, TO_RECORD_ID, 1);
 	}
 
+	@Test
+	public void testUpdateWithEqualLinkListKeepsStoredLinkList() {
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		DataGroup linkList = createLinkListWithTwoLinks(FROM_RECORD_ID);
+		recordStorage.create(FROM_RECORD_TYPE, FROM_RECORD_ID, dataGroup, emptyLinkList, linkList,
+				dataDivider);
+
+		recordStorage.update(FROM_RECORD_TYPE, FROM_RECORD_ID, dataGroup, emptyCollectedData,
+				createLinkListWithTwoLinks(FROM_RECORD_ID), dataDivider);
+
+		assertSame(recordStorage.readLinkList(FROM_RECORD_TYPE, FROM_RECORD_ID), linkList);
+		assertNoOfLinksPointingToRecord(TO_RECORD_TYPE, TO_RECORD_ID, 1);
+	}
+
+	@Test
+	public void testUpdateWithChangedLinkListKeepsOrderOfOtherLinkingRecords() {
+		createTwoLinksPointingToSameRecordFromDifferentRecords();
+		DataGroup linkList = createLinkListWithTwoLinks(FROM_RECORD_ID);
+		linkList.addChild(DataCreator.createRecordToRecordLink(FROM_RECORD_TYPE, FROM_RECORD_ID,
+				TO_RECORD_TYPE, "toRecordId3"));
+
+		recordStorage.update(FROM_RECORD_TYPE, FROM_RECORD_ID, createDataGroupWithRecordInfo(),
+				emptyCollectedData, linkList, dataDivider);
+
+		assertSame(recordStorage.readLinkList(FROM_RECORD_TYPE, FROM_RECORD_ID), linkList);
+		assertCorrectTwoLinksPointingToSameRecordFromDifferentRecords(recordStorage
+				.generateLinkCollectionPointingToRecord(TO_RECORD_TYPE, TO_RECORD_ID));
+		assertNoOfLinksPointingToRecord(TO_RECORD_TYPE, "toRecordId3", 1);
+	}
+
 	@Test
 	public void testLinksFromSameRecordToSameRecordThanRemovingOne() {
 		DataGroup dataGroup = createDataGroupWithRecordInfo();
@@ -808,4 +975,40 @@ public class RecordStorageInMemoryTest {
 
 		recordStorage.read("abstractRecordType", "someType:0001");
 	}
+
+	@Test
+	public void testReadsRunConcurrentlyWithWrites() throws Exception {
+		DataGroup placeRecordType = DataCreator
+				.createRecordTypeWithIdAndUserSuppliedIdAndAbstract("place", "true", "false");
+		recordStorage.create("recordType", "place", placeRecordType, emptyLinkList,
+				emptyLinkList, dataDivider);
+		recordStorage.create("place", "place:0001", createDataGroupWithRecordInfo(),
+				emptyCollectedData, emptyLinkList, dataDivider);
+
+		AtomicBoolean writing = new AtomicBoolean(true);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<?>> readers = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			readers.add(executor.submit(() -> readWhileWriting(writing)));
+		}
+		for (int i = 2; i < 500; i++) {
+			recordStorage.create("place", "place:" + i, createDataGroupWithRecordInfo(),
+					emptyCollectedData, createLinkListWithTwoLinks("place:" + i), dataDivider);
+		}
+		writing.set(false);
+		for (Future<?> reader : readers) {
+			reader.get();
+		}
+		executor.shutdown();
+
+		assertEquals(recordStorage.readList("place", emptyFilter).totalNumberOfMatches, 499);
+	}
+
+	private void readWhileWriting(AtomicBoolean writing) {
+		while (writing.get()) {
+			recordStorage.readList("place", emptyFilter);
+			recordStorage.read("place", "place:0001");
+			recordStorage.generateLinkCollectionPointingToRecord(TO_RECORD_TYPE, TO_RECORD_ID);
+		}
+	}
 }
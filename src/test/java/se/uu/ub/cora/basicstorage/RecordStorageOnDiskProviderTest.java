@@ -114,6 +114,95 @@ public class RecordStorageOnDiskProviderTest {
 		assertTrue(recordStorage instanceof RecordStorageInMemoryReadFromDisk);
 	}
 
+	@Test
+	public void testNormalStartupReturnsRecordStorageOnDiskWithWriteAheadLog() {
+		initInfo.put("storageType", "writeAheadLog");
+		initInfo.put("writeAheadLogCompactionIntervalInSeconds", "0");
+		recordStorageOnDiskProvider.startUsingInitInfo(initInfo);
+		RecordStorage recordStorage = recordStorageOnDiskProvider.getRecordStorage();
+		assertTrue(recordStorage instanceof RecordStorageOnDiskWithWriteAheadLog);
+		((RecordStorageOnDiskWithWriteAheadLog) recordStorage).stopBackgroundCompaction();
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "InitInfo must contain a number for writeAheadLogSyncBatchSize")
+	public void testErrorIfWriteAheadLogSettingIsNotANumber() {
+		initInfo.put("storageType", "writeAheadLog");
+		initInfo.put("writeAheadLogSyncBatchSize", "notANumber");
+		recordStorageOnDiskProvider.startUsingInitInfo(initInfo);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "InitInfo must contain a number for writeAheadLogSyncIntervalInMillis")
+	public void testErrorIfWriteAheadLogSyncIntervalIsNotANumber() {
+		initInfo.put("storageType", "writeAheadLog");
+		initInfo.put("writeAheadLogSyncIntervalInMillis", "notANumber");
+		recordStorageOnDiskProvider.startUsingInitInfo(initInfo);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "InitInfo must contain a number for loadParallelism")
+	public void testErrorIfLoadParallelismIsNotANumber() {
+		initInfo.put("loadParallelism", "notANumber");
+		recordStorageOnDiskProvider.startUsingInitInfo(initInfo);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "loadParallelism must be larger than zero")
+	public void testErrorIfLoadParallelismIsZero() {
+		initInfo.put("loadParallelism", "0");
+		recordStorageOnDiskProvider.startUsingInitInfo(initInfo);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "InitInfo must contain true or false for streamingRecordFileWrites")
+	public void testErrorIfStreamingRecordFileWritesIsNotABoolean() {
+		initInfo.put("streamingRecordFileWrites", "yes");
+		recordStorageOnDiskProvider.startUsingInitInfo(initInfo);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "InitInfo must contain true or false for binaryStorageFiles")
+	public void testErrorIfBinaryStorageFilesIsNotABoolean() {
+		initInfo.put("binaryStorageFiles", "yes");
+		recordStorageOnDiskProvider.startUsingInitInfo(initInfo);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "InitInfo must contain true or false for lazyRecordLoading")
+	public void testErrorIfLazyRecordLoadingIsNotABoolean() {
+		initInfo.put("lazyRecordLoading", "yes");
+		recordStorageOnDiskProvider.startUsingInitInfo(initInfo);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "InitInfo must contain true or false for mappedRecordFileCopies")
+	public void testErrorIfMappedRecordFileCopiesIsNotABoolean() {
+		initInfo.put("mappedRecordFileCopies", "yes");
+		recordStorageOnDiskProvider.startUsingInitInfo(initInfo);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "recordCacheSize must be larger than zero")
+	public void testErrorIfRecordCacheSizeIsZero() {
+		initInfo.put("recordCacheSize", "0");
+		recordStorageOnDiskProvider.startUsingInitInfo(initInfo);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "InitInfo must contain true or false for compactRecords")
+	public void testErrorIfCompactRecordsIsNotABoolean() {
+		initInfo.put("compactRecords", "yes");
+		recordStorageOnDiskProvider.startUsingInitInfo(initInfo);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "InitInfo must contain true or false for immutableRecords")
+	public void testErrorIfImmutableRecordsIsNotABoolean() {
+		initInfo.put("immutableRecords", "yes");
+		recordStorageOnDiskProvider.startUsingInitInfo(initInfo);
+	}
+
 	@Test
 	public void testNormalStartupBasePathSentToRecordStorage() {
 		recordStorageOnDiskProvider.startUsingInitInfo(initInfo);
@@ -21,6 +21,9 @@ package se.uu.ub.cora.basicstorage;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import java.io.BufferedReader;
@@ -316,6 +319,411 @@ public class RecordStorageOnDiskTest {
 		return json;
 	}
 
+	@Test
+	public void testStreamingRecordFileWritesWritesCompactRecordListReadableOnStartup()
+			throws IOException {
+		createRecordTypePlace();
+		RecordStorageOnDiskSettings settings = RecordStorageOnDiskSettings.usingDefaults()
+				.withStreamingRecordFileWrites(true);
+		RecordStorageOnDisk recordStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePathAndSettings(basePath, settings);
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		recordStorage.create("place", "place:0001", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+		recordStorage.create("place", "place:0002", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+
+		String json = readJsonFileFromDisk(PLACE_CORA_FILENAME, "cora");
+		assertTrue(json.startsWith("{\"name\":\"recordList\",\"children\":[{"));
+		assertEquals(json.split("\n").length, 1);
+
+		RecordStorageOnDisk restartedStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePath(basePath);
+		assertJsonEqualDataGroup(restartedStorage.read("place", "place:0001"), dataGroup);
+		assertJsonEqualDataGroup(restartedStorage.read("place", "place:0002"), dataGroup);
+	}
+
+	@Test
+	public void testBinaryStorageFilesWritesBinaryRecordListReadableOnStartup()
+			throws IOException {
+		createRecordTypePlace();
+		RecordStorageOnDiskSettings settings = RecordStorageOnDiskSettings.usingDefaults()
+				.withBinaryStorageFiles(true);
+		RecordStorageOnDisk recordStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePathAndSettings(basePath, settings);
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		recordStorage.create("place", "place:0001", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+
+		assertTrue(Files.exists(Paths.get(basePath, "cora", "place_cora.bin")));
+		assertFalse(Files.exists(Paths.get(basePath, "cora", PLACE_CORA_FILENAME)));
+
+		RecordStorageOnDisk restartedStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePath(basePath);
+		assertJsonEqualDataGroup(restartedStorage.read("place", "place:0001"), dataGroup);
+	}
+
+	@Test
+	public void testBinaryStorageFilesReplacesExistingJsonFile() throws IOException {
+		createRecordTypePlace();
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		RecordStorageOnDisk.createRecordStorageOnDiskWithBasePath(basePath).create("place",
+				"place:0001", dataGroup, emptyCollectedData, emptyLinkList, "cora");
+		RecordStorageOnDiskSettings settings = RecordStorageOnDiskSettings.usingDefaults()
+				.withBinaryStorageFiles(true);
+		RecordStorageOnDisk recordStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePathAndSettings(basePath, settings);
+
+		recordStorage.create("place", "place:0002", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+
+		assertTrue(Files.exists(Paths.get(basePath, "cora", "place_cora.bin")));
+		assertFalse(Files.exists(Paths.get(basePath, "cora", PLACE_CORA_FILENAME)));
+		RecordStorageOnDisk restartedStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePath(basePath);
+		assertJsonEqualDataGroup(restartedStorage.read("place", "place:0001"), dataGroup);
+		assertJsonEqualDataGroup(restartedStorage.read("place", "place:0002"), dataGroup);
+	}
+
+	@Test
+	public void testDeleteLastRecordRemovesBinaryFile() throws IOException {
+		createRecordTypePlace();
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		RecordStorageOnDiskSettings settings = RecordStorageOnDiskSettings.usingDefaults()
+				.withBinaryStorageFiles(true);
+		RecordStorageOnDisk.createRecordStorageOnDiskWithBasePathAndSettings(basePath, settings)
+				.create("place", "place:0001", dataGroup, emptyCollectedData, emptyLinkList,
+						"cora");
+		RecordStorageOnDisk recordStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePath(basePath);
+
+		recordStorage.deleteByTypeAndId("place", "place:0001");
+
+		assertFalse(Files.exists(Paths.get(basePath, "cora", "place_cora.bin")));
+		assertFalse(Files.exists(Paths.get(basePath, "cora", PLACE_CORA_FILENAME)));
+	}
+
+	private RecordStorageOnDisk createLazyRecordStorageUsingCacheSize(int cacheSize) {
+		RecordStorageOnDiskSettings settings = RecordStorageOnDiskSettings.usingDefaults()
+				.withLazyRecordLoading(true).withRecordCacheSize(cacheSize);
+		return RecordStorageOnDisk.createRecordStorageOnDiskWithBasePathAndSettings(basePath,
+				settings);
+	}
+
+	private RecordStorageOnDisk createLazyRecordStorageUsingMappedRecordFileCopies() {
+		RecordStorageOnDiskSettings settings = RecordStorageOnDiskSettings.usingDefaults()
+				.withLazyRecordLoading(true).withMappedRecordFileCopies(true);
+		return RecordStorageOnDisk.createRecordStorageOnDiskWithBasePathAndSettings(basePath,
+				settings);
+	}
+
+	@Test
+	public void testLazyRecordLoadingMapsRecordFilesWithoutCopies() throws IOException {
+		createRecordTypePlace();
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		RecordStorageOnDisk lazyStorage = createLazyRecordStorageUsingCacheSize(10);
+		lazyStorage.create("place", "place:0001", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+
+		RecordStorageOnDisk restartedStorage = createLazyRecordStorageUsingCacheSize(10);
+
+		assertFalse(Files.exists(Paths.get(basePath, ".mappedRecords")));
+		assertJsonEqualDataGroup(lazyStorage.read("place", "place:0001"), dataGroup);
+		assertJsonEqualDataGroup(restartedStorage.read("place", "place:0001"), dataGroup);
+	}
+
+	@Test
+	public void testLazyRecordLoadingReadsEachRecordOfWrittenFile() throws IOException {
+		createRecordTypePlace();
+		RecordStorageOnDisk lazyStorage = createLazyRecordStorageUsingCacheSize(10);
+		for (String recordId : new String[] { "place:0001", "place:0002", "place:0003" }) {
+			lazyStorage.create("place", recordId, createPlaceWithRecordId(recordId),
+					emptyCollectedData, emptyLinkList, "cora");
+		}
+
+		for (String recordId : new String[] { "place:0001", "place:0002", "place:0003" }) {
+			assertJsonEqualDataGroup(lazyStorage.read("place", recordId),
+					createPlaceWithRecordId(recordId));
+		}
+	}
+
+	private DataGroup createPlaceWithRecordId(String recordId) {
+		return DataCreator.createDataGroupWithNameInDataAndRecordInfoWithRecordTypeAndRecordId(
+				"authority", "place", recordId);
+	}
+
+	@Test
+	public void testLazyRecordLoadingKeepsOnlyMappedRecordsInMemoryAfterWrite()
+			throws IOException {
+		createRecordTypePlace();
+		RecordStorageOnDisk lazyStorage = createLazyRecordStorageUsingCacheSize(10);
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+
+		lazyStorage.create("place", "place:0001", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+
+		assertTrue(Files.exists(Paths.get(basePath, "cora", "place_cora.bin")));
+		assertNull(lazyStorage.records.get("place").get("place:0001").dataGroup);
+		assertJsonEqualDataGroup(lazyStorage.read("place", "place:0001"), dataGroup);
+	}
+
+	@Test
+	public void testLazyRecordLoadingReadsMappedRecordsOnStartup() throws IOException {
+		createRecordTypePlace();
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		RecordStorageOnDisk lazyStorage = createLazyRecordStorageUsingCacheSize(10);
+		lazyStorage.create("place", "place:0001", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+
+		RecordStorageOnDisk restartedStorage = createLazyRecordStorageUsingCacheSize(10);
+
+		assertNull(restartedStorage.records.get("place").get("place:0001").dataGroup);
+		DataGroup readPlace = restartedStorage.read("place", "place:0001");
+		assertJsonEqualDataGroup(readPlace, dataGroup);
+		assertSame(restartedStorage.read("place", "place:0001"), readPlace);
+	}
+
+	@Test
+	public void testLazyRecordLoadingReadsRecordAgainWhenRemovedFromCache()
+			throws IOException {
+		createRecordTypePlace();
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		RecordStorageOnDisk lazyStorage = createLazyRecordStorageUsingCacheSize(1);
+		lazyStorage.create("place", "place:0001", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+		lazyStorage.create("place", "place:0002", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+
+		DataGroup firstRead = lazyStorage.read("place", "place:0001");
+		lazyStorage.read("place", "place:0002");
+		DataGroup secondRead = lazyStorage.read("place", "place:0001");
+
+		assertNotSame(secondRead, firstRead);
+		assertJsonEqualDataGroup(secondRead, dataGroup);
+	}
+
+	@Test
+	public void testLazyRecordLoadingMoveRecordToOtherDataDivider() throws IOException {
+		createRecordTypePlace();
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		RecordStorageOnDisk lazyStorage = createLazyRecordStorageUsingCacheSize(10);
+		lazyStorage.create("place", "place:0001", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+		lazyStorage.create("place", "place:0002", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+
+		lazyStorage.update("place", "place:0002", dataGroup, emptyCollectedData, emptyLinkList,
+				"jsClient");
+
+		assertTrue(Files.exists(Paths.get(basePath, "cora", "place_cora.bin")));
+		assertTrue(Files.exists(Paths.get(basePath, "jsClient", "place_jsClient.bin")));
+		RecordStorageOnDisk restartedStorage = createLazyRecordStorageUsingCacheSize(10);
+		assertJsonEqualDataGroup(restartedStorage.read("place", "place:0001"), dataGroup);
+		assertJsonEqualDataGroup(restartedStorage.read("place", "place:0002"), dataGroup);
+		assertEquals(restartedStorage.records.get("place").get("place:0002").dataDivider,
+				"jsClient");
+	}
+
+	@Test
+	public void testLazyRecordLoadingWriteDoesNotReadRecordsIntoCache() throws IOException {
+		createRecordTypePlace();
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		RecordStorageOnDisk lazyStorage = createLazyRecordStorageUsingCacheSize(10);
+		lazyStorage.create("place", "place:0001", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+		lazyStorage.create("place", "place:0002", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+		lazyStorage.create("place", "place:0003", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+
+		assertEquals(lazyStorage.getRecordCache().size(), 0);
+	}
+
+	@Test
+	public void testLazyRecordLoadingWriteRemovesRecordsOfOldMappingFromCache()
+			throws IOException {
+		createRecordTypePlace();
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		RecordStorageOnDisk lazyStorage = createLazyRecordStorageUsingCacheSize(10);
+		lazyStorage.create("place", "place:0001", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+		DataGroup readBeforeWrite = lazyStorage.read("place", "place:0001");
+		assertEquals(lazyStorage.getRecordCache().size(), 1);
+
+		lazyStorage.create("place", "place:0002", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+
+		assertEquals(lazyStorage.getRecordCache().size(), 0);
+		DataGroup readAfterWrite = lazyStorage.read("place", "place:0001");
+		assertNotSame(readAfterWrite, readBeforeWrite);
+		assertJsonEqualDataGroup(readAfterWrite, dataGroup);
+	}
+
+	@Test
+	public void testLazyRecordLoadingWriteRemovesOldMappedRecordFileCopies() throws IOException {
+		createRecordTypePlace();
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		RecordStorageOnDisk lazyStorage = createLazyRecordStorageUsingMappedRecordFileCopies();
+		lazyStorage.create("place", "place:0001", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+		lazyStorage.create("place", "place:0002", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+		lazyStorage.deleteByTypeAndId("place", "place:0001");
+
+		assertEquals(countMappedRecordFiles(), 1);
+
+		lazyStorage.deleteByTypeAndId("place", "place:0002");
+
+		assertEquals(countMappedRecordFiles(), 0);
+	}
+
+	private long countMappedRecordFiles() throws IOException {
+		try (Stream<Path> list = Files.list(Paths.get(basePath, ".mappedRecords"))) {
+			return list.count();
+		}
+	}
+
+	@Test
+	public void testLazyRecordLoadingRemovesMappedRecordFileCopiesFromEarlierRunOnStartup()
+			throws IOException {
+		createRecordTypePlace();
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		RecordStorageOnDisk lazyStorage = createLazyRecordStorageUsingMappedRecordFileCopies();
+		lazyStorage.create("place", "place:0001", dataGroup, emptyCollectedData, emptyLinkList,
+				"cora");
+		Files.createFile(Paths.get(basePath, ".mappedRecords", "place_cora_99.bin"));
+
+		RecordStorageOnDisk restartedStorage = createLazyRecordStorageUsingMappedRecordFileCopies();
+
+		assertFalse(Files.exists(Paths.get(basePath, ".mappedRecords", "place_cora_99.bin")));
+		assertEquals(countMappedRecordFiles(), 1);
+		assertJsonEqualDataGroup(restartedStorage.read("place", "place:0001"), dataGroup);
+	}
+
+	@Test
+	public void testCompactRecordsStoresRecordsAsCompactRecords() throws IOException {
+		createRecordTypePlace();
+		RecordStorageOnDiskSettings settings = RecordStorageOnDiskSettings.usingDefaults()
+				.withCompactRecords(true);
+		RecordStorageOnDisk compactStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePathAndSettings(basePath, settings);
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+
+		compactStorage.create("place", "place:0001", dataGroup, emptyCollectedData,
+				emptyLinkList, "cora");
+
+		assertNull(compactStorage.records.get("place").get("place:0001").dataGroup);
+		assertNull(compactStorage.records.get("recordType").get("place").dataGroup);
+		assertJsonEqualDataGroup(compactStorage.read("place", "place:0001"), dataGroup);
+		assertEquals(readJsonFileFromDisk(PLACE_CORA_FILENAME, "cora"),
+				expectedRecordJsonOneRecordPlace1);
+	}
+
+	@Test
+	public void testCompactRecordsAreStoredWithoutIndependentCopy() throws IOException {
+		createRecordTypePlace();
+		RecordStorageOnDiskSettings settings = RecordStorageOnDiskSettings.usingDefaults()
+				.withCompactRecords(true);
+		RecordStorageOnDisk compactStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePathAndSettings(basePath, settings);
+		DataCopierFactorySpy copierFactory = new DataCopierFactorySpy();
+		DataCopierProvider.setDataCopierFactory(copierFactory);
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+
+		compactStorage.create("place", "place:0001", dataGroup, emptyCollectedData,
+				emptyLinkList, "cora");
+		dataGroup.addChild(new DataAtomicSpy("added", "afterCreate"));
+
+		assertNull(copierFactory.factoredCopier);
+		DataGroup readPlace = compactStorage.read("place", "place:0001");
+		assertFalse(readPlace.containsChildWithNameInData("added"));
+	}
+
+	@Test
+	public void testCompactRecordsWithBinaryStorageFilesAreWrittenAndReadAgain()
+			throws IOException {
+		createRecordTypePlace();
+		RecordStorageOnDiskSettings settings = RecordStorageOnDiskSettings.usingDefaults()
+				.withCompactRecords(true).withBinaryStorageFiles(true);
+		RecordStorageOnDisk compactStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePathAndSettings(basePath, settings);
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		compactStorage.create("place", "place:0001", dataGroup, emptyCollectedData,
+				emptyLinkList, "cora");
+
+		RecordStorageOnDisk restartedStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePathAndSettings(basePath, settings);
+
+		assertTrue(Files.exists(Paths.get(basePath, "cora", "place_cora.bin")));
+		assertEquals(compactStorage.getRecordCache().size(), 0);
+		assertJsonEqualDataGroup(restartedStorage.read("place", "place:0001"), dataGroup);
+	}
+
+	@Test
+	public void testRecordsCanBeChangedAfterReadByDefault() throws IOException {
+		createRecordTypePlace();
+		RecordStorageOnDisk recordStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePath(basePath);
+		recordStorage.create("place", "place:0001", createDataGroupWithRecordInfo(),
+				emptyCollectedData, emptyLinkList, "cora");
+
+		DataGroup readPlace = recordStorage.read("place", "place:0001");
+		readPlace.addChild(new DataAtomicSpy("name", "x"));
+
+		assertFalse(readPlace instanceof ImmutableDataGroup);
+		assertTrue(readPlace.containsChildWithNameInData("name"));
+	}
+
+	private RecordStorageOnDisk createImmutableRecordStorage() {
+		RecordStorageOnDiskSettings settings = RecordStorageOnDiskSettings.usingDefaults()
+				.withImmutableRecords(true);
+		return RecordStorageOnDisk.createRecordStorageOnDiskWithBasePathAndSettings(basePath,
+				settings);
+	}
+
+	@Test
+	public void testImmutableRecordsReturnsSameImmutableRecordOnEachRead() throws IOException {
+		createRecordTypePlace();
+		RecordStorageOnDisk immutableStorage = createImmutableRecordStorage();
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		immutableStorage.create("place", "place:0001", dataGroup, emptyCollectedData,
+				emptyLinkList, "cora");
+
+		DataGroup readPlace = immutableStorage.read("place", "place:0001");
+
+		assertTrue(readPlace instanceof ImmutableDataGroup);
+		assertSame(immutableStorage.read("place", "place:0001"), readPlace);
+		assertJsonEqualDataGroup(readPlace, dataGroup);
+		assertEquals(readJsonFileFromDisk(PLACE_CORA_FILENAME, "cora"),
+				expectedRecordJsonOneRecordPlace1);
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testImmutableRecordsCanNotBeChangedAfterRead() throws IOException {
+		createRecordTypePlace();
+		RecordStorageOnDisk immutableStorage = createImmutableRecordStorage();
+		immutableStorage.create("place", "place:0001", createDataGroupWithRecordInfo(),
+				emptyCollectedData, emptyLinkList, "cora");
+
+		immutableStorage.read("place", "place:0001").addChild(new DataAtomicSpy("id", "x"));
+	}
+
+	@Test
+	public void testImmutableRecordsWithCompactRecords() throws IOException {
+		createRecordTypePlace();
+		RecordStorageOnDiskSettings settings = RecordStorageOnDiskSettings.usingDefaults()
+				.withImmutableRecords(true).withCompactRecords(true);
+		RecordStorageOnDisk immutableStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePathAndSettings(basePath, settings);
+		DataGroup dataGroup = createDataGroupWithRecordInfo();
+		immutableStorage.create("place", "place:0001", dataGroup, emptyCollectedData,
+				emptyLinkList, "cora");
+
+		DataGroup readPlace = immutableStorage.read("place", "place:0001");
+		assertTrue(readPlace instanceof ImmutableDataGroup);
+		assertJsonEqualDataGroup(readPlace, dataGroup);
+	}
+
 	@Test
 	public void testInitNoFilesOnDiskTwoSystemsMoveRecordBetweenSystems() throws IOException {
 		DataGroup emptyLinkList = new DataGroupSpy("collectedDataLinks");
@@ -1359,7 +1767,7 @@ public class RecordStorageOnDiskTest {
 
 		String expectedCollectedDataOneTerm2 = "{\n";
 		expectedCollectedDataOneTerm2 += "    \"children\": [{\n";
-		expectedCollectedDataOneTerm2 += "        \"repeatId\": \"1\",\n";
+		expectedCollectedDataOneTerm2 += "        \"repeatId\": \"0\",\n";
 		expectedCollectedDataOneTerm2 += "        \"children\": [\n";
 		expectedCollectedDataOneTerm2 += "            {\n";
 		expectedCollectedDataOneTerm2 += "                \"name\": \"type\",\n";
@@ -1394,6 +1802,119 @@ public class RecordStorageOnDiskTest {
 				expectedCollectedDataOneTerm2);
 	}
 
+	@Test
+	public void testOnlyChangedDataDividerCollectedDataAndLinkListsAreWrittenToDisk()
+			throws IOException {
+		createRecordTypePlace();
+		RecordStorageOnDisk recordStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePath(basePath);
+		recordStorage.create("place", "place:0001", createDataGroupWithRecordInfo(),
+				createCollectedDataWithUppsalaTermForId("place:0001"),
+				createLinkListWithTwoLinks("place:0001"), "cora");
+		recordStorage.create("place", "place:0002", createDataGroupWithRecordInfo(),
+				createCollectedDataWithUppsalaTermForId("place:0002"),
+				createLinkListWithTwoLinks("place:0002"), "jsClient");
+		Path jsClientCollectedData = Paths.get(basePath, "jsClient",
+				"collectedData_jsClient.json.gz");
+		Path jsClientLinkLists = Paths.get(basePath, "jsClient", "linkLists_jsClient.json.gz");
+		Files.delete(jsClientCollectedData);
+		Files.delete(jsClientLinkLists);
+
+		recordStorage.create("place", "place:0003", createDataGroupWithRecordInfo(),
+				createCollectedDataWithUppsalaTermForId("place:0003"),
+				createLinkListWithTwoLinks("place:0003"), "cora");
+
+		assertTrue(Files.exists(Paths.get(basePath, "cora", COLLECTED_DATA_FILENAME)));
+		assertTrue(Files.exists(Paths.get(basePath, "cora", LINK_LISTS_FILENAME)));
+		assertFalse(Files.exists(jsClientCollectedData));
+		assertFalse(Files.exists(jsClientLinkLists));
+	}
+
+	@Test
+	public void testFirstWriteAfterStartupOnlyWritesCollectedDataForChangedDataDivider()
+			throws IOException {
+		createRecordTypePlace();
+		RecordStorageOnDisk recordStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePath(basePath);
+		recordStorage.create("place", "place:0001", createDataGroupWithRecordInfo(),
+				createCollectedDataWithUppsalaTermForId("place:0001"), emptyLinkList, "cora");
+		recordStorage.create("place", "place:0002", createDataGroupWithRecordInfo(),
+				createCollectedDataWithUppsalaTermForId("place:0002"), emptyLinkList,
+				"jsClient");
+		RecordStorageOnDisk restartedStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePath(basePath);
+		Path jsClientCollectedData = Paths.get(basePath, "jsClient",
+				"collectedData_jsClient.json.gz");
+		Files.delete(jsClientCollectedData);
+
+		restartedStorage.create("place", "place:0003", createDataGroupWithRecordInfo(),
+				createCollectedDataWithUppsalaTermForId("place:0003"), emptyLinkList, "cora");
+
+		assertFalse(Files.exists(jsClientCollectedData));
+		RecordStorageOnDisk storageReadingWrittenFiles = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePath(basePath);
+		assertEquals(storageReadingWrittenFiles
+				.readList("place", createFilterForPlaceNameUppsala()).totalNumberOfMatches, 2);
+	}
+
+	private DataGroup createFilterForPlaceNameUppsala() {
+		DataGroup filter = DataCreator.createEmptyFilter();
+		filter.addChild(
+				DataCreator.createFilterPartWithRepeatIdAndKeyAndValue("0", "placeName", "Uppsala"));
+		return filter;
+	}
+
+	private DataGroup createCollectedDataWithUppsalaTermForId(String recordId) {
+		DataGroup collectedData = DataCreator.createCollectedDataWithTypeAndId("place",
+				recordId);
+		DataGroup collectStorageTerm = new DataGroupSpy("storage");
+		collectedData.addChild(collectStorageTerm);
+		collectStorageTerm.addChild(DataCreator
+				.createStorageTermWithRepeatIdAndTermIdAndTermValueAndStorageKey("1",
+						"placeNameStorageTerm", "Uppsala", "placeName"));
+		return collectedData;
+	}
+
+	@Test
+	public void testUpdateToOtherDataDividerMovesCollectedDataAndLinkLists() throws IOException {
+		createRecordTypePlace();
+		RecordStorageOnDisk recordStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePath(basePath);
+		recordStorage.create("place", "place:0001", createDataGroupWithRecordInfo(),
+				createCollectedDataWithUppsalaTermForId("place:0001"),
+				createLinkListWithTwoLinks("place:0001"), "cora");
+
+		recordStorage.update("place", "place:0001", createDataGroupWithRecordInfo(),
+				createCollectedDataWithUppsalaTermForId("place:0001"),
+				createLinkListWithTwoLinks("place:0001"), "jsClient");
+
+		assertFalse(Files.exists(Paths.get(basePath, "cora", COLLECTED_DATA_FILENAME)));
+		assertFalse(Files.exists(Paths.get(basePath, "cora", LINK_LISTS_FILENAME)));
+		assertTrue(Files.exists(
+				Paths.get(basePath, "jsClient", "collectedData_jsClient.json.gz")));
+		assertTrue(Files.exists(Paths.get(basePath, "jsClient", "linkLists_jsClient.json.gz")));
+	}
+
+	@Test
+	public void testUpdateWithUnchangedLinkListDoesNotRewriteLinkLists() throws IOException {
+		createRecordTypePlace();
+		RecordStorageOnDisk recordStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePath(basePath);
+		recordStorage.create("place", "place:0001", createDataGroupWithRecordInfo(),
+				emptyCollectedData, createLinkListWithTwoLinks("place:0001"), "cora");
+		Path linkListsPath = Paths.get(basePath, "cora", LINK_LISTS_FILENAME);
+		Files.delete(linkListsPath);
+
+		recordStorage.update("place", "place:0001", createDataGroupWithRecordInfo(),
+				emptyCollectedData, createLinkListWithTwoLinks("place:0001"), "cora");
+		assertFalse(Files.exists(linkListsPath));
+
+		recordStorage.update("place", "place:0001", createDataGroupWithRecordInfo(),
+				emptyCollectedData, createLinkListWithTwoLinks("place:0002"), "cora");
+		assertTrue(Files.exists(linkListsPath));
+		assertEquals(recordStorage.readLinkList("place", "place:0001").getChildren().size(), 2);
+	}
+
 	@Test
 	public void testWriteUpdatedCollectedDataToDiskOneRecordOneTerms() throws IOException {
 		createRecordTypePlace();
@@ -2042,6 +2563,26 @@ public class RecordStorageOnDiskTest {
 				.getFirstAtomicValueWithNameInData("id"), "place:0001");
 	}
 
+	@Test
+	public void testInitWithLoadParallelismReadsRecordsLinksAndCollectedData()
+			throws IOException {
+		createRecordTypePlace();
+		writeZippedPlaceFileToDisk();
+		writeZippedPlaceLinksFileToDisk();
+		writeZippedStorageTermsPlaceFileToDisk();
+		RecordStorageOnDisk recordStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePathAndSettings(basePath,
+						RecordStorageOnDiskSettings.usingDefaults().withLoadParallelism(4));
+
+		assertJsonEqualDataGroup(recordStorage.read("place", "place:0001"),
+				createDataGroupWithRecordInfo());
+		assertEquals(recordStorage.readLinkList("place", "place:0001").getChildren().size(), 2);
+		DataGroup filter = DataCreator.createEmptyFilter();
+		filter.addChild(
+				DataCreator.createFilterPartWithRepeatIdAndKeyAndValue("0", "placeName", "Uppsala"));
+		assertEquals(recordStorage.readList("place", filter).listOfDataGroups.size(), 1);
+	}
+
 	@Test(expectedExceptions = RecordNotFoundException.class)
 	// @Test
 	public void testReadingEmptyCollectedDataBeforeReadingRecordFiles() throws IOException {
@@ -2197,7 +2738,7 @@ public class RecordStorageOnDiskTest {
 			assertTrue(e.getCause() instanceof AccessDeniedException);
 			assertEquals(e.getMessage(),
 					"can not write files to disk: java.nio.file.AccessDeniedException: "
-							+ "/tmp/recordStorageOnDiskTemp/cora/organisation_cora.json.gz");
+							+ "/tmp/recordStorageOnDiskTemp/cora/organisation_cora.json.gz.tmp");
 		} finally {
 			Paths.get(basePath, "cora").toFile().setWritable(true);
 		}
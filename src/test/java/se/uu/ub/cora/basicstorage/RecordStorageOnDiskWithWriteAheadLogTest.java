@@ -0,0 +1,386 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.basicdata.converter.DataToJsonConverterFactoryImp;
+import se.uu.ub.cora.basicdata.converter.JsonToDataConverterFactoryImp;
+import se.uu.ub.cora.basicstorage.testdata.DataCreator;
+import se.uu.ub.cora.data.DataAtomicProvider;
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.data.DataGroupProvider;
+import se.uu.ub.cora.data.converter.DataToJsonConverterProvider;
+import se.uu.ub.cora.data.converter.JsonToDataConverterProvider;
+import se.uu.ub.cora.data.copier.DataCopierProvider;
+import se.uu.ub.cora.storage.RecordConflictException;
+import se.uu.ub.cora.storage.RecordNotFoundException;
+
+public class RecordStorageOnDiskWithWriteAheadLogTest {
+	private static final String PLACE_CORA_FILENAME = "place_cora.json.gz";
+	private String basePath = "/tmp/recordStorageOnDiskWithWriteAheadLogTemp/";
+	private DataGroup emptyLinkList = DataCreator.createEmptyLinkList();
+	private DataGroup emptyCollectedData = DataCreator.createEmptyCollectedData();
+	private RecordStorageOnDiskSettings settings;
+	private RecordStorageOnDiskWithWriteAheadLog recordStorage;
+
+	@BeforeMethod
+	public void beforeMethod() throws IOException {
+		makeSureBasePathExistsAndIsEmpty();
+		DataGroupProvider.setDataGroupFactory(new DataGroupFactorySpy());
+		DataAtomicProvider.setDataAtomicFactory(new DataAtomicFactorySpy());
+		DataCopierProvider.setDataCopierFactory(new DataCopierFactorySpy());
+		DataToJsonConverterProvider
+				.setDataToJsonConverterFactory(new DataToJsonConverterFactoryImp());
+		JsonToDataConverterProvider
+				.setJsonToDataConverterFactory(new JsonToDataConverterFactoryImp());
+		settings = RecordStorageOnDiskSettings.usingDefaults()
+				.withWriteAheadLogCompactionIntervalInSeconds(0);
+		recordStorage = createRecordStorage();
+	}
+
+	private RecordStorageOnDiskWithWriteAheadLog createRecordStorage() {
+		return RecordStorageOnDiskWithWriteAheadLog
+				.createRecordStorageOnDiskWithBasePathAndSettings(basePath, settings);
+	}
+
+	private void makeSureBasePathExistsAndIsEmpty() throws IOException {
+		File dir = new File(basePath);
+		dir.mkdir();
+		deleteFiles(basePath);
+	}
+
+	private void deleteFiles(String path) throws IOException {
+		Stream<Path> list = Files.list(Paths.get(path));
+		list.forEach(p -> deleteFile(p));
+		list.close();
+	}
+
+	private void deleteFile(Path path) {
+		try {
+			if (path.toFile().isDirectory()) {
+				deleteFiles(path.toString());
+			}
+			Files.delete(path);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	@AfterMethod
+	public void removeTempFiles() throws IOException {
+		recordStorage.stopBackgroundCompaction();
+		if (Files.exists(Paths.get(basePath))) {
+			deleteFiles(basePath);
+			new File(basePath).delete();
+		}
+	}
+
+	private void createRecordTypePlaceAndPlace() {
+		DataGroup placeRecordType = DataCreator
+				.createRecordTypeWithIdAndUserSuppliedIdAndAbstract("place", "true", "false");
+		recordStorage.create("recordType", "place", placeRecordType, emptyCollectedData,
+				emptyLinkList, "cora");
+		recordStorage.create("place", "place:0001", createPlace(), emptyCollectedData,
+				emptyLinkList, "cora");
+	}
+
+	private DataGroup createPlace() {
+		return DataCreator.createDataGroupWithNameInDataAndRecordInfoWithRecordTypeAndRecordId(
+				"authority", "place", "place:0001");
+	}
+
+	private List<Path> listLogSegments() throws IOException {
+		try (Stream<Path> list = Files.list(Paths.get(basePath, "writeAheadLog"))) {
+			return list.collect(Collectors.toList());
+		}
+	}
+
+	private long countLogEntries() throws IOException {
+		long noOfEntries = 0;
+		for (Path segment : listLogSegments()) {
+			noOfEntries += Files.readAllLines(segment).size();
+		}
+		return noOfEntries;
+	}
+
+	@Test
+	public void testCreateIsWrittenToLogAndNotToRecordFile() throws IOException {
+		createRecordTypePlaceAndPlace();
+
+		assertFalse(Files.exists(Paths.get(basePath, "cora", PLACE_CORA_FILENAME)));
+		assertEquals(countLogEntries(), 2);
+	}
+
+	@Test
+	public void testCompactWritesRecordFileAndEmptiesLog() throws IOException {
+		createRecordTypePlaceAndPlace();
+
+		recordStorage.compact();
+
+		assertTrue(Files.exists(Paths.get(basePath, "cora", PLACE_CORA_FILENAME)));
+		assertTrue(Files.exists(Paths.get(basePath, "cora", "recordType_cora.json.gz")));
+		assertEquals(countLogEntries(), 0);
+	}
+
+	@Test
+	public void testCompactAfterNoOfEntries() throws IOException {
+		settings.withWriteAheadLogCompactAfterNoOfEntries(2);
+		recordStorage = createRecordStorage();
+
+		createRecordTypePlaceAndPlace();
+
+		assertTrue(Files.exists(Paths.get(basePath, "cora", PLACE_CORA_FILENAME)));
+		assertEquals(countLogEntries(), 0);
+	}
+
+	@Test
+	public void testLogIsReplayedOnStartup() throws IOException {
+		createRecordTypePlaceAndPlace();
+
+		RecordStorageOnDiskWithWriteAheadLog restartedStorage = createRecordStorage();
+
+		DataGroup readPlace = restartedStorage.read("place", "place:0001");
+		assertEquals(readPlace.getFirstGroupWithNameInData("recordInfo")
+				.getFirstAtomicValueWithNameInData("id"), "place:0001");
+		assertTrue(Files.exists(Paths.get(basePath, "cora", PLACE_CORA_FILENAME)));
+		assertEquals(countLogEntries(), 0);
+	}
+
+	@Test
+	public void testUpdateToOtherDataDividerIsReplayedOnStartup() throws IOException {
+		createRecordTypePlaceAndPlace();
+		recordStorage.compact();
+
+		recordStorage.update("place", "place:0001", createPlace(), emptyCollectedData,
+				emptyLinkList, "jsClient");
+		createRecordStorage();
+
+		assertFalse(Files.exists(Paths.get(basePath, "cora", PLACE_CORA_FILENAME)));
+		assertTrue(Files.exists(Paths.get(basePath, "jsClient", "place_jsClient.json.gz")));
+	}
+
+	@Test(expectedExceptions = RecordNotFoundException.class)
+	public void testDeleteIsReplayedOnStartup() throws IOException {
+		createRecordTypePlaceAndPlace();
+		recordStorage.compact();
+		recordStorage.deleteByTypeAndId("place", "place:0001");
+
+		RecordStorageOnDiskWithWriteAheadLog restartedStorage = createRecordStorage();
+
+		assertFalse(Files.exists(Paths.get(basePath, "cora", PLACE_CORA_FILENAME)));
+		restartedStorage.read("place", "place:0001");
+	}
+
+	@Test
+	public void testCreateAndDeleteBeforeCompactWritesNoRecordFile() throws IOException {
+		createRecordTypePlaceAndPlace();
+		recordStorage.deleteByTypeAndId("place", "place:0001");
+
+		recordStorage.compact();
+
+		assertFalse(Files.exists(Paths.get(basePath, "cora", PLACE_CORA_FILENAME)));
+	}
+
+	@Test
+	public void testTruncatedLastEntryIsIgnoredOnStartup() throws IOException {
+		createRecordTypePlaceAndPlace();
+		Path segment = listLogSegments().get(0);
+		Files.write(segment, "{\"children\":[{\"na".getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.APPEND);
+
+		RecordStorageOnDiskWithWriteAheadLog restartedStorage = createRecordStorage();
+
+		DataGroup readPlace = restartedStorage.read("place", "place:0001");
+		assertEquals(readPlace.getNameInData(), "authority");
+	}
+
+	@Test
+	public void testLastEntryTruncatedInMultiByteCharacterIsIgnoredOnStartup()
+			throws IOException {
+		createRecordTypePlaceAndPlace();
+		byte[] entryWithTwoByteCharacter = "{\"name\":\"\u00e5\"}"
+				.getBytes(StandardCharsets.UTF_8);
+		byte[] truncatedEntry = Arrays.copyOf(entryWithTwoByteCharacter, 10);
+		Files.write(listLogSegments().get(0), truncatedEntry, StandardOpenOption.APPEND);
+
+		RecordStorageOnDiskWithWriteAheadLog restartedStorage = createRecordStorage();
+
+		assertEquals(restartedStorage.read("place", "place:0001").getNameInData(), "authority");
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "can not read write ahead log segment: .*")
+	public void testEarlierEntryWithBrokenCharacterStopsStartup() throws IOException {
+		createRecordTypePlaceAndPlace();
+		Path segment = listLogSegments().get(0);
+		Files.write(segment, new byte[] { '{', (byte) 0xC3, '}', '\n' },
+				StandardOpenOption.APPEND);
+		recordStorage.create("place", "place:0002", createPlace(), emptyCollectedData,
+				emptyLinkList, "cora");
+
+		createRecordStorage();
+	}
+
+	@Test
+	public void testFailedCreateIsRemovedFromLog() throws IOException {
+		createRecordTypePlaceAndPlace();
+		DataGroup invalidCollectedTerms = DataCreator.createEmptyCollectedData();
+		DataGroup storage = new DataGroupSpy("storage");
+		storage.addChild(new DataGroupSpy("collectedDataTerm"));
+		invalidCollectedTerms.addChild(storage);
+
+		try {
+			recordStorage.create("place", "place:0002", createPlace(), invalidCollectedTerms,
+					emptyLinkList, "cora");
+		} catch (RuntimeException e) {
+			// expected
+		}
+		assertEquals(countLogEntries(), 2);
+		RecordStorageOnDiskWithWriteAheadLog restartedStorage = createRecordStorage();
+
+		assertEquals(restartedStorage.read("place", "place:0001").getNameInData(), "authority");
+		assertFalse(restartedStorage.recordExistsForAbstractOrImplementingRecordTypeAndRecordId(
+				"place", "place:0002"));
+	}
+
+	@Test
+	public void testLogDirectoryIsNotReadAsRecordFiles() throws IOException {
+		createRecordTypePlaceAndPlace();
+		recordStorage.compact();
+		recordStorage.deleteByTypeAndId("place", "place:0001");
+
+		RecordStorageOnDisk plainStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePath(basePath);
+
+		assertEquals(plainStorage.read("place", "place:0001").getNameInData(), "authority");
+	}
+
+	@Test
+	public void testCreateWithConflictingRecordIdIsNotWrittenToLog() throws IOException {
+		createRecordTypePlaceAndPlace();
+
+		try {
+			recordStorage.create("place", "place:0001", createPlace(), emptyCollectedData,
+					emptyLinkList, "cora");
+		} catch (RecordConflictException e) {
+			// expected
+		}
+
+		assertEquals(countLogEntries(), 2);
+	}
+
+	@Test
+	public void testUpdateAndDeleteOfMissingRecordAreNotWrittenToLog() throws IOException {
+		createRecordTypePlaceAndPlace();
+
+		try {
+			recordStorage.update("place", "place:0002", createPlace(), emptyCollectedData,
+					emptyLinkList, "cora");
+		} catch (RecordNotFoundException e) {
+			// expected
+		}
+		try {
+			recordStorage.deleteByTypeAndId("place", "place:0002");
+		} catch (RecordNotFoundException e) {
+			// expected
+		}
+
+		assertEquals(countLogEntries(), 2);
+	}
+
+	@Test
+	public void testCompactAfterNoOfEntriesIncludesLastEntry() throws IOException {
+		settings.withWriteAheadLogCompactAfterNoOfEntries(2);
+		recordStorage = createRecordStorage();
+		createRecordTypePlaceAndPlace();
+
+		RecordStorageOnDisk plainStorage = RecordStorageOnDisk
+				.createRecordStorageOnDiskWithBasePath(basePath);
+
+		assertEquals(plainStorage.read("place", "place:0001").getNameInData(), "authority");
+	}
+
+	@Test
+	public void testCompactLeavesNoTempFiles() throws IOException {
+		createRecordTypePlaceAndPlace();
+
+		recordStorage.compact();
+
+		try (Stream<Path> list = Files.list(Paths.get(basePath, "cora"))) {
+			assertTrue(list.noneMatch(path -> path.toString().endsWith(".tmp")));
+		}
+	}
+
+	@Test
+	public void testTempFileLeftByInterruptedCompactionIsRemovedOnStartup() throws IOException {
+		createRecordTypePlaceAndPlace();
+		recordStorage.compact();
+		Path tempPath = Paths.get(basePath, "cora", PLACE_CORA_FILENAME + ".tmp");
+		Files.write(tempPath, "partly written".getBytes(StandardCharsets.UTF_8));
+
+		RecordStorageOnDiskWithWriteAheadLog restartedStorage = createRecordStorage();
+
+		assertFalse(Files.exists(tempPath));
+		assertEquals(restartedStorage.read("place", "place:0001").getNameInData(), "authority");
+	}
+
+	@Test
+	public void testUnsyncedEntriesAreSyncedAfterSyncInterval() throws Exception {
+		settings.withWriteAheadLogSyncBatchSize(100).withWriteAheadLogSyncIntervalInMillis(10);
+		recordStorage = createRecordStorage();
+
+		createRecordTypePlaceAndPlace();
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (recordStorage.getWriteAheadLog().getNoOfUnsyncedEntries() > 0
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(recordStorage.getWriteAheadLog().getNoOfUnsyncedEntries(), 0);
+	}
+
+	@Test
+	public void testEntriesAreNotSyncedWithoutSyncInterval() {
+		settings.withWriteAheadLogSyncBatchSize(100).withWriteAheadLogSyncIntervalInMillis(0);
+		recordStorage = createRecordStorage();
+
+		createRecordTypePlaceAndPlace();
+
+		assertEquals(recordStorage.getWriteAheadLog().getNoOfUnsyncedEntries(), 2);
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.basicstorage.testdata.DataCreator;
+import se.uu.ub.cora.data.DataGroup;
+
+public class RecordTypeHierarchyTest {
+	private Map<String, DividerGroup> recordTypes;
+
+	@BeforeMethod
+	public void setUp() {
+		recordTypes = new LinkedHashMap<>();
+		addRecordType("authority", DataCreator
+				.createRecordTypeWithIdAndUserSuppliedIdAndAbstract("authority", "false", "true"));
+		addRecordType("person", DataCreator
+				.createRecordTypeWithIdAndUserSuppliedIdAndParentId("person", "true", "authority"));
+		addRecordType("place", DataCreator
+				.createRecordTypeWithIdAndUserSuppliedIdAndParentId("place", "true", "authority"));
+		addRecordType("author", DataCreator
+				.createRecordTypeWithIdAndUserSuppliedIdAndParentId("author", "true", "person"));
+		addRecordType("text", DataCreator
+				.createRecordTypeWithIdAndUserSuppliedIdAndAbstract("text", "false", "false"));
+	}
+
+	private void addRecordType(String id, DataGroup recordType) {
+		recordTypes.put(id, DividerGroup.withDataDividerAndDataGroup("cora", recordType));
+	}
+
+	@Test
+	public void testImplementingRecordTypesIncludeGrandChildrenAfterTheirParent() {
+		RecordTypeHierarchy hierarchy = RecordTypeHierarchy.usingRecordTypes(recordTypes);
+
+		assertEquals(new ArrayList<>(hierarchy.getImplementingRecordTypes("authority")),
+				Arrays.asList("person", "author", "place"));
+		assertEquals(new ArrayList<>(hierarchy.getImplementingRecordTypes("person")),
+				Collections.singletonList("author"));
+	}
+
+	@Test
+	public void testNoImplementingRecordTypes() {
+		RecordTypeHierarchy hierarchy = RecordTypeHierarchy.usingRecordTypes(recordTypes);
+
+		assertTrue(hierarchy.getImplementingRecordTypes("text").isEmpty());
+		assertTrue(hierarchy.getImplementingRecordTypes("notARecordType").isEmpty());
+	}
+
+	@Test
+	public void testIsAbstract() {
+		RecordTypeHierarchy hierarchy = RecordTypeHierarchy.usingRecordTypes(recordTypes);
+
+		assertTrue(hierarchy.isAbstract("authority"));
+		assertFalse(hierarchy.isAbstract("person"));
+		assertFalse(hierarchy.isAbstract("notARecordType"));
+	}
+
+	@Test
+	public void testNoRecordTypes() {
+		RecordTypeHierarchy hierarchy = RecordTypeHierarchy.usingRecordTypes(null);
+
+		assertTrue(hierarchy.getImplementingRecordTypes("authority").isEmpty());
+		assertFalse(hierarchy.isAbstract("authority"));
+	}
+
+	@Test
+	public void testRecordTypeWithItselfAsParentDoesNotLoop() {
+		addRecordType("loop", DataCreator
+				.createRecordTypeWithIdAndUserSuppliedIdAndParentId("loop", "true", "loop"));
+
+		RecordTypeHierarchy hierarchy = RecordTypeHierarchy.usingRecordTypes(recordTypes);
+
+		assertEquals(new ArrayList<>(hierarchy.getImplementingRecordTypes("loop")),
+				Collections.singletonList("loop"));
+	}
+}
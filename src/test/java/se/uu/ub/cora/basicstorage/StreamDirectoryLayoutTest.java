@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.testng.annotations.Test;
+
+public class StreamDirectoryLayoutTest {
+	private Path pathByDataDivider = Paths.get("/base", "someDataDivider");
+
+	@Test
+	public void testNoDirectoryLevelsUsesFlatLayout() {
+		StreamDirectoryLayout layout = StreamDirectoryLayout.usingDirectoryLevels(0);
+
+		assertFalse(layout.usesDirectories());
+		assertEquals(layout.getPathForStream(pathByDataDivider, "someStreamId"),
+				Paths.get("/base", "someDataDivider", "someStreamId"));
+	}
+
+	@Test
+	public void testTwoDirectoryLevels() {
+		StreamDirectoryLayout layout = StreamDirectoryLayout.usingDirectoryLevels(2);
+
+		assertTrue(layout.usesDirectories());
+		assertEquals(layout.getPathForStream(pathByDataDivider, "someStreamId"),
+				Paths.get("/base", "someDataDivider", "a5", "87", "someStreamId"));
+	}
+
+	@Test
+	public void testMaxDirectoryLevels() {
+		StreamDirectoryLayout layout = StreamDirectoryLayout.usingDirectoryLevels(4);
+
+		assertEquals(layout.getPathForStream(pathByDataDivider, "someStreamId"),
+				Paths.get("/base", "someDataDivider", "a5", "87", "71", "4c", "someStreamId"));
+	}
+
+	@Test
+	public void testHashIsPaddedWithLeadingZeros() {
+		StreamDirectoryLayout layout = StreamDirectoryLayout.usingDirectoryLevels(4);
+
+		assertEquals(layout.getPathForStream(pathByDataDivider, "stream452"),
+				Paths.get("/base", "someDataDivider", "00", "69", "84", "66", "stream452"));
+	}
+
+	@Test
+	public void testLegacyPathIsFlat() {
+		StreamDirectoryLayout layout = StreamDirectoryLayout.usingDirectoryLevels(2);
+
+		assertEquals(layout.getLegacyPathForStream(pathByDataDivider, "someStreamId"),
+				Paths.get("/base", "someDataDivider", "someStreamId"));
+	}
+}
@@ -19,6 +19,7 @@
 package se.uu.ub.cora.basicstorage;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
@@ -146,4 +147,89 @@ public class StreamStorageOnDiskProviderTest {
 		streamStorageOnDiskProvider.startUsingInitInfo(initInfo);
 	}
 
+	@Test
+	public void testDefaultBufferSize() {
+		streamStorageOnDiskProvider.startUsingInitInfo(initInfo);
+		StreamStorageOnDisk streamStorage = (StreamStorageOnDisk) streamStorageOnDiskProvider
+				.getStreamStorage();
+		assertEquals(streamStorage.getSettings().getBufferSize(), 64 * 1024);
+	}
+
+	@Test
+	public void testBufferSizeFromInitInfo() {
+		initInfo.put("streamBufferSize", "1048576");
+		streamStorageOnDiskProvider.startUsingInitInfo(initInfo);
+		StreamStorageOnDisk streamStorage = (StreamStorageOnDisk) streamStorageOnDiskProvider
+				.getStreamStorage();
+		assertEquals(streamStorage.getSettings().getBufferSize(), 1048576);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "InitInfo must contain a number for streamBufferSize")
+	public void testErrorIfBufferSizeIsNotANumber() {
+		initInfo.put("streamBufferSize", "notANumber");
+		streamStorageOnDiskProvider.startUsingInitInfo(initInfo);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "streamBufferSize must be larger than zero")
+	public void testErrorIfBufferSizeIsZero() {
+		initInfo.put("streamBufferSize", "0");
+		streamStorageOnDiskProvider.startUsingInitInfo(initInfo);
+	}
+
+	@Test
+	public void testContentAddressedStreamsNotUsedByDefault() {
+		streamStorageOnDiskProvider.startUsingInitInfo(initInfo);
+		StreamStorageOnDisk streamStorage = (StreamStorageOnDisk) streamStorageOnDiskProvider
+				.getStreamStorage();
+		assertFalse(streamStorage.getSettings().useContentAddressedStorage());
+	}
+
+	@Test
+	public void testContentAddressedStreamsFromInitInfo() {
+		initInfo.put("contentAddressedStreams", "true");
+		streamStorageOnDiskProvider.startUsingInitInfo(initInfo);
+		StreamStorageOnDisk streamStorage = (StreamStorageOnDisk) streamStorageOnDiskProvider
+				.getStreamStorage();
+		assertTrue(streamStorage.getSettings().useContentAddressedStorage());
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "InitInfo must contain true or false for contentAddressedStreams")
+	public void testErrorIfContentAddressedStreamsIsNotABoolean() {
+		initInfo.put("contentAddressedStreams", "yes");
+		streamStorageOnDiskProvider.startUsingInitInfo(initInfo);
+	}
+
+	@Test
+	public void testDefaultDirectoryLevels() {
+		streamStorageOnDiskProvider.startUsingInitInfo(initInfo);
+		StreamStorageOnDisk streamStorage = (StreamStorageOnDisk) streamStorageOnDiskProvider
+				.getStreamStorage();
+		assertEquals(streamStorage.getSettings().getDirectoryLevels(), 0);
+	}
+
+	@Test
+	public void testDirectoryLevelsFromInitInfo() {
+		initInfo.put("streamDirectoryLevels", "2");
+		streamStorageOnDiskProvider.startUsingInitInfo(initInfo);
+		StreamStorageOnDisk streamStorage = (StreamStorageOnDisk) streamStorageOnDiskProvider
+				.getStreamStorage();
+		assertEquals(streamStorage.getSettings().getDirectoryLevels(), 2);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "streamDirectoryLevels must be between 0 and 4")
+	public void testErrorIfDirectoryLevelsIsTooLarge() {
+		initInfo.put("streamDirectoryLevels", "5");
+		streamStorageOnDiskProvider.startUsingInitInfo(initInfo);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "streamDirectoryLevels must be between 0 and 4")
+	public void testErrorIfDirectoryLevelsIsNegative() {
+		initInfo.put("streamDirectoryLevels", "-1");
+		streamStorageOnDiskProvider.startUsingInitInfo(initInfo);
+	}
 }
@@ -21,20 +21,27 @@
 package se.uu.ub.cora.basicstorage;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.FileSystemException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.testng.annotations.AfterMethod;
@@ -220,4 +227,588 @@ public class StreamStorageOnDiskTest {
 		assertEquals(caughtException.getMessage(),
 				"can not write files to disk: java.nio.file.NoSuchFileException: /broken/path");
 	}
+
+	@Test
+	public void testUploadUsingSmallBuffer() throws IOException {
+		StreamStorageOnDisk streamStorageOnDisk = StreamStorageOnDisk.usingBasePathAndSettings(
+				basePath, StreamStorageOnDiskSettings.usingDefaults().withBufferSize(3));
+
+		long size = streamStorageOnDisk.store("someStreamId", "someDataDivider", streamToStore);
+
+		assertEquals(size, 8);
+		assertEquals(Files.readAllBytes(Paths.get(basePath, "someDataDivider", "someStreamId")),
+				"a string".getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testUploadLargerThanBuffer() throws IOException {
+		byte[] bytes = new byte[200 * 1024 + 7];
+		Arrays.fill(bytes, (byte) 7);
+
+		long size = streamStorage.store("someStreamId", "someDataDivider",
+				new ByteArrayInputStream(bytes));
+
+		assertEquals(size, bytes.length);
+		assertEquals(Files.readAllBytes(Paths.get(basePath, "someDataDivider", "someStreamId")),
+				bytes);
+	}
+
+	@Test
+	public void testUploadFromFileIsTransferredUsingChannel() throws IOException {
+		Path sourcePath = Paths.get(basePath, "source");
+		byte[] bytes = new byte[100 * 1024 + 3];
+		Arrays.fill(bytes, (byte) 3);
+		Files.write(sourcePath, bytes);
+		StreamStorageOnDisk streamStorageOnDisk = StreamStorageOnDisk.usingBasePathAndSettings(
+				basePath, StreamStorageOnDiskSettings.usingDefaults().withBufferSize(1000));
+
+		long size;
+		try (FileInputStream fileStream = new FileInputStream(sourcePath.toFile())) {
+			size = streamStorageOnDisk.store("someStreamId", "someDataDivider", fileStream);
+		}
+
+		assertEquals(size, bytes.length);
+		assertEquals(Files.readAllBytes(Paths.get(basePath, "someDataDivider", "someStreamId")),
+				bytes);
+	}
+
+	@Test
+	public void testUploadReplacesLongerExistingStream() throws IOException {
+		streamStorage.store("someStreamId", "someDataDivider",
+				new ByteArrayInputStream("a much longer string".getBytes(StandardCharsets.UTF_8)));
+
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+
+		assertEquals(Files.readAllBytes(Paths.get(basePath, "someDataDivider", "someStreamId")),
+				"a string".getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String readStreamAsString(InputStream stream) throws IOException {
+		try (InputStream closableStream = stream) {
+			return new String(closableStream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	public void testGetSize() {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+
+		long size = ((StreamStorageOnDisk) streamStorage).getSize("someStreamId",
+				"someDataDivider");
+
+		assertEquals(size, 8);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "can not read stream from disk, no such stream")
+	public void testGetSizeStreamIsMissing() {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+
+		((StreamStorageOnDisk) streamStorage).getSize("someStreamIdDOESNOTEXIST",
+				"someDataDivider");
+	}
+
+	@Test
+	public void testRetrieveChannel() throws IOException {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+
+		try (FileChannel channel = ((StreamStorageOnDisk) streamStorage)
+				.retrieveChannel("someStreamId", "someDataDivider")) {
+			assertEquals(channel.size(), 8);
+			ByteArrayOutputStream result = new ByteArrayOutputStream();
+			channel.transferTo(2, 6, Channels.newChannel(result));
+			assertEquals(result.toString("UTF-8"), "string");
+		}
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "can not read stream from disk, no such folder")
+	public void testRetrieveChannelFolderForDataDividerIsMissing() {
+		((StreamStorageOnDisk) streamStorage).retrieveChannel("someStreamId", "someDataDivider");
+	}
+
+	@Test
+	public void testRetrieveRange() throws IOException {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+
+		InputStream stream = ((StreamStorageOnDisk) streamStorage).retrieveRange("someStreamId",
+				"someDataDivider", 2, 3);
+
+		assertEquals(readStreamAsString(stream), "str");
+	}
+
+	@Test
+	public void testRetrieveRangeReadByteByByte() throws IOException {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+
+		try (InputStream stream = ((StreamStorageOnDisk) streamStorage)
+				.retrieveRange("someStreamId", "someDataDivider", 7, 5)) {
+			assertEquals(stream.read(), 'g');
+			assertEquals(stream.read(), -1);
+		}
+	}
+
+	@Test
+	public void testRetrieveRangeLongerThanStreamEndsAtEndOfStream() throws IOException {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+
+		InputStream stream = ((StreamStorageOnDisk) streamStorage).retrieveRange("someStreamId",
+				"someDataDivider", 2, 100);
+
+		assertEquals(readStreamAsString(stream), "string");
+	}
+
+	@Test
+	public void testRetrieveRangeStartingAtEndOfStreamIsEmpty() throws IOException {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+
+		InputStream stream = ((StreamStorageOnDisk) streamStorage).retrieveRange("someStreamId",
+				"someDataDivider", 8, 10);
+
+		assertEquals(readStreamAsString(stream), "");
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "can not read stream range from disk, offset is after end of stream")
+	public void testRetrieveRangeStartingAfterEndOfStream() {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+
+		((StreamStorageOnDisk) streamStorage).retrieveRange("someStreamId", "someDataDivider", 9,
+				1);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "can not read stream range from disk, offset and length must not be negative")
+	public void testRetrieveRangeWithNegativeOffset() {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+
+		((StreamStorageOnDisk) streamStorage).retrieveRange("someStreamId", "someDataDivider", -1,
+				1);
+	}
+
+	private List<String> listFileNamesInDataDivider(String dataDivider) throws IOException {
+		try (Stream<Path> list = Files.list(Paths.get(basePath, dataDivider))) {
+			return list.map(path -> path.getFileName().toString()).collect(Collectors.toList());
+		}
+	}
+
+	private InputStream createStreamFailingAfterFirstBytes() {
+		return new InputStream() {
+			private int noOfReadBytes = 0;
+
+			@Override
+			public int read() throws IOException {
+				if (noOfReadBytes == 3) {
+					throw new IOException("upload aborted");
+				}
+				noOfReadBytes++;
+				return 'x';
+			}
+		};
+	}
+
+	@Test
+	public void testUploadLeavesNoTempFiles() throws IOException {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+
+		assertEquals(listFileNamesInDataDivider("someDataDivider"),
+				Arrays.asList("someStreamId"));
+	}
+
+	@Test
+	public void testFailedUploadKeepsPreviousStreamAndRemovesTempFile() throws IOException {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+		Exception caughtException = null;
+
+		try {
+			streamStorage.store("someStreamId", "someDataDivider",
+					createStreamFailingAfterFirstBytes());
+		} catch (DataStorageException e) {
+			caughtException = e;
+		}
+
+		assertEquals(caughtException.getMessage(),
+				"can not write files to disk: java.io.IOException: upload aborted");
+		assertEquals(readStreamAsString(streamStorage.retrieve("someStreamId", "someDataDivider")),
+				"a string");
+		assertEquals(listFileNamesInDataDivider("someDataDivider"),
+				Arrays.asList("someStreamId"));
+	}
+
+	@Test
+	public void testStartupRemovesTempFilesLeftFromEarlierRun() throws IOException {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+		Files.write(Paths.get(basePath, "someDataDivider", ".someStreamId.123.tmp"),
+				new byte[] { 1 });
+
+		StreamStorageOnDisk.usingBasePath(basePath);
+
+		assertEquals(listFileNamesInDataDivider("someDataDivider"),
+				Arrays.asList("someStreamId"));
+		assertEquals(readStreamAsString(streamStorage.retrieve("someStreamId", "someDataDivider")),
+				"a string");
+	}
+
+	@Test
+	public void testStartupRemovesTempFilesLeftFromEarlierRunInDirectoryLevels()
+			throws IOException {
+		StreamStorageOnDisk storage = createStreamStorageUsingTwoDirectoryLevels();
+		storage.store("someStreamId", "someDataDivider", streamToStore);
+		Path streamDirectory = Paths.get(basePath, "someDataDivider", "a5", "87");
+		Files.write(streamDirectory.resolve(".someStreamId.123.tmp"), new byte[] { 1 });
+
+		createStreamStorageUsingTwoDirectoryLevels();
+
+		try (Stream<Path> list = Files.list(streamDirectory)) {
+			assertEquals(list.map(path -> path.getFileName().toString())
+					.collect(Collectors.toList()), Arrays.asList("someStreamId"));
+		}
+	}
+
+	@Test
+	public void testFailedFirstUploadLeavesNoStream() throws IOException {
+		try {
+			streamStorage.store("someStreamId", "someDataDivider",
+					createStreamFailingAfterFirstBytes());
+		} catch (DataStorageException e) {
+			// expected
+		}
+
+		assertEquals(listFileNamesInDataDivider("someDataDivider").size(), 0);
+	}
+
+	@Test
+	public void testDelete() {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+
+		((StreamStorageOnDisk) streamStorage).delete("someStreamId", "someDataDivider");
+
+		assertFalse(Files.exists(Paths.get(basePath, "someDataDivider", "someStreamId")));
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "can not read stream from disk, no such stream")
+	public void testDeleteStreamIsMissing() throws IOException {
+		Files.createDirectories(Paths.get(basePath, "someDataDivider"));
+
+		((StreamStorageOnDisk) streamStorage).delete("someStreamId", "someDataDivider");
+	}
+
+	private StreamStorageOnDisk createContentAddressedStreamStorage() {
+		return StreamStorageOnDisk.usingBasePathAndSettings(basePath,
+				StreamStorageOnDiskSettings.usingDefaults().withContentAddressedStorage(true));
+	}
+
+	private InputStream createInputStreamWithContent(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private List<String> listBlobFileNames() throws IOException {
+		try (Stream<Path> list = Files.list(Paths.get(basePath, ".blobs"))) {
+			return list.map(path -> path.getFileName().toString()).collect(Collectors.toList());
+		}
+	}
+
+	private int countLinks(String dataDivider, String streamId) throws IOException {
+		return (Integer) Files.getAttribute(Paths.get(basePath, dataDivider, streamId),
+				"unix:nlink");
+	}
+
+	@Test
+	public void testContentAddressedStorageIsNotUsedByDefault() throws IOException {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+
+		assertFalse(Files.exists(Paths.get(basePath, ".blobs")));
+		assertEquals(countLinks("someDataDivider", "someStreamId"), 1);
+	}
+
+	@Test
+	public void testContentAddressedUploadCanBeRetrieved() throws IOException {
+		StreamStorageOnDisk storage = createContentAddressedStreamStorage();
+
+		long size = storage.store("someStreamId", "someDataDivider", streamToStore);
+
+		assertEquals(size, 8);
+		assertEquals(readStreamAsString(storage.retrieve("someStreamId", "someDataDivider")),
+				"a string");
+		assertEquals(storage.getSize("someStreamId", "someDataDivider"), 8);
+		assertEquals(readStreamAsString(
+				storage.retrieveRange("someStreamId", "someDataDivider", 2, 3)), "str");
+		assertEquals(listFileNamesInDataDivider("someDataDivider"),
+				Arrays.asList("someStreamId"));
+		assertEquals(listBlobFileNames().size(), 1);
+		assertEquals(countLinks("someDataDivider", "someStreamId"), 2);
+	}
+
+	@Test
+	public void testContentAddressedDuplicateUploadsShareOneBlob() throws IOException {
+		StreamStorageOnDisk storage = createContentAddressedStreamStorage();
+
+		storage.store("someStreamId", "someDataDivider", createInputStreamWithContent("same"));
+		storage.store("otherStreamId", "someDataDivider", createInputStreamWithContent("same"));
+		storage.store("thirdStreamId", "otherDataDivider", createInputStreamWithContent("same"));
+
+		assertEquals(listBlobFileNames().size(), 1);
+		assertEquals(countLinks("someDataDivider", "someStreamId"), 4);
+		assertTrue(Files.isSameFile(Paths.get(basePath, "someDataDivider", "someStreamId"),
+				Paths.get(basePath, "otherDataDivider", "thirdStreamId")));
+	}
+
+	@Test
+	public void testContentAddressedUploadOfSameContentAgainKeepsOneLink() throws IOException {
+		StreamStorageOnDisk storage = createContentAddressedStreamStorage();
+
+		storage.store("someStreamId", "someDataDivider", createInputStreamWithContent("same"));
+		storage.store("someStreamId", "someDataDivider", createInputStreamWithContent("same"));
+
+		assertEquals(listBlobFileNames().size(), 1);
+		assertEquals(countLinks("someDataDivider", "someStreamId"), 2);
+		assertEquals(listFileNamesInDataDivider("someDataDivider"),
+				Arrays.asList("someStreamId"));
+	}
+
+	@Test
+	public void testContentAddressedUploadWithNewContentRemovesUnusedBlob() throws IOException {
+		StreamStorageOnDisk storage = createContentAddressedStreamStorage();
+		storage.store("someStreamId", "someDataDivider", createInputStreamWithContent("old"));
+
+		storage.store("someStreamId", "someDataDivider", createInputStreamWithContent("new"));
+
+		assertEquals(listBlobFileNames().size(), 1);
+		assertEquals(readStreamAsString(storage.retrieve("someStreamId", "someDataDivider")),
+				"new");
+	}
+
+	@Test
+	public void testContentAddressedUploadWithNewContentKeepsSharedBlob() throws IOException {
+		StreamStorageOnDisk storage = createContentAddressedStreamStorage();
+		storage.store("someStreamId", "someDataDivider", createInputStreamWithContent("old"));
+		storage.store("otherStreamId", "someDataDivider", createInputStreamWithContent("old"));
+
+		storage.store("someStreamId", "someDataDivider", createInputStreamWithContent("new"));
+
+		assertEquals(listBlobFileNames().size(), 2);
+		assertEquals(readStreamAsString(storage.retrieve("otherStreamId", "someDataDivider")),
+				"old");
+	}
+
+	@Test
+	public void testContentAddressedDeleteKeepsBlobWhileStillReferenced() throws IOException {
+		StreamStorageOnDisk storage = createContentAddressedStreamStorage();
+		storage.store("someStreamId", "someDataDivider", createInputStreamWithContent("same"));
+		storage.store("otherStreamId", "someDataDivider", createInputStreamWithContent("same"));
+
+		storage.delete("someStreamId", "someDataDivider");
+
+		assertEquals(listBlobFileNames().size(), 1);
+		assertEquals(countLinks("someDataDivider", "otherStreamId"), 2);
+		assertEquals(readStreamAsString(storage.retrieve("otherStreamId", "someDataDivider")),
+				"same");
+	}
+
+	@Test
+	public void testContentAddressedDeleteOfLastReferenceRemovesBlob() throws IOException {
+		StreamStorageOnDisk storage = createContentAddressedStreamStorage();
+		storage.store("someStreamId", "someDataDivider", createInputStreamWithContent("same"));
+		storage.store("otherStreamId", "someDataDivider", createInputStreamWithContent("same"));
+
+		storage.delete("someStreamId", "someDataDivider");
+		storage.delete("otherStreamId", "someDataDivider");
+
+		assertEquals(listBlobFileNames().size(), 0);
+		assertEquals(listFileNamesInDataDivider("someDataDivider").size(), 0);
+	}
+
+	@Test
+	public void testContentAddressedDeleteOfStreamStoredWithoutBlob() throws IOException {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+		StreamStorageOnDisk storage = createContentAddressedStreamStorage();
+
+		storage.delete("someStreamId", "someDataDivider");
+
+		assertEquals(listFileNamesInDataDivider("someDataDivider").size(), 0);
+	}
+
+	@Test
+	public void testContentAddressedFailedUploadKeepsPreviousStreamAndBlob() throws IOException {
+		StreamStorageOnDisk storage = createContentAddressedStreamStorage();
+		storage.store("someStreamId", "someDataDivider", streamToStore);
+
+		try {
+			storage.store("someStreamId", "someDataDivider", createStreamFailingAfterFirstBytes());
+		} catch (DataStorageException e) {
+			// expected
+		}
+
+		assertEquals(readStreamAsString(storage.retrieve("someStreamId", "someDataDivider")),
+				"a string");
+		assertEquals(listBlobFileNames().size(), 1);
+		assertEquals(listFileNamesInDataDivider("someDataDivider"),
+				Arrays.asList("someStreamId"));
+	}
+
+	@Test
+	public void testContentAddressedUploadRecordsDigestOfBlob() throws IOException {
+		StreamStorageOnDisk storage = createContentAddressedStreamStorage();
+
+		storage.store("someStreamId", "someDataDivider", streamToStore);
+
+		Path digestPath = Paths.get(basePath, ".blobDigests", "someDataDivider", "someStreamId");
+		assertEquals(new String(Files.readAllBytes(digestPath), StandardCharsets.US_ASCII),
+				listBlobFileNames().get(0));
+	}
+
+	@Test
+	public void testContentAddressedDeleteRemovesRecordedDigest() throws IOException {
+		StreamStorageOnDisk storage = createContentAddressedStreamStorage();
+		storage.store("someStreamId", "someDataDivider", streamToStore);
+
+		storage.delete("someStreamId", "someDataDivider");
+
+		assertFalse(Files.exists(
+				Paths.get(basePath, ".blobDigests", "someDataDivider", "someStreamId")));
+	}
+
+	@Test
+	public void testContentAddressedUploadWithBrokenRecordedDigestRemovesUnusedBlob()
+			throws IOException {
+		StreamStorageOnDisk storage = createContentAddressedStreamStorage();
+		storage.store("someStreamId", "someDataDivider", createInputStreamWithContent("old"));
+		Files.write(Paths.get(basePath, ".blobDigests", "someDataDivider", "someStreamId"),
+				"../someDataDivider/someStreamId".getBytes(StandardCharsets.US_ASCII));
+
+		storage.store("someStreamId", "someDataDivider", createInputStreamWithContent("new"));
+
+		assertEquals(listBlobFileNames().size(), 1);
+		assertEquals(readStreamAsString(storage.retrieve("someStreamId", "someDataDivider")),
+				"new");
+	}
+
+	@Test
+	public void testContentAddressedStartupRemovesFilesLeftFromEarlierRun() throws IOException {
+		StreamStorageOnDisk storage = createContentAddressedStreamStorage();
+		storage.store("someStreamId", "someDataDivider", streamToStore);
+		List<String> blobFileNames = listBlobFileNames();
+		Files.write(Paths.get(basePath, ".blobs", ".someBlob.tmp"), new byte[] { 1 });
+		Files.write(Paths.get(basePath, ".blobs", "unlinkedBlob"), new byte[] { 1 });
+
+		createContentAddressedStreamStorage();
+
+		assertEquals(listBlobFileNames(), blobFileNames);
+		assertEquals(readStreamAsString(storage.retrieve("someStreamId", "someDataDivider")),
+				"a string");
+	}
+
+	@Test
+	public void testContentAddressedStartupRemovesTempLinksAndBlobsOnlyLinkedFromThem()
+			throws IOException {
+		StreamStorageOnDisk storage = createContentAddressedStreamStorage();
+		storage.store("someStreamId", "someDataDivider", createInputStreamWithContent("old"));
+		Path oldBlobPath = Paths.get(basePath, ".blobs", listBlobFileNames().get(0));
+		Files.createLink(Paths.get(basePath, "someDataDivider", ".someStreamId.link"),
+				oldBlobPath);
+		storage.store("someStreamId", "someDataDivider", createInputStreamWithContent("new"));
+		assertEquals(listBlobFileNames().size(), 2);
+
+		createContentAddressedStreamStorage();
+
+		assertEquals(listFileNamesInDataDivider("someDataDivider"),
+				Arrays.asList("someStreamId"));
+		assertEquals(listBlobFileNames().size(), 1);
+		assertFalse(Files.exists(oldBlobPath));
+		assertEquals(readStreamAsString(storage.retrieve("someStreamId", "someDataDivider")),
+				"new");
+	}
+
+	@Test
+	public void testContentAddressedBlobWithExternalLinkIsKeptUntilLinkIsRemoved()
+			throws IOException {
+		StreamStorageOnDisk storage = createContentAddressedStreamStorage();
+		storage.store("someStreamId", "someDataDivider", createInputStreamWithContent("old"));
+		Path oldBlobPath = Paths.get(basePath, ".blobs", listBlobFileNames().get(0));
+		Path externalLinkPath = Paths.get(basePath, "externalBackupOfOldBlob");
+		Files.createLink(externalLinkPath, oldBlobPath);
+
+		storage.delete("someStreamId", "someDataDivider");
+		assertTrue(Files.exists(oldBlobPath));
+		Files.delete(externalLinkPath);
+		createContentAddressedStreamStorage();
+
+		assertFalse(Files.exists(oldBlobPath));
+	}
+
+	private StreamStorageOnDisk createStreamStorageUsingTwoDirectoryLevels() {
+		return StreamStorageOnDisk.usingBasePathAndSettings(basePath,
+				StreamStorageOnDiskSettings.usingDefaults().withDirectoryLevels(2));
+	}
+
+	@Test
+	public void testUploadUsingDirectoryLevels() throws IOException {
+		StreamStorageOnDisk storage = createStreamStorageUsingTwoDirectoryLevels();
+
+		storage.store("someStreamId", "someDataDivider", streamToStore);
+
+		assertTrue(Files.isRegularFile(
+				Paths.get(basePath, "someDataDivider", "a5", "87", "someStreamId")));
+		assertEquals(listFileNamesInDataDivider("someDataDivider"), Arrays.asList("a5"));
+		assertEquals(readStreamAsString(storage.retrieve("someStreamId", "someDataDivider")),
+				"a string");
+		assertEquals(storage.getSize("someStreamId", "someDataDivider"), 8);
+	}
+
+	@Test
+	public void testRetrieveLegacyFlatStreamUsingDirectoryLevels() throws IOException {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+		StreamStorageOnDisk storage = createStreamStorageUsingTwoDirectoryLevels();
+
+		assertEquals(readStreamAsString(storage.retrieve("someStreamId", "someDataDivider")),
+				"a string");
+		assertEquals(readStreamAsString(
+				storage.retrieveRange("someStreamId", "someDataDivider", 2, 3)), "str");
+	}
+
+	@Test
+	public void testUploadUsingDirectoryLevelsReplacesLegacyFlatStream() throws IOException {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+		StreamStorageOnDisk storage = createStreamStorageUsingTwoDirectoryLevels();
+
+		storage.store("someStreamId", "someDataDivider",
+				createInputStreamWithContent("new content"));
+
+		assertEquals(listFileNamesInDataDivider("someDataDivider"), Arrays.asList("a5"));
+		assertEquals(readStreamAsString(storage.retrieve("someStreamId", "someDataDivider")),
+				"new content");
+	}
+
+	@Test
+	public void testDeleteLegacyFlatStreamUsingDirectoryLevels() throws IOException {
+		streamStorage.store("someStreamId", "someDataDivider", streamToStore);
+		StreamStorageOnDisk storage = createStreamStorageUsingTwoDirectoryLevels();
+
+		storage.delete("someStreamId", "someDataDivider");
+
+		assertEquals(listFileNamesInDataDivider("someDataDivider").size(), 0);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "can not read stream from disk, no such stream")
+	public void testRetrieveUsingDirectoryLevelsStreamIsMissing() throws IOException {
+		Files.createDirectories(Paths.get(basePath, "someDataDivider"));
+		StreamStorageOnDisk storage = createStreamStorageUsingTwoDirectoryLevels();
+
+		storage.retrieve("someStreamId", "someDataDivider");
+	}
+
+	@Test
+	public void testContentAddressedUploadUsingDirectoryLevels() throws IOException {
+		StreamStorageOnDisk storage = StreamStorageOnDisk.usingBasePathAndSettings(basePath,
+				StreamStorageOnDiskSettings.usingDefaults().withDirectoryLevels(2)
+						.withContentAddressedStorage(true));
+
+		storage.store("someStreamId", "someDataDivider", createInputStreamWithContent("same"));
+		storage.store("otherStreamId", "someDataDivider", createInputStreamWithContent("same"));
+
+		assertEquals(listBlobFileNames().size(), 1);
+		assertEquals(countLinks("someDataDivider/a5/87", "someStreamId"), 3);
+	}
 }
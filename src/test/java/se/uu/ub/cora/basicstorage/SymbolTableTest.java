@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.basicstorage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+
+import org.testng.annotations.Test;
+
+public class SymbolTableTest {
+	@Test
+	public void testPrivateConstructor() throws Exception {
+		Constructor<SymbolTable> constructor = SymbolTable.class.getDeclaredConstructor();
+		assertTrue(Modifier.isPrivate(constructor.getModifiers()));
+	}
+
+	@Test(expectedExceptions = InvocationTargetException.class)
+	public void testPrivateConstructorInvoke() throws Exception {
+		Constructor<SymbolTable> constructor = SymbolTable.class.getDeclaredConstructor();
+		constructor.setAccessible(true);
+		constructor.newInstance();
+	}
+
+	@Test
+	public void testInternReturnsSameInstanceForEqualSymbols() {
+		String first = new String("symbolTableTestCora");
+		String second = new String("symbolTableTestCora");
+		assertNotSame(second, first);
+
+		assertSame(SymbolTable.intern(first), first);
+		assertSame(SymbolTable.intern(second), first);
+	}
+
+	@Test
+	public void testInternNull() {
+		assertNull(SymbolTable.intern(null));
+	}
+
+	@Test
+	public void testSymbolsAreNotInternedWhenMaxNoOfSymbolsIsReached() {
+		String alreadyInterned = SymbolTable.intern("symbolTableTestInternedBeforeLimit");
+		SymbolTable.setMaxNoOfSymbols(SymbolTable.getNoOfSymbols());
+		try {
+			String first = new String("symbolTableTestAfterLimit");
+			String second = new String("symbolTableTestAfterLimit");
+
+			assertSame(SymbolTable.intern(first), first);
+			assertSame(SymbolTable.intern(second), second);
+			assertSame(SymbolTable.intern(new String("symbolTableTestInternedBeforeLimit")),
+					alreadyInterned);
+		} finally {
+			SymbolTable.resetMaxNoOfSymbols();
+		}
+	}
+
+	@Test
+	public void testStorageTermDataDataDividerIsInterned() {
+		StorageTermData first = StorageTermData.withValueAndDataDivider("value",
+				new String("symbolTableTestDivider"));
+		StorageTermData second = StorageTermData.withValueAndDataDivider("value",
+				new String("symbolTableTestDivider"));
+
+		assertSame(second.dataDivider, first.dataDivider);
+	}
+
+	@Test
+	public void testIndexOfNameIsSameForEqualNames() {
+		int first = SymbolTable.indexOfName(new String("symbolTableTestName"));
+		int second = SymbolTable.indexOfName(new String("symbolTableTestName"));
+
+		assertEquals(second, first);
+		assertNotEquals(SymbolTable.indexOfName("symbolTableTestOtherName"), first);
+	}
+
+	@Test
+	public void testGetNameByIndex() {
+		int index = SymbolTable.indexOfName("symbolTableTestNameByIndex");
+
+		assertEquals(SymbolTable.getNameByIndex(index), "symbolTableTestNameByIndex");
+	}
+
+	@Test
+	public void testNamesAreKeptWhenMoreNamesThanInitialCapacityAreAdded() {
+		int firstIndex = SymbolTable.indexOfName("symbolTableTestGrow0");
+		for (int nameNo = 1; nameNo < 600; nameNo++) {
+			SymbolTable.indexOfName("symbolTableTestGrow" + nameNo);
+		}
+
+		assertEquals(SymbolTable.getNameByIndex(firstIndex), "symbolTableTestGrow0");
+		assertEquals(SymbolTable.getNameByIndex(SymbolTable.indexOfName("symbolTableTestGrow599")),
+				"symbolTableTestGrow599");
+	}
+
+	@Test
+	public void testNamesAreNotAddedWhenMaxNoOfNamesIsReached() {
+		int indexBeforeLimit = SymbolTable.indexOfName("symbolTableTestNameBeforeLimit");
+		SymbolTable.setMaxNoOfNames(SymbolTable.getNoOfNames());
+		try {
+			assertEquals(SymbolTable.indexOfName("symbolTableTestNameAfterLimit"),
+					SymbolTable.NO_NAME_INDEX);
+			assertEquals(SymbolTable.indexOfName("symbolTableTestNameBeforeLimit"),
+					indexBeforeLimit);
+		} finally {
+			SymbolTable.resetMaxNoOfNames();
+		}
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "unknown name index -1")
+	public void testGetNameByUnknownIndex() {
+		SymbolTable.getNameByIndex(-1);
+	}
+}